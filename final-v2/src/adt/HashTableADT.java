@@ -1,5 +1,7 @@
 package adt;
 
+import java.util.List;
+
 /**
  * Hash Table ADT Interface
  * Used for fast lookup and storage of key-value pairs
@@ -48,5 +50,11 @@ public interface HashTableADT<K, V> {
      * @return true if empty
      */
     boolean isEmpty();
+    
+    /**
+     * Get all values
+     * @return Values, in no particular order
+     */
+    List<V> values();
 }
 
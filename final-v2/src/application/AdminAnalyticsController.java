@@ -2,20 +2,27 @@ package application;
 
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import model.Booking;
+import model.Money;
 import model.Space;
 import model.Transaction;
 import model.User;
+import service.AnalyticsService;
 import util.BookingDataUtil;
+import util.CsvTokenizer;
 import util.TransactionDataUtil;
+import util.UserDataUtil;
 
 import datastructure.QuickSort;
 import java.io.*;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -35,6 +42,12 @@ public class AdminAnalyticsController {
     @FXML
     private Label avgSpendingLabel;
     @FXML
+    private Label durationPercentilesLabel;
+    @FXML
+    private Label spendPercentilesLabel;
+    @FXML
+    private Label leadTimePercentilesLabel;
+    @FXML
     private TableView<BuildingRevenueData> buildingRevenueTable;
     @FXML
     private TableColumn<BuildingRevenueData, String> colBuilding;
@@ -42,10 +55,11 @@ public class AdminAnalyticsController {
     private TableColumn<BuildingRevenueData, Double> colRevenue;
     @FXML
     private TableColumn<BuildingRevenueData, Integer> colBookings;
+    @FXML
+    private TableColumn<BuildingRevenueData, Long> colActiveUsers;
 
     private static final String BOOKINGS_FILE = "data/bookings.csv";
     private static final String SPACES_FILE = "data/spaces.csv";
-    private static final String USERS_FILE = "data/data.csv";
 
     @FXML
     public void initialize() {
@@ -57,6 +71,7 @@ public class AdminAnalyticsController {
         colBuilding.setCellValueFactory(data -> data.getValue().buildingProperty());
         colRevenue.setCellValueFactory(data -> data.getValue().revenueProperty().asObject());
         colBookings.setCellValueFactory(data -> data.getValue().bookingsProperty().asObject());
+        colActiveUsers.setCellValueFactory(data -> data.getValue().activeUsersProperty().asObject());
         
         // Format revenue column
         colRevenue.setCellFactory(column -> new TableCell<BuildingRevenueData, Double>() {
@@ -94,49 +109,34 @@ public class AdminAnalyticsController {
     }
 
     private List<Transaction> loadTransactions() {
-        // Reload transactions from file
-        TransactionDataUtil.reload();
-        
-        // Get all transactions
-        return new ArrayList<>(TransactionDataUtil.getAllTransactions());
+        // Get all transactions (no reload: the cache is kept current by addTransaction)
+        return TransactionDataUtil.getAllTransactions();
     }
 
     private List<Booking> loadBookings() {
-        // Reload bookings from file to ensure we have the latest data
-        BookingDataUtil.loadBookings();
-        
-        // Get all bookings from BookingDataUtil
+        // Get all bookings (no reload: the cache is kept current by every booking change)
         return new ArrayList<>(BookingDataUtil.getAllBookings());
     }
 
     private Map<String, Space> loadSpaces() {
         Map<String, Space> spaces = new HashMap<>();
         
-        try (BufferedReader br = new BufferedReader(new FileReader(SPACES_FILE))) {
-            String line;
-            boolean isFirstLine = true;
+        try {
+            CsvTokenizer csv = CsvTokenizer.open(Paths.get(SPACES_FILE));
             
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                if (line.trim().isEmpty()) continue;
+            while (csv.next()) {
+                if (csv.isHeader("id")) continue;
                 
                 try {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 9) {
-                        Space space = new Space(
-                            parts[0], parts[1], parts[2], parts[3], parts[4], parts[5],
-                            Integer.parseInt(parts[6]), parts[7], Double.parseDouble(parts[8])
-                        );
+                    if (csv.fieldCount() >= 9) {
+                        Space space = Space.fromCSV(csv);
                         spaces.put(space.getSpaceId(), space);
                     }
                 } catch (Exception e) {
-                    System.err.println("Error parsing space: " + line);
+                    System.err.println("Error parsing space: " + csv.line());
                 }
             }
-        } catch (FileNotFoundException e) {
+        } catch (NoSuchFileException e) {
             // File doesn't exist yet
         } catch (IOException e) {
             e.printStackTrace();
@@ -146,53 +146,43 @@ public class AdminAnalyticsController {
     }
 
     private List<User> loadUsers() {
-        List<User> users = new ArrayList<>();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(USERS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                try {
-                    users.add(User.fromCSV(line));
-                } catch (Exception e) {
-                    System.err.println("Error parsing user: " + line);
-                }
-            }
-        } catch (FileNotFoundException e) {
-            // File doesn't exist yet
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        
-        return users;
+        // In-memory user directory (loaded once, kept up to date on register/edit)
+        return new ArrayList<>(UserDataUtil.getAllUsers());
     }
 
     private void calculateStatistics(List<Transaction> transactions, List<Booking> bookings,
                                     Map<String, Space> spaces, List<User> users) {
         
-        // Total Revenue
-        double totalRevenue = transactions.stream()
-            .mapToDouble(Transaction::getAmount)
-            .sum();
-        totalRevenueLabel.setText(String.format("$%.2f", totalRevenue));
+        // Sketches for distinct users, spend and lead time: merged from the per-partition sketches
+        // TransactionDataUtil keeps up to date (no rescan); booking durations are added below
+        AnalyticsService analytics = TransactionDataUtil.getAnalytics(null, null);
+        
+        // Total Revenue (exact, from the partition manifest)
+        long totalRevenueCents = TransactionDataUtil.getTotalCents();
+        totalRevenueLabel.setText("$" + Money.format(totalRevenueCents));
         
         // Total Bookings
         long totalBookings = bookings.stream()
-            .filter(b -> "booked".equals(b.getStatus()))
+            .filter(Booking::isBookedOrCompleted)
             .count();
         totalBookingsLabel.setText(String.valueOf(totalBookings));
         
         // Active Users (users who have made at least one transaction)
-        Set<String> activeUserIds = new HashSet<>();
-        transactions.forEach(t -> activeUserIds.add(t.getUserId()));
-        activeUsersLabel.setText(String.valueOf(activeUserIds.size()));
+        // HyperLogLog sketches per week / building: fixed memory, mergeable at any granularity
+        long activeUsers = analytics.estimateActiveUsers();
+        activeUsersLabel.setText(String.valueOf(activeUsers));
+
+        LocalDate today = LocalDate.now();
+        activeUsersLabel.setTooltip(new Tooltip(
+            "This week: " + analytics.estimateActiveUsers(today, today) +
+            "\nLast 4 weeks: " + analytics.estimateActiveUsers(today.minusWeeks(3), today)));
         
         // Most Popular Space Type
         Map<String, Integer> typeCount = new HashMap<>();
         bookings.stream()
-            .filter(b -> "booked".equals(b.getStatus()))
+            .filter(Booking::isBookedOrCompleted)
             .forEach(b -> {
+                analytics.recordBookingDuration(b);
                 Space space = spaces.get(b.getSpaceId());
                 if (space != null) {
                     typeCount.put(space.getType(), typeCount.getOrDefault(space.getType(), 0) + 1);
@@ -207,14 +197,15 @@ public class AdminAnalyticsController {
         
         // Member vs Non-Member
         long members = users.stream()
-            .filter(u -> "Member".equals(u.getMembership()))
+            .filter(User::isMember)
             .count();
         long nonMembers = users.size() - members;
         memberRatioLabel.setText(members + " / " + nonMembers);
         
-        // Average Spending
-        double avgSpending = activeUserIds.isEmpty() ? 0.0 :
-            totalRevenue / activeUserIds.size();
+        // Average Spending (exact: total revenue over the users with at least one transaction)
+        int payingUsers = TransactionDataUtil.getPayingUserCount();
+        double avgSpending = payingUsers == 0 ? 0.0 :
+            Money.toDouble(totalRevenueCents) / payingUsers;
         avgSpendingLabel.setText(String.format("$%.2f", avgSpending));
         
         // Revenue by Building
@@ -227,68 +218,71 @@ public class AdminAnalyticsController {
             .filter(t -> t.getType() == Transaction.TransactionType.BOOKING)
             .forEach(t -> {
                 processedCount[0]++;
-                String building = null;
+                // Method 0: building recorded on the transaction
+                String building = t.getBuilding();
                 
-                // Method 1: Try to find booking by relatedId (new system)
-                Booking booking = bookings.stream()
-                    .filter(b -> b.getBookingId().equals(t.getRelatedId()))
-                    .findFirst()
-                    .orElse(null);
+                if (building == null) {
+                    // Method 1: Try to find booking by relatedId (new system)
+                    Booking booking = bookings.stream()
+                        .filter(b -> b.getBookingId().equals(t.getRelatedId()))
+                        .findFirst()
+                        .orElse(null);
                 
-                if (booking != null) {
-                    // New system: get building from booking's spaceId
-                    Space space = spaces.get(booking.getSpaceId());
-                    if (space != null) {
-                        building = space.getBuilding();
-                        System.out.println("Found building from booking: " + building + " for transaction: " + t.getTransactionId() + ", spaceId: " + booking.getSpaceId());
+                    if (booking != null) {
+                        // New system: get building from booking's spaceId
+                        Space space = spaces.get(booking.getSpaceId());
+                        if (space != null) {
+                            building = space.getBuilding();
+                            System.out.println("Found building from booking: " + building + " for transaction: " + t.getTransactionId() + ", spaceId: " + booking.getSpaceId());
+                        } else {
+                            System.err.println("WARNING: Space not found for spaceId: " + booking.getSpaceId() + " in transaction: " + t.getTransactionId());
+                        }
                     } else {
-                        System.err.println("WARNING: Space not found for spaceId: " + booking.getSpaceId() + " in transaction: " + t.getTransactionId());
-                    }
-                } else {
-                    // Method 2: Old system - parse description to find space
-                    // Description format: "Booking: New1 (A) - Quantity: 1"
-                    // or "Booking: New1 (A) [Building: A] - Quantity: 1" (new format with building)
-                    // or "Booking: event_001 (event) - 2025-11-15 13:00-13:30"
-                    String description = t.getDescription();
-                    if (description != null && description.startsWith("Booking: ")) {
-                        try {
-                            // First, try to extract building directly from description if available
-                            // Format: "Booking: ... [Building: X] - ..."
-                            int buildingIndex = description.indexOf("[Building: ");
-                            if (buildingIndex > 0) {
-                                int buildingEnd = description.indexOf("]", buildingIndex);
-                                if (buildingEnd > buildingIndex) {
-                                    building = description.substring(buildingIndex + "[Building: ".length(), buildingEnd).trim();
-                                    System.out.println("Found building from description: " + building + " for transaction: " + t.getTransactionId());
+                        // Method 2: Old system - parse description to find space
+                        // Description format: "Booking: New1 (A) - Quantity: 1"
+                        // or "Booking: New1 (A) [Building: A] - Quantity: 1" (new format with building)
+                        // or "Booking: event_001 (event) - 2025-11-15 13:00-13:30"
+                        String description = t.getDescription();
+                        if (description != null && description.startsWith("Booking: ")) {
+                            try {
+                                // First, try to extract building directly from description if available
+                                // Format: "Booking: ... [Building: X] - ..."
+                                int buildingIndex = description.indexOf("[Building: ");
+                                if (buildingIndex > 0) {
+                                    int buildingEnd = description.indexOf("]", buildingIndex);
+                                    if (buildingEnd > buildingIndex) {
+                                        building = description.substring(buildingIndex + "[Building: ".length(), buildingEnd).trim();
+                                        System.out.println("Found building from description: " + building + " for transaction: " + t.getTransactionId());
+                                    }
                                 }
-                            }
                             
-                            // If building not found in description, try to find by space name
-                            if (building == null) {
-                                // Extract space name from description
-                                // Format: "Booking: <name> (<type>) - ..."
-                                String afterBooking = description.substring("Booking: ".length());
-                                int parenIndex = afterBooking.indexOf(" (");
-                                if (parenIndex > 0) {
-                                    String spaceName = afterBooking.substring(0, parenIndex).trim();
+                                // If building not found in description, try to find by space name
+                                if (building == null) {
+                                    // Extract space name from description
+                                    // Format: "Booking: <name> (<type>) - ..."
+                                    String afterBooking = description.substring("Booking: ".length());
+                                    int parenIndex = afterBooking.indexOf(" (");
+                                    if (parenIndex > 0) {
+                                        String spaceName = afterBooking.substring(0, parenIndex).trim();
                                     
-                                    // Find space by name
-                                    Space space = spaces.values().stream()
-                                        .filter(s -> s.getName().equals(spaceName))
-                                        .findFirst()
-                                        .orElse(null);
+                                        // Find space by name
+                                        Space space = spaces.values().stream()
+                                            .filter(s -> s.getName().equals(spaceName))
+                                            .findFirst()
+                                            .orElse(null);
                                     
-                                    if (space != null) {
-                                        building = space.getBuilding();
-                                        System.out.println("Found building from space name: " + building + " for transaction: " + t.getTransactionId() + ", spaceName: " + spaceName);
-                                    } else {
-                                        System.out.println("WARNING: Space not found by name: " + spaceName + " in transaction: " + t.getTransactionId());
+                                        if (space != null) {
+                                            building = space.getBuilding();
+                                            System.out.println("Found building from space name: " + building + " for transaction: " + t.getTransactionId() + ", spaceName: " + spaceName);
+                                        } else {
+                                            System.out.println("WARNING: Space not found by name: " + spaceName + " in transaction: " + t.getTransactionId());
+                                        }
                                     }
                                 }
+                            } catch (Exception e) {
+                                System.err.println("Error parsing description for transaction: " + t.getTransactionId() + ", description: " + description);
+                                e.printStackTrace();
                             }
-                        } catch (Exception e) {
-                            System.err.println("Error parsing description for transaction: " + t.getTransactionId() + ", description: " + description);
-                            e.printStackTrace();
                         }
                     }
                 }
@@ -297,7 +291,7 @@ public class AdminAnalyticsController {
                 if (building != null && !building.isEmpty()) {
                     BuildingRevenueData data = buildingData.getOrDefault(building, 
                         new BuildingRevenueData(building));
-                    data.addRevenue(t.getAmount());
+                    data.addRevenue(t.getAmountCents());
                     data.incrementBookings();
                     buildingData.put(building, data);
                     buildingFoundCount[0]++;
@@ -320,6 +314,7 @@ public class AdminAnalyticsController {
         // Only show buildings with revenue > 0 (filter out empty buildings)
         List<BuildingRevenueData> buildingList = new ArrayList<>();
         for (BuildingRevenueData data : buildingData.values()) {
+            data.setActiveUsers(analytics.estimateActiveUsers(data.getBuilding()));
             if (data.getRevenue() > 0) {
                 buildingList.add(data);
             }
@@ -335,19 +330,38 @@ public class AdminAnalyticsController {
         ObservableList<BuildingRevenueData> observableList = FXCollections.observableArrayList(buildingList);
         buildingRevenueTable.setItems(observableList);
         
+        // Percentiles (p50 / p90 / p99) from the quantile sketches
+        durationPercentilesLabel.setText(formatPercentiles(analytics, AnalyticsService.Metric.BOOKING_DURATION_MINUTES, "%.0f", " min"));
+        spendPercentilesLabel.setText(formatPercentiles(analytics, AnalyticsService.Metric.BOOKING_SPEND, "$%.2f", ""));
+        leadTimePercentilesLabel.setText(formatPercentiles(analytics, AnalyticsService.Metric.LEAD_TIME_DAYS, "%.0f", " days"));
+        
         System.out.println("  Buildings displayed in table: " + buildingList.size());
     }
 
+    private String formatPercentiles(AnalyticsService analytics, AnalyticsService.Metric metric,
+                                     String valueFormat, String unit) {
+        if (analytics.sampleCount(metric) == 0) {
+            return "N/A";
+        }
+        double[] p = analytics.percentiles(metric, 0.5, 0.9, 0.99);
+        return String.format(valueFormat, p[0]) + " / " +
+               String.format(valueFormat, p[1]) + " / " +
+               String.format(valueFormat, p[2]) + unit;
+    }
+
     // Inner class for building revenue data
     public static class BuildingRevenueData {
         private final SimpleStringProperty building;
-        private final SimpleDoubleProperty revenue;
+        private final SimpleDoubleProperty revenue;     // display value
+        private long revenueCents;                      // exact running total
         private final SimpleIntegerProperty bookings;
+        private final SimpleLongProperty activeUsers;
 
         public BuildingRevenueData(String building) {
             this.building = new SimpleStringProperty(building);
             this.revenue = new SimpleDoubleProperty(0.0);
             this.bookings = new SimpleIntegerProperty(0);
+            this.activeUsers = new SimpleLongProperty(0);
         }
 
         public String getBuilding() { return building.get(); }
@@ -355,14 +369,19 @@ public class AdminAnalyticsController {
         public SimpleStringProperty buildingProperty() { return building; }
 
         public double getRevenue() { return revenue.get(); }
-        public void setRevenue(double value) { revenue.set(value); }
+        public void setRevenue(double value) { revenueCents = Money.toCents(value); revenue.set(value); }
         public SimpleDoubleProperty revenueProperty() { return revenue; }
-        public void addRevenue(double amount) { revenue.set(revenue.get() + amount); }
+        public long getRevenueCents() { return revenueCents; }
+        public void addRevenue(long cents) { revenueCents += cents; revenue.set(Money.toDouble(revenueCents)); }
 
         public int getBookings() { return bookings.get(); }
         public void setBookings(int value) { bookings.set(value); }
         public SimpleIntegerProperty bookingsProperty() { return bookings; }
         public void incrementBookings() { bookings.set(bookings.get() + 1); }
+
+        public long getActiveUsers() { return activeUsers.get(); }
+        public void setActiveUsers(long value) { activeUsers.set(value); }
+        public SimpleLongProperty activeUsersProperty() { return activeUsers; }
     }
 }
 
@@ -4,17 +4,16 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import model.Money;
 import model.Transaction;
 import model.User;
 import model.viewmodel.TransactionTableModel;
 import util.CurrentUser;
 import util.TransactionDataUtil;
+import util.UserDataUtil;
 
-import java.io.*;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class AdminBillingController {
 
@@ -39,9 +38,8 @@ public class AdminBillingController {
     @FXML
     private Label totalRevenueLabel;
 
-    private static final String USERS_FILE = "data/data.csv";
     private ObservableList<TransactionTableModel> allTransactions = FXCollections.observableArrayList();
-    private Map<String, String> userIdToUsernameMap = new HashMap<>();
+    private Map<String, String> userIdToUsernameMap = new HashMap<>(); // userIds of the loaded rows
 
     @FXML
     public void initialize() {
@@ -92,38 +90,32 @@ public class AdminBillingController {
     }
 
     private void loadUserMap() {
-        userIdToUsernameMap.clear();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(USERS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 6) {
-                    String userId = parts[0];
-                    String username = parts[1];
-                    userIdToUsernameMap.put(userId, username);
-                    
-                    // Add to user filter choice
-                    if (!userFilterChoice.getItems().contains(username)) {
-                        userFilterChoice.getItems().add(username);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        // Usernames for the filter, de-duplicated by a set instead of a contains() per user
+        Set<String> usernames = new LinkedHashSet<>();
+        for (User u : UserDataUtil.getAllUsers()) {
+            usernames.add(u.getUsername());
         }
+
+        String selected = userFilterChoice.getValue();
+        List<String> items = new ArrayList<>();
+        items.add("All Users");
+        items.addAll(usernames);
+        userFilterChoice.getItems().setAll(items);
+        userFilterChoice.setValue(usernames.contains(selected) ? selected : "All Users");
     }
 
     private void loadTransactions() {
         allTransactions.clear();
 
-        // Reload transactions from file
-        TransactionDataUtil.reload();
-        
-        // Get all transactions
+        // Get all transactions (no reload: the cache is kept current by addTransaction)
         List<Transaction> transactions = TransactionDataUtil.getAllTransactions();
+
+        // Resolve the usernames of all rows in one batch
+        List<String> userIds = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            userIds.add(transaction.getUserId());
+        }
+        userIdToUsernameMap = UserDataUtil.getUsernamesByIds(userIds);
         
         for (Transaction transaction : transactions) {
             String userId = transaction.getUserId();
@@ -131,7 +123,7 @@ public class AdminBillingController {
             String dateStr = transaction.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
             String typeStr = transaction.getType().name();
             String description = transaction.getDescription();
-            double amount = transaction.getAmount();
+            long amount = transaction.getAmountCents();
             String transactionId = transaction.getTransactionId();
             
             allTransactions.add(new TransactionTableModel(
@@ -171,14 +163,10 @@ public class AdminBillingController {
     }
 
     private void updateTotal() {
-        double total = 0.0;
-        ObservableList<TransactionTableModel> items = transactionTable.getItems();
-        
-        for (TransactionTableModel t : items) {
-            total += t.getAmount();
-        }
+        // Exact sum in cents
+        long total = Money.sumCents(transactionTable.getItems(), TransactionTableModel::getAmountCents);
         
-        totalRevenueLabel.setText(String.format("$%.2f", total));
+        totalRevenueLabel.setText("$" + Money.format(total));
     }
 
     @FXML
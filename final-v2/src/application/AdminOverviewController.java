@@ -7,9 +7,13 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.geometry.Insets;
+import model.User;
 import model.viewmodel.UserTableModel;
+import util.UserDataUtil;
 
-import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
 public class AdminOverviewController {
 
@@ -21,7 +25,6 @@ public class AdminOverviewController {
     @FXML private TableColumn<UserTableModel, String> colMembership;
     @FXML private TableColumn<UserTableModel, String> colEdit;
 
-    private static final String DATA_FILE = "data/data.csv";
     private ObservableList<UserTableModel> userList = FXCollections.observableArrayList();
 
     @FXML
@@ -110,25 +113,10 @@ public class AdminOverviewController {
     private void loadDataFromCSV() {
         userList.clear();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(DATA_FILE))) {
-            String header = br.readLine(); // skip header
-
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    String[] data = line.split(",");
-
-                    String userId = data.length > 0 ? data[0] : "";
-                    String username = data.length > 1 ? data[1] : "";
-                    String email = data.length > 2 ? data[2] : "";
-                    String type = data.length > 3 ? data[3] : "User";
-                    String membership = data.length > 4 ? data[4] : "Non-member";
-
-                    userList.add(new UserTableModel(userId, username, "", email, type, membership));
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        // Users come from the in-memory directory (format: userId,username,password,email,type,membership)
+        for (User u : UserDataUtil.getAllUsers()) {
+            userList.add(new UserTableModel(
+                    u.getUserId(), u.getUsername(), "", u.getEmail(), u.getType(), u.getMembership()));
         }
     }
 
@@ -146,28 +134,43 @@ public class AdminOverviewController {
 
     @FXML
     private void saveChanges() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(DATA_FILE))) {
-
-            // write header (optional)
-            bw.write("userId,username,email,type,membership");
-            bw.newLine();
-
-            for (UserTableModel u : userList) {
-                bw.write(
-                        u.getUserId() + "," +
-                        u.getUsername() + "," +
-                        u.getEmail() + "," +
-                        u.getType() + "," +
-                        u.getMembership()
-                );
-                bw.newLine();
+        List<String> rejected = new ArrayList<>();
+
+        for (UserTableModel u : userList) {
+            User existing = UserDataUtil.getUserById(u.getUserId());
+
+            if (existing == null) {
+                // Row added with "Add User": register it (no password until the user sets one)
+                User created = new User(u.getUserId(), u.getUsername(), "", u.getEmail(),
+                        u.getType(), u.getMembership());
+                if (!UserDataUtil.addUser(created)) {
+                    rejected.add(u.getUsername());
+                }
+            } else if (isModified(existing, u)) {
+                // Keep the stored password, only the table columns are editable here
+                User updated = new User(existing.getUserId(), u.getUsername(), existing.getPassword(),
+                        u.getEmail(), u.getType(), u.getMembership());
+                if (!UserDataUtil.updateUser(updated)) {
+                    rejected.add(u.getUsername());
+                }
             }
+        }
+
+        if (rejected.isEmpty()) {
             showAlert("Saved", "Changes saved successfully!");
-        } catch (IOException e) {
-            e.printStackTrace();
+        } else {
+            showAlert("Saved", "Username already exists, not saved: " + String.join(", ", rejected));
+            loadDataFromCSV();
         }
     }
 
+    private boolean isModified(User existing, UserTableModel u) {
+        return !Objects.equals(existing.getUsername(), u.getUsername())
+                || !Objects.equals(existing.getEmail(), u.getEmail())
+                || !Objects.equals(existing.getType(), u.getType())
+                || !Objects.equals(existing.getMembership(), u.getMembership());
+    }
+
     private void showAlert(String title, String msg) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
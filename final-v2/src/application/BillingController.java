@@ -4,15 +4,16 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import model.Money;
 import model.Transaction;
 import model.viewmodel.TransactionTableModel;
 import util.CurrentUser;
 import util.TransactionDataUtil;
-import datastructure.TransactionBST;
 
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class BillingController {
 
@@ -31,11 +32,14 @@ public class BillingController {
     @FXML
     private Label totalAmountLabel;
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private ObservableList<TransactionTableModel> allTransactions = FXCollections.observableArrayList();
-    
-    // ========== BST optimization: use binary search tree to maintain sorting ==========
-    private TransactionBST transactionBST;
-    // ====================================================
+
+    /** Rows per filter choice, built once per load from the composite indexes */
+    private final Map<String, ObservableList<TransactionTableModel>> rowsByFilter = new HashMap<>();
+
+    private String currentUserId;
 
     @FXML
     public void initialize() {
@@ -76,8 +80,9 @@ public class BillingController {
 
     private void loadTransactions() {
         allTransactions.clear();
+        rowsByFilter.clear();
         
-        String currentUserId = CurrentUser.get() != null ? CurrentUser.get().getUserId() : null;
+        currentUserId = CurrentUser.get() != null ? CurrentUser.get().getUserId() : null;
         if (currentUserId == null) {
             System.err.println("ERROR: CurrentUser is null in BillingController!");
             showAlert("Error", "User not logged in!");
@@ -86,79 +91,58 @@ public class BillingController {
 
         System.out.println("Loading transactions for userId: " + currentUserId);
         
-        // Reload transactions from file
-        TransactionDataUtil.reload();
-        
-        // Get all transactions first to debug
-        List<Transaction> all = TransactionDataUtil.getAllTransactions();
-        System.out.println("Total transactions in system: " + all.size());
-        
-        // Get transactions for current user
-        List<Transaction> userTransactions = TransactionDataUtil.getTransactionsByUserId(currentUserId);
-        System.out.println("Transactions for current user: " + userTransactions.size());
-        
-        // ========== BST optimization: use binary search tree to maintain sorting ==========
-        // Create BST and insert all transactions (automatically sorted by date)
-        transactionBST = new TransactionBST();
-        for (Transaction transaction : userTransactions) {
-            transactionBST.insert(transaction); // O(log n) insert, automatically maintains sorting
-        }
-        
-        // In-order traversal of BST to get sorted list (from earliest to latest)
-        List<Transaction> sortedTransactions = transactionBST.inOrderTraversal(); // O(n)
-        
-        // Reverse list (from latest to earliest, newest first)
-        Collections.reverse(sortedTransactions);
-        
-        // Convert to TableModel
-        for (Transaction transaction : sortedTransactions) {
-            String dateStr = transaction.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            String typeStr = transaction.getType().name();
-            String description = transaction.getDescription();
-            double amount = transaction.getAmount();
-            
-            System.out.println("Adding transaction to table: " + description + ", amount: " + amount);
-            allTransactions.add(new TransactionTableModel(dateStr, typeStr, description, amount));
-        }
+        // No reload: TransactionDataUtil.addTransaction keeps the cache and its indexes current
         
-        // Before optimization: use Collections.sort() - O(n log n)
-        // allTransactions.sort((a, b) -> b.getDate().compareTo(a.getDate()));
+        // Total from the partition manifest (no need to load every partition)
+        System.out.println("Total transactions in system: " + TransactionDataUtil.getTransactionCount());
         
-        // After optimization: use BST - automatically sorted on insert O(n log n), but supports advanced operations like range queries
-        System.out.println("BST size: " + transactionBST.size() + ", Total transactions in table: " + allTransactions.size());
+        // ========== Composite index: user's transactions, already newest first ==========
+        // Before optimization: copy the user's list, insert into a new TransactionBST, traverse, reverse
+        // After optimization: read-only view over the (userId, date) index - no sort, no copy
+        allTransactions.setAll(toRows(TransactionDataUtil.getUserTransactionsNewestFirst(currentUserId, null)));
+        rowsByFilter.put("All", allTransactions);
+        System.out.println("Transactions for current user: " + allTransactions.size());
         // ====================================================
         
         filterTransactions();
-        updateTotal();
+    }
+
+    /** Convert index entries (already in display order) to table rows */
+    private ObservableList<TransactionTableModel> toRows(List<Transaction> transactions) {
+        ObservableList<TransactionTableModel> rows = FXCollections.observableArrayList();
+        for (Transaction transaction : transactions) {
+            rows.add(new TransactionTableModel(
+                    transaction.getDate().format(DATE_FORMAT),
+                    transaction.getType().name(),
+                    transaction.getDescription(),
+                    transaction.getAmountCents()));
+        }
+        return rows;
     }
 
     private void filterTransactions() {
         String selectedType = typeFilterChoice.getValue();
+        if (selectedType == null) {
+            selectedType = "All";
+        }
         
-        if (selectedType == null || "All".equals(selectedType)) {
-            transactionTable.setItems(allTransactions);
-        } else {
-            ObservableList<TransactionTableModel> filtered = FXCollections.observableArrayList();
-            for (TransactionTableModel t : allTransactions) {
-                if (selectedType.equals(t.getType())) {
-                    filtered.add(t);
-                }
-            }
-            transactionTable.setItems(filtered);
+        // (userId, type) index: each filter's rows are built once per load, then reused
+        ObservableList<TransactionTableModel> rows = rowsByFilter.get(selectedType);
+        if (rows == null && currentUserId != null) {
+            Transaction.TransactionType type = Transaction.TransactionType.valueOf(selectedType);
+            rows = toRows(TransactionDataUtil.getUserTransactionsNewestFirst(currentUserId, type));
+            rowsByFilter.put(selectedType, rows);
         }
+        transactionTable.setItems(rows != null ? rows : allTransactions);
         
         updateTotal();
     }
 
     private void updateTotal() {
-        double total = 0.0;
-        ObservableList<TransactionTableModel> items = transactionTable.getItems();
-        
-        for (TransactionTableModel t : items) {
-            total += t.getAmount();
-        }
+        // Exact sum in cents
+        long total = Money.sumCents(transactionTable.getItems(), TransactionTableModel::getAmountCents);
         
-        totalAmountLabel.setText(String.format("$%.2f", total));
+        totalAmountLabel.setText("$" + Money.format(total));
     }
 
     @FXML
@@ -7,13 +7,18 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import model.Booking;
 import model.Space;
+import model.Money;
 import model.Transaction;
 import model.viewmodel.SpaceInventoryTableModel;
 import util.BookingDataUtil;
+import util.CsvTokenizer;
 import util.CurrentUser;
 import util.TransactionDataUtil;
+import util.UserDataUtil;
 
 import java.io.*;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -37,14 +42,22 @@ public class BookingController {
     @FXML private TableColumn<SpaceInventoryTableModel, String> colPrice;
     @FXML private TableColumn<SpaceInventoryTableModel, String> colQuantity;
     @FXML private TableColumn<SpaceInventoryTableModel, String> colAvailable; // New column to display available quantity
+    @FXML private Button olderButton; // Show older bookings (next history page)
 
     private static final String BOOKING_FILE = "data/booking.csv";
     private static final String USERBOOKING_FILE = "data/userbooking.csv";
     private static final String SPACES_FILE = "data/spaces.csv";
 
+    /** Past bookings loaded per "Show older bookings" click */
+    private static final int HISTORY_PAGE = 50;
+
     private ObservableList<SpaceInventoryTableModel> allBookingList = FXCollections.observableArrayList();
     private ObservableList<SpaceInventoryTableModel> userBookingList = FXCollections.observableArrayList();
 
+    /** Spaces of the current table, and history rows loaded so far */
+    private Map<String, Space> spacesMap = new HashMap<>();
+    private int historyOffset = 0;
+
     private static String currentUser;
 
     public static void setCurrentUser(String username) {
@@ -206,52 +219,12 @@ public class BookingController {
         // 2. Load bookings from new system (from BookingDataUtil, i.e., bookings.csv)
         if (userId != null) {
             try {
-                // Reload bookings to ensure latest data
-                BookingDataUtil.loadBookings();
-                
-                // Get all bookings for current user (only including status "booked")
-                List<Booking> newSystemBookings = BookingDataUtil.getAllBookings().stream()
-                        .filter(b -> b.getUserId().equals(userId) && "booked".equalsIgnoreCase(b.getStatus()))
-                        .collect(Collectors.toList());
-                
-                // Load Space information for conversion
-                Map<String, Space> spacesMap = loadSpaces();
-                
-                // Convert new system bookings to SpaceInventoryTableModel
-                for (Booking booking : newSystemBookings) {
-                    Space space = spacesMap.get(booking.getSpaceId());
-                    if (space != null) {
-                        // Calculate booking duration (hours)
-                        long hours = ChronoUnit.HOURS.between(booking.getStartTime(), booking.getEndTime());
-                        if (hours == 0) {
-                            // If less than 1 hour, calculate by minutes and convert to hours (keep 1 decimal place)
-                            long minutes = ChronoUnit.MINUTES.between(booking.getStartTime(), booking.getEndTime());
-                            hours = minutes > 0 ? 1 : 0; // At least 1 hour
-                        }
-                        
-                        // Calculate total price: creditsPerHour * hours
-                        double totalPrice = space.getCreditsPerHour() * hours;
-                        
-                        // Create description: includes date and time information
-                        String description = String.format("%s (%s) - %s %s-%s", 
-                                space.getName(), space.getType(), 
-                                booking.getDate(), booking.getStartTime(), booking.getEndTime());
-                        
-                        // Add to list (use space's name as Name, building as Location, floor as Floor)
-                        userBookingList.add(new SpaceInventoryTableModel(
-                                space.getName(),                    // Name
-                                space.getBuilding(),                // Location (building)
-                                space.getFloor(),                   // Floor
-                                space.getType(),                    // Type
-                                String.format("%.2f", totalPrice),  // Price (total price)
-                                "1",                                // Quantity (each booking in new system is 1)
-                                "0"                                 // Available (not applicable)
-                        ));
-                        newSystemCount++;
-                    } else {
-                        System.err.println("WARNING: Space not found for spaceId: " + booking.getSpaceId());
-                    }
-                }
+                // Upcoming bookings, then the most recent page of history (older pages on demand),
+                // from the user index - the cache is kept current by every booking change
+                spacesMap = loadSpaces();
+                newSystemCount = addBookingRows(BookingDataUtil.getUpcomingBookings(userId, 0, Integer.MAX_VALUE));
+                historyOffset = 0;
+                newSystemCount += loadHistoryPage(userId);
                 
                 System.out.println("Loaded " + newSystemCount + " bookings from new system (bookings.csv)");
             } catch (Exception e) {
@@ -265,45 +238,93 @@ public class BookingController {
         System.out.println("Total bookings loaded: " + userBookingList.size() + " (old: " + oldSystemCount + ", new: " + newSystemCount + ")");
     }
     
+    /** Append the next page of the user's booking history to the table */
+    @FXML
+    private void showOlderBookings() {
+        String userId = CurrentUser.get() != null ? CurrentUser.get().getUserId() : null;
+        if (userId != null) {
+            loadHistoryPage(userId);
+        }
+    }
+
+    /**
+     * Append one page of booking history (before today, most recent first) to the table,
+     * and disable "Show older bookings" once the history is exhausted
+     * @return Number of rows added (released bookings are skipped)
+     */
+    private int loadHistoryPage(String userId) {
+        List<Booking> page = BookingDataUtil.getBookingHistory(userId, historyOffset, HISTORY_PAGE);
+        historyOffset += page.size();
+        if (olderButton != null) {
+            olderButton.setDisable(page.size() < HISTORY_PAGE);
+        }
+        return addBookingRows(page);
+    }
+
+    /**
+     * Add bookings with status "booked" or "completed" to the table
+     * @return Number of rows added
+     */
+    private int addBookingRows(List<Booking> list) {
+        int count = 0;
+        for (Booking booking : list) {
+            if (!booking.isBookedOrCompleted()) {
+                continue;
+            }
+            Space space = spacesMap.get(booking.getSpaceId());
+            if (space != null) {
+                // Calculate booking duration (hours)
+                long hours = ChronoUnit.HOURS.between(booking.getStartTime(), booking.getEndTime());
+                if (hours == 0) {
+                    // If less than 1 hour, calculate by minutes and convert to hours (keep 1 decimal place)
+                    long minutes = ChronoUnit.MINUTES.between(booking.getStartTime(), booking.getEndTime());
+                    hours = minutes > 0 ? 1 : 0; // At least 1 hour
+                }
+                
+                // Calculate total price: creditsPerHour * hours
+                double totalPrice = space.getCreditsPerHour() * hours;
+                
+                // Add to list (use space's name as Name, building as Location, floor as Floor)
+                userBookingList.add(new SpaceInventoryTableModel(
+                        space.getName(),                    // Name
+                        space.getBuilding(),                // Location (building)
+                        space.getFloor(),                   // Floor
+                        space.getType(),                    // Type
+                        String.format("%.2f", totalPrice),  // Price (total price)
+                        "1",                                // Quantity (each booking in new system is 1)
+                        "0"                                 // Available (not applicable)
+                ));
+                count++;
+            } else {
+                System.err.println("WARNING: Space not found for spaceId: " + booking.getSpaceId());
+            }
+        }
+        return count;
+    }
+
     /**
      * Load all Space information from spaces.csv
      */
     private Map<String, Space> loadSpaces() {
         Map<String, Space> spacesMap = new HashMap<>();
         
-        try (BufferedReader br = new BufferedReader(new FileReader(SPACES_FILE))) {
-            String line;
-            boolean isFirstLine = true;
+        try {
+            CsvTokenizer csv = CsvTokenizer.open(Paths.get(SPACES_FILE));
             
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue; // Skip header
-                }
-                if (line.trim().isEmpty()) continue;
+            while (csv.next()) {
+                if (csv.isHeader("id")) continue; // Skip header
                 
                 try {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 9) {
-                        Space space = new Space(
-                                parts[0].trim(),                                    // id
-                                parts[1].trim(),                                    // name
-                                parts[2].trim(),                                    // floor
-                                parts[3].trim(),                                    // spaceId
-                                parts[4].trim(),                                    // type
-                                parts[5].trim(),                                    // building
-                                Integer.parseInt(parts[6].trim()),                  // capacity
-                                parts[7].trim(),                                    // status
-                                Double.parseDouble(parts[8].trim())                 // creditsPerHour
-                        );
+                    if (csv.fieldCount() >= 9) {
+                        Space space = Space.fromCSV(csv);
                         spacesMap.put(space.getSpaceId(), space);
                     }
                 } catch (Exception e) {
-                    System.err.println("Error parsing space line: " + line);
+                    System.err.println("Error parsing space line: " + csv.line());
                     e.printStackTrace();
                 }
             }
-        } catch (FileNotFoundException e) {
+        } catch (NoSuchFileException e) {
             System.err.println("Spaces file not found: " + SPACES_FILE);
         } catch (IOException e) {
             System.err.println("ERROR loading spaces: " + e.getMessage());
@@ -387,8 +408,8 @@ public class BookingController {
                 .findFirst()
                 .orElse(null);
 
-        double pricePerUnit = Double.parseDouble(target.getPrice());
-        double totalPrice = pricePerUnit * bookQty;
+        Money pricePerUnit = Money.parse(target.getPrice());
+        Money totalPrice = pricePerUnit.times(bookQty);
 
         // 1. Add to user table list (only add one record, quantity = user input)
         userBookingList.add(new SpaceInventoryTableModel(
@@ -403,14 +424,8 @@ public class BookingController {
 
         // 2. Add Transaction (merge quantity)
         try {
-            String description;
-            if (space != null) {
-                description = String.format("Booking: %s (%s) [Building: %s] - Quantity: %d",
-                        target.getName(), target.getType(), space.getBuilding(), bookQty);
-            } else {
-                description = String.format("Booking: %s (%s) - Quantity: %d",
-                        target.getName(), target.getType(), bookQty);
-            }
+            String description = String.format("Booking: %s (%s) - Quantity: %d",
+                    target.getName(), target.getType(), bookQty);
 
             String bookingId = UUID.randomUUID().toString();
             Transaction transaction = new Transaction(
@@ -421,9 +436,16 @@ public class BookingController {
                     description,
                     bookingId
             );
+            transaction.setPaidOn(LocalDate.now());
+            if (space != null) {
+                transaction.setBuilding(space.getBuilding());
+            }
 
-            TransactionDataUtil.addTransaction(transaction);
-            System.out.println("Transaction created: " + transaction.getTransactionId() + ", userId: " + userId);
+            if (!TransactionDataUtil.addTransaction(transaction)) {
+                showAlert("Error", "Booking saved, but its payment could not be recorded. Please contact an administrator.");
+            } else {
+                System.out.println("Transaction created: " + transaction.getTransactionId() + ", userId: " + userId);
+            }
         } catch (Exception e) {
             System.err.println("ERROR creating transaction: " + e.getMessage());
             e.printStackTrace();
@@ -489,21 +511,10 @@ public class BookingController {
         }
     }
     /**
-     * Get userId from username by looking up in data.csv
+     * Get userId from username (in-memory user index)
      */
     private String getUserIdFromUsername(String username) {
-        try (BufferedReader br = new BufferedReader(new FileReader("data/data.csv"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[1].equals(username)) {
-                    return parts[0]; // Return userId (first field)
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading data.csv: " + e.getMessage());
-        }
-        return null;
+        return UserDataUtil.getUserIdByUsername(username);
     }
 
     private void showAlert(String title, String msg) {
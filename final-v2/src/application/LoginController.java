@@ -4,10 +4,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import model.User;
 import util.CurrentUser;
-
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
+import util.UserDataUtil;
 
 public class LoginController {
 
@@ -16,8 +13,6 @@ public class LoginController {
     @FXML private Button loginButton;
     @FXML private Button registerButton;
 
-    private static final String DATA_FILE = "data/data.csv";
-
     @FXML
     private void login() {
         String username = usernameField.getText().trim();
@@ -28,45 +23,21 @@ public class LoginController {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(DATA_FILE))) {
-
-            String line;
-            while ((line = br.readLine()) != null) {
-
-                String[] f = line.split(",");
-                if (f.length < 6) continue;
-
-                String userId     = f[0];
-                String uname      = f[1];
-                String pwd        = f[2];
-                String email      = f[3];
-                String type       = f[4];
-                String membership = f[5];
-
-                // Match successful
-                if (uname.equals(username) && pwd.equals(password)) {
-
-                    // Save current user
-                    CurrentUser.set(new User(
-                            userId, uname, pwd, email, type, membership
-                    ));
-
-                    // Use Main.changeScene() to switch pages (fixed window size)
-                    if (type.equalsIgnoreCase("Admin")) {
-                        Main.changeScene("admin.fxml");
-                    } else {
-                        Main.changeScene("user.fxml");
-                    }
-
-                    return;
-                }
-            }
-
+        // O(1) lookup in the in-memory user directory (no data.csv scan per attempt)
+        User user = UserDataUtil.authenticate(username, password);
+        if (user == null) {
             showAlert("Error", "Invalid username or password!");
+            return;
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            showAlert("Error", "Login failed due to a system error.");
+        // Save current user
+        CurrentUser.set(user);
+
+        // Use Main.changeScene() to switch pages (fixed window size)
+        if (user.isAdmin()) {
+            Main.changeScene("admin.fxml");
+        } else {
+            Main.changeScene("user.fxml");
         }
     }
 
@@ -6,14 +6,20 @@ import javafx.scene.chart.*;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
+import model.Money;
+import model.Transaction;
+import util.TransactionDataUtil;
+import util.UserDataUtil;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class OverviewController {
 
+    /** Months shown by the daily sales chart, ending with the month of the newest transaction */
+    private static final int DAILY_SALES_MONTHS = 3;
+
     @FXML private LineChart<String, Number> dailySalesChart;
     @FXML private TableView<TransactionRow> recentTransactionTable;
     @FXML private TableColumn<TransactionRow, String> usernameCol;
@@ -25,9 +31,6 @@ public class OverviewController {
     @FXML private javafx.scene.control.Label transactionCountLabel;
     @FXML private javafx.scene.control.Label totalAmountLabel;
 
-    private static final String TRANSACTION_FILE = "data/transactions.csv";
-    private static final String USER_FILE = "data/data.csv"; // userId -> username
-
     @FXML
     public void initialize() {
         setupTransactionTable();
@@ -44,86 +47,50 @@ public class OverviewController {
     }
 
     private void loadSummary() {
-        int totalUsers = 0;
-        int totalTransactions = 0;
-        double totalAmount = 0.0;
-
-        // Count users
-        try (BufferedReader br = new BufferedReader(new FileReader(USER_FILE))) {
-            br.readLine(); // skip header
-            while (br.readLine() != null) totalUsers++;
-        } catch (Exception e) { e.printStackTrace(); }
-
-        // Count transactions & total amount
-        try (BufferedReader br = new BufferedReader(new FileReader(TRANSACTION_FILE))) {
-            String line = br.readLine(); // skip header
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 7) continue;
-                totalTransactions++;
-                totalAmount += Double.parseDouble(p[3]);
-            }
-        } catch (Exception e) { e.printStackTrace(); }
+        // Count users (in-memory user directory)
+        int totalUsers = UserDataUtil.getAllUsers().size();
+
+        // Count transactions & total amount (both from the partition manifest, no rows are read)
+        int totalTransactions = TransactionDataUtil.getTransactionCount();
+        long totalCents = TransactionDataUtil.getTotalCents();
 
         userCountLabel.setText(String.valueOf(totalUsers));
         transactionCountLabel.setText(String.valueOf(totalTransactions));
-        totalAmountLabel.setText(String.format("%.2f", totalAmount));
+        totalAmountLabel.setText(Money.format(totalCents));
     }
 
     private void loadRecentTransactions() {
-        List<TransactionRow> list = new ArrayList<>();
+        // Take the 5 newest transactions first (only the newest partitions are read),
+        // then resolve only their usernames in one batch
+        List<Transaction> recent5 = TransactionDataUtil.getLatestTransactions(5);
+
+        Map<String, String> names = UserDataUtil.getUsernamesByIds(
+                recent5.stream().map(Transaction::getUserId).collect(Collectors.toList()));
 
-        try (BufferedReader br = new BufferedReader(new FileReader(TRANSACTION_FILE))) {
-            String line = br.readLine(); // skip header
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 7) continue;
-                String userId = p[1];
-                String username = getUsernameById(userId);
-                String type = p[2];
-                String amount = p[3];
-                String date = p[4];
-                list.add(new TransactionRow(username, date, type, amount));
-            }
-        } catch (Exception e) { e.printStackTrace(); }
-
-        Collections.reverse(list);
-        List<TransactionRow> recent5 = list.stream().limit(5).collect(Collectors.toList());
-        recentTransactionTable.setItems(FXCollections.observableArrayList(recent5));
+        List<TransactionRow> list = new ArrayList<>();
+        for (Transaction t : recent5) {
+            String username = names.getOrDefault(t.getUserId(), "Unknown");
+            list.add(new TransactionRow(username, t.getDate().toString(), t.getType().name(),
+                    t.getMoney().toString()));
+        }
+        recentTransactionTable.setItems(FXCollections.observableArrayList(list));
     }
 
     private void loadDailySales() {
-        Map<String, Double> salesMap = new TreeMap<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(TRANSACTION_FILE))) {
-            String line = br.readLine(); // skip header
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 7) continue;
-                String date = p[4];
-                double amount = Double.parseDouble(p[3]);
-                salesMap.put(date, salesMap.getOrDefault(date, 0.0) + amount);
-            }
-        } catch (Exception e) { e.printStackTrace(); }
+        // Group by day over the column store (dates in order); only the charted months are read
+        LocalDate to = TransactionDataUtil.getLatestDate();
+        if (to == null) {
+            return;
+        }
+        LocalDate from = to.withDayOfMonth(1).minusMonths(DAILY_SALES_MONTHS - 1);
+        SortedMap<LocalDate, Long> salesByDay = TransactionDataUtil.getCentsByDay(null, from, to);
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Daily Sales");
-        salesMap.forEach((date, amount) -> series.getData().add(new XYChart.Data<>(date, amount)));
+        salesByDay.forEach((date, cents) -> series.getData().add(new XYChart.Data<>(date.toString(), cents / 100.0)));
         dailySalesChart.getData().add(series);
     }
 
-    private String getUsernameById(String userId) {
-        try (BufferedReader br = new BufferedReader(new FileReader(USER_FILE))) {
-            String line;
-            br.readLine(); // skip header
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length >= 2 && p[0].equals(userId)) return p[1];
-            }
-        } catch (Exception e) { e.printStackTrace(); }
-        return "Unknown";
-    }
-
     public static class TransactionRow {
         private final String username;
         private final String date;
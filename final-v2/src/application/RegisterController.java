@@ -2,7 +2,9 @@ package application;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import java.io.*;
+import model.User;
+import util.UserDataUtil;
+
 import java.util.UUID;
 
 public class RegisterController {
@@ -14,8 +16,6 @@ public class RegisterController {
     @FXML private Button registerButton;
     @FXML private Button backToLoginButton;
 
-    private static final String DATA_FILE = "data/data.csv";
-
     @FXML
     private void initialize() {
         typeBox.getItems().addAll("User", "Admin");
@@ -47,7 +47,7 @@ public class RegisterController {
         }
 
         try {
-            if (userExists(name)) {
+            if (UserDataUtil.usernameExists(name)) {
                 showAlert("Error", "Username already exists!");
                 return;
             }
@@ -55,11 +55,10 @@ public class RegisterController {
             String userId = UUID.randomUUID().toString();
             String membership = type.equals("Admin") ? "Member" : "Non-member";
 
-            try (FileWriter fw = new FileWriter(DATA_FILE, true);
-                 BufferedWriter bw = new BufferedWriter(fw);
-                 PrintWriter pw = new PrintWriter(bw)) {
-
-                pw.println(String.join(",", userId, name, password, email, type, membership));
+            // Appends one journal record and updates the in-memory indexes
+            if (!UserDataUtil.addUser(new User(userId, name, password, email, type, membership))) {
+                showAlert("Error", "Username already exists!");
+                return;
             }
 
             showAlert("Success", "Registration successful!");
@@ -71,22 +70,6 @@ public class RegisterController {
         }
     }
 
-    private boolean userExists(String username) throws IOException {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) return false;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] fields = line.split(",");
-                if (fields.length >= 2 && fields[1].equals(username)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     @FXML
     private void backToLogin() {
         try {
@@ -3,11 +3,13 @@ package application;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
+import model.Money;
 import model.Transaction;
+import model.User;
 import util.CurrentUser;
 import util.TransactionDataUtil;
+import util.UserDataUtil;
 
-import java.io.*;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -19,8 +21,6 @@ public class UsersController {
     @FXML private Button editButton;
     @FXML private Button upgradeButton;
 
-    private static final String DATA_FILE = "data/data.csv";
-    
     // Static field for sharing username across controllers
     private static String currentUser;
 
@@ -48,31 +48,19 @@ public class UsersController {
     }
 
     private void loadUserData() {
-        try (BufferedReader br = new BufferedReader(new FileReader(DATA_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] f = line.split(",");
-                // CSV format: userId,username,password,email,type,membership
-                if (f.length >= 6) {
-                    String userId = f[0];
-                    String username = f[1];
-                    // Match username (because currentUser is username)
-                    if (username.equals(currentUser)) {
-                        currentPassword = f[2];
-                        currentEmail = f[3];
-                        currentMembership = f[5] != null && !f[5].isEmpty() && f[5].equalsIgnoreCase("Member") ? "Member" : "Non-member";
-
-                        usernameLabel.setText(currentUser);
-                        emailLabel.setText(currentEmail);
-                        membershipLabel.setText(currentMembership);
-                        return;
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("ERROR loading user data: " + e.getMessage());
-            e.printStackTrace();
+        User user = UserDataUtil.getUserByUsername(currentUser);
+        if (user == null) {
+            System.err.println("ERROR loading user data: user not found: " + currentUser);
+            return;
         }
+
+        currentPassword = user.getPassword();
+        currentEmail = user.getEmail();
+        currentMembership = user.isMember() ? User.MEMBER : User.NON_MEMBER;
+
+        usernameLabel.setText(currentUser);
+        emailLabel.setText(currentEmail);
+        membershipLabel.setText(currentMembership);
     }
 
     @FXML
@@ -135,7 +123,7 @@ public class UsersController {
                 }
                 
                 if (userId != null) {
-                    double membershipPrice = 9.99;
+                    Money membershipPrice = Money.ofCents(999);
                     String description = "Membership Upgrade - Monthly Subscription";
                     String membershipId = UUID.randomUUID().toString();
                     
@@ -148,7 +136,10 @@ public class UsersController {
                             membershipId
                     );
                     
-                    TransactionDataUtil.addTransaction(transaction);
+                    if (!TransactionDataUtil.addTransaction(transaction)) {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Membership upgraded, but its payment could not be recorded. Please contact an administrator.");
+                        return;
+                    }
                     System.out.println("Membership transaction created: " + transaction.getTransactionId());
                 } else {
                     System.err.println("ERROR: Cannot get userId for membership transaction!");
@@ -163,63 +154,37 @@ public class UsersController {
     }
 
     private void updateUserInfo(String newUsername, String newEmail, String newPassword) {
-        List<String> lines = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(DATA_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] f = line.split(",");
-                // CSV format: userId,username,password,email,type,membership
-                if (f.length >= 6) {
-                    String username = f[1];
-                    // Match username
-                    if (username.equals(currentUser)) {
-                        String updatedPwd = newPassword.isEmpty() ? currentPassword : newPassword;
-                        // Rebuild row: userId,newUsername,updatedPwd,newEmail,type,currentMembership
-                        line = f[0] + "," + newUsername + "," + updatedPwd + "," + newEmail + "," + f[4] + "," + currentMembership;
-                        currentUser = newUsername;
-                        currentEmail = newEmail;
-                        currentPassword = updatedPwd;
-                    }
-                }
-                lines.add(line);
-            }
-        } catch (IOException e) {
-            System.err.println("ERROR updating user info: " + e.getMessage());
-            e.printStackTrace();
+        User existing = UserDataUtil.getUserByUsername(currentUser);
+        if (existing == null) {
+            System.err.println("ERROR updating user info: user not found: " + currentUser);
+            return;
         }
 
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(DATA_FILE))) {
-            for (String l : lines) {
-                bw.write(l);
-                bw.newLine();
-            }
-        } catch (IOException e) {
-            System.err.println("ERROR saving user info: " + e.getMessage());
-            e.printStackTrace();
+        String updatedPwd = newPassword.isEmpty() ? currentPassword : newPassword;
+        User updated = new User(existing.getUserId(), newUsername, updatedPwd, newEmail,
+                existing.getType(), currentMembership);
+
+        if (!UserDataUtil.updateUser(updated)) {
+            User owner = UserDataUtil.getUserByUsername(newUsername);
+            showAlert(Alert.AlertType.ERROR, "Error", owner != null && owner != existing
+                    ? "Username already exists!"
+                    : "Could not save your changes, please try again.");
+            return;
         }
 
+        currentUser = newUsername;
+        currentEmail = newEmail;
+        currentPassword = updatedPwd;
+
         usernameLabel.setText(currentUser);
         emailLabel.setText(currentEmail);
     }
 
     /**
-     * Get userId from username by looking up in data.csv
+     * Get userId from username (in-memory user index)
      */
     private String getUserIdFromUsername(String username) {
-        try (BufferedReader br = new BufferedReader(new FileReader(DATA_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                // Format: userId,username,password,email,type,membership
-                if (parts.length >= 2 && parts[1].equals(username)) {
-                    return parts[0]; // Return userId (first field)
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading data.csv: " + e.getMessage());
-        }
-        return null;
+        return UserDataUtil.getUserIdByUsername(username);
     }
 
     private void showAlert(Alert.AlertType type, String title, String msg) {
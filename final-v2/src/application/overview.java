@@ -2,6 +2,7 @@ package application;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import model.Money;
 import model.Transaction;
 import util.CurrentUser;
 import util.TransactionDataUtil;
@@ -38,22 +39,13 @@ public class overview {
 
     private void loadOverviewData() {
 
-        // Ensure latest data is read from CSV
-        TransactionDataUtil.loadTransactions();
-
-        List<Transaction> all = TransactionDataUtil.getAllTransactions();
-
-        // Filter all records for current user
-        List<Transaction> userTx = all.stream()
-                .filter(tx -> tx.getUserId().equals(currentUserId))
-                .collect(Collectors.toList());
+        // Only the current user's partitions are read (the store is kept up to date in memory)
+        List<Transaction> userTx = TransactionDataUtil.getTransactionsByUserId(currentUserId);
 
         // ------- 1. Total bill -------
-        double totalBill = userTx.stream()
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+        long totalBill = Money.sumCents(userTx, Transaction::getAmountCents);
 
-        totalBillLabel.setText(String.format("$ %.2f", totalBill));
+        totalBillLabel.setText("$ " + Money.format(totalBill));
 
         // ------- 2. Most recent booking (latest BOOKING) -------
         List<Transaction> bookings = userTx.stream()
@@ -74,6 +66,6 @@ public class overview {
             );
         }
 
-        System.out.println("Overview loaded: total=" + totalBill + ", bookings=" + bookings.size());
+        System.out.println("Overview loaded: total=" + Money.format(totalBill) + ", bookings=" + bookings.size());
     }
 }
@@ -7,10 +7,7 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import model.Question;
-
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.time.LocalDateTime;
+import repository.Repositories;
 
 public class AdminQuestionController {
 
@@ -25,8 +22,6 @@ public class AdminQuestionController {
 
     private final ObservableList<Question> questionList = FXCollections.observableArrayList();
 
-    private static final String FILE = "data/question.csv";
-
     @FXML
     public void initialize() {
         colUser.setCellValueFactory(new PropertyValueFactory<>("username"));
@@ -36,25 +31,8 @@ public class AdminQuestionController {
     }
 
     private void loadQuestions() {
-        questionList.clear();
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                // Only parse username and content
-                String[] parts = line.split(",", 4);
-                if (parts.length == 4) {
-                    String username = parts[1];
-                    String content = parts[2];
-
-                    // ID and time are not needed, but constructor requires them (as per your Question class requirements)
-                    Question q = new Question(parts[0], username, content, LocalDateTime.parse(parts[3]));
-
-                    questionList.add(q);
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // Through the repository: includes questions still in the log, not yet checkpointed into the CSV
+        questionList.setAll(Repositories.questions().findAll());
         questionTable.setItems(questionList);
     }
 }
@@ -324,7 +324,7 @@ public class AdminSpaceController {
         LocalDate today = LocalDate.now();
         List<Booking> bookings = BookingDataUtil.getBookingsBySpaceIdAndDate(s.getSpaceId(), today);
 
-        if (s.getStatus().equalsIgnoreCase("maintenance")) box.getStyleClass().add("space-maint");
+        if (s.isUnderMaintenance()) box.getStyleClass().add("space-maint");
         else if (bookings.isEmpty()) box.getStyleClass().add("space-available");
         else box.getStyleClass().add("space-booked");
 
@@ -333,7 +333,7 @@ public class AdminSpaceController {
                 "\nType: " + s.getType() +
                 "\nCapacity: " + s.getCapacity() +
                 "\nStatus: " + s.getStatus();
-        if (!s.getStatus().equalsIgnoreCase("maintenance"))
+        if (!s.isUnderMaintenance())
             tooltipText += "\n\nToday bookings:\n" +
                     (bookings.isEmpty() ? "None"
                             : bookings.stream().map(b -> b.getStartTime() + " - " + b.getEndTime())
@@ -341,7 +341,7 @@ public class AdminSpaceController {
         else tooltipText += "\n\nThis space is under maintenance.";
         Tooltip.install(box, new Tooltip(tooltipText));
 
-        if (!s.getStatus().equalsIgnoreCase("maintenance"))
+        if (!s.isUnderMaintenance())
             box.setOnMouseClicked(e -> showBookingDetailDialog(s, bookings));
         return box;
     }
@@ -4,8 +4,8 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import model.Question;
+import repository.Repositories;
 import util.CurrentUser;
-import util.QuestionDataUtil;
 
 public class QuestionController {
 
@@ -34,7 +34,7 @@ public class QuestionController {
 
         Question q = new Question(username, content);
 
-        QuestionDataUtil.addQuestion(q);
+        Repositories.questions().add(q);
 
         statusLabel.setText("Question submitted!");
         inputField.clear();
@@ -1,5 +1,6 @@
 package controller;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -8,6 +9,7 @@ import javafx.scene.layout.*;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import model.Booking;
+import model.Money;
 import model.Space;
 import model.Transaction;
 import util.BookingDataUtil;
@@ -93,9 +95,14 @@ public class TimeSlotSelectorController {
 
         List<Booking> existingBookings = BookingDataUtil.getBookingsBySpaceIdAndDate(space.getSpaceId(), selectedDate)
                 .stream()
-                .filter(b -> b.getStatus().equals("booked"))
+                .filter(Booking::isBookedOrCompleted)
                 .collect(Collectors.toList());
 
+        // Current user's bookings on this date, from the user index (views compare by row)
+        Set<Booking> mine = CurrentUser.getUserId() != null
+                ? new HashSet<>(BookingDataUtil.getUserBookingsOn(CurrentUser.getUserId(), selectedDate))
+                : Collections.emptySet();
+
         Map<LocalTime, Booking> bookingMap = new HashMap<>();
         for (Booking b : existingBookings) {
             LocalTime bStart = b.getStartTime();
@@ -114,7 +121,7 @@ public class TimeSlotSelectorController {
 
             Booking match = bookingMap.get(time);
             if (match != null) {
-                if (!match.getUserId().equals(CurrentUser.getUserId())) {
+                if (!mine.contains(match)) {
                     // Booked by others -> Disable
                     btn.setDisable(true);
                     btn.setStyle("-fx-background-color: #bbbbbb;"); // Gray
@@ -193,8 +200,9 @@ public class TimeSlotSelectorController {
             return;
         }
 
+        // Cost computed once, exactly in cents; the summary shows what the booking stores and the transaction charges
         long minutes = Duration.between(start, end).toMinutes();
-        int totalCredits = (int) Math.ceil((minutes / 60.0) * space.getCreditsPerHour());
+        Money cost = Money.of(space.getCreditsPerHour()).times(minutes, 60);
 
         String summary =
                 "Please confirm your booking:\n\n" +
@@ -206,7 +214,7 @@ public class TimeSlotSelectorController {
                 "----------------------------------------\n" +
                 "Date:        " + date + "\n" +
                 "Time:        " + start + " - " + end + "\n" +
-                "Total Credits: " + totalCredits + "\n";
+                "Total Credits: " + cost + "\n";
 
         Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION);
         confirmDialog.setTitle("Confirm Booking");
@@ -226,40 +234,65 @@ public class TimeSlotSelectorController {
         booking.setDate(date); // ✅ MODIFIED: Correctly write selected date
         booking.setStartTime(start);
         booking.setEndTime(end);
-        booking.setTotalCredits(totalCredits);
         booking.setStatus("booked");
 
         BookingDataUtil.addBooking(booking);
 
         // Create corresponding Transaction record
-        try {
-            String userId = CurrentUser.getUserId();
-            if (userId == null) {
-                System.err.println("ERROR: CurrentUser.getUserId() returned null!");
-                new Alert(Alert.AlertType.WARNING, "Warning: User ID is null. Transaction not created.").showAndWait();
+        String userId = CurrentUser.getUserId();
+        if (userId == null) {
+            System.err.println("ERROR: CurrentUser.getUserId() returned null!");
+            new Alert(Alert.AlertType.WARNING, "Warning: User ID is null. Transaction not created.").showAndWait();
+            finishBooking();
+            return;
+        }
+
+        // Transaction is dated on the booked day; the payment day is recorded separately
+        // so lead time (payment -> use) can be measured by the analytics page
+        String description = String.format("Booking: %s (%s) - %s %s-%s",
+                space.getName(), space.getType(), date, start, end);
+
+        Transaction transaction = new Transaction(
+                userId,
+                Transaction.TransactionType.BOOKING,
+                cost,
+                date,
+                description,
+                bookingId
+        );
+        transaction.setBuilding(space.getBuilding());
+        transaction.setPaidOn(LocalDate.now());
+
+        // addTransaction waits for the ledger fsync: run it off the FX thread
+        Task<Boolean> payment = new Task<>() {
+            @Override
+            protected Boolean call() {
+                return TransactionDataUtil.addTransaction(transaction);
+            }
+        };
+        payment.setOnSucceeded(e -> {
+            if (!payment.getValue()) {
+                new Alert(Alert.AlertType.ERROR, "Booking saved, but its payment could not be recorded. Please contact an administrator.").showAndWait();
             } else {
-                double amount = (minutes / 60.0) * space.getCreditsPerHour();
-                String description = String.format("Booking: %s (%s) - %s %s-%s", 
-                        space.getName(), space.getType(), date, start, end);
-                
-                Transaction transaction = new Transaction(
-                        userId,
-                        Transaction.TransactionType.BOOKING,
-                        amount,
-                        date,
-                        description,
-                        bookingId
-                );
-                
-                TransactionDataUtil.addTransaction(transaction);
                 System.out.println("Transaction created successfully: " + transaction.getTransactionId());
             }
-        } catch (Exception e) {
-            System.err.println("ERROR creating transaction: " + e.getMessage());
-            e.printStackTrace();
-            new Alert(Alert.AlertType.ERROR, "Error creating transaction: " + e.getMessage()).showAndWait();
-        }
+            finishBooking();
+        });
+        payment.setOnFailed(e -> {
+            Throwable error = payment.getException();
+            System.err.println("ERROR creating transaction: " + error.getMessage());
+            error.printStackTrace();
+            new Alert(Alert.AlertType.ERROR, "Error creating transaction: " + error.getMessage()).showAndWait();
+            finishBooking();
+        });
+        btnConfirm.setDisable(true);
+        btnRelease.setDisable(true);
+        Thread worker = new Thread(payment, "booking-payment");
+        worker.setDaemon(true);
+        worker.start();
+    }
 
+    private void finishBooking() {
         new Alert(Alert.AlertType.INFORMATION, "Booking completed!").showAndWait();
         stage.close();
     }
@@ -272,31 +305,19 @@ public class TimeSlotSelectorController {
             return;
         }
 
-        boolean anyReleased = false;
-
+        // ⭐ Release all selected slots of own bookings in one action (one split per booking, one write)
+        Set<LocalTime> times = new HashSet<>();
         for (ToggleButton btn : selected) {
-            LocalTime time = buttonTimeMap.get(btn);
-
-            // ⭐ NEW: First find booking covering this slot (whole booking)
-       
-            Booking booking = BookingDataUtil.getBookingCoveringSlot(space.getSpaceId(), date, time);
-            // ⭐ FIX: booking does not exist -> skip
-            if (booking == null) continue;
-
-            // ⭐ FIX: Only release bookings made by self
-            if (!booking.getUserId().equals(CurrentUser.getUserId())) continue;
-
-            if (!booking.getStatus().equals("booked")) continue;
-
-            // ⭐⭐ NEW: Split or update booking (Core)
-            BookingDataUtil.releaseSingleSlot(
-                    space.getSpaceId(),
-                    date,
-                    time
-            );
-
-            anyReleased = true;
+            times.add(buttonTimeMap.get(btn));
         }
+        // ⭐ FIX: Only release bookings made by self (no user -> nothing to release)
+        String userId = CurrentUser.getUserId();
+        boolean anyReleased = userId != null && BookingDataUtil.releaseSlots(
+                space.getSpaceId(),
+                date,
+                times,
+                userId
+        ) > 0;
 
         // Clear UI selection
         selected.clear();
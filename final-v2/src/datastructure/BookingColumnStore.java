@@ -0,0 +1,594 @@
+package datastructure;
+
+import model.Booking;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Columnar Booking Store
+ * Keeps bookings as parallel primitive arrays (struct of arrays) instead of one Booking object,
+ * three UUID Strings, a LocalDate and two LocalTimes per booking
+ *
+ * Columns (33 bytes per booking):
+ * - idHi / idLo:   bookingId as the two halves of its UUID
+ * - userCode:      userId, dictionary-encoded (see StringDictionary)
+ * - spaceCode:     spaceId, dictionary-encoded
+ * - epochDay:      date as days since 1970-01-01
+ * - startMinute / endMinute: times as minute of day
+ * - statusCode:    status, dictionary-encoded (a removed row holds ~code, i.e. a negative value)
+ *
+ * Callers that need Booking objects get flyweight views (view(row)): a small object holding
+ * only the store and row number, whose getters decode the columns. Views are read-only (their
+ * setters throw): every change goes through the owner, which logs and re-indexes it.
+ * Rows are never moved - removed rows are only marked. A store is replaced rather than reused:
+ * compacted() copies the live rows into a new store and cleared() starts an empty one, and the
+ * old store is retired unchanged. A view of a retired store looks its booking up by id in the
+ * newest store on its next read and follows it there; if the booking is no longer in it
+ * (removed or archived meanwhile) the view keeps reading its last state from the retired store.
+ * Like the other datastructure classes the store is not thread-safe; the owner
+ * (BookingDataUtil) serializes changes.
+ *
+ * Live rows are indexed by bookingId in an open-addressing table of row numbers (4-8 bytes
+ * per row, no objects), so find() does not scan the id columns.
+ *
+ * Time Complexity:
+ * - append / delete / view / find(bookingId): O(1) amortized
+ * - select(space, date): O(n) over int columns
+ */
+public class BookingColumnStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final short NO_TIME = -1;
+
+    private long[] idHi = new long[INITIAL_CAPACITY];
+    private long[] idLo = new long[INITIAL_CAPACITY];
+    private int[] userCode = new int[INITIAL_CAPACITY];
+    private int[] spaceCode = new int[INITIAL_CAPACITY];
+    private int[] epochDay = new int[INITIAL_CAPACITY];
+    private short[] startMinute = new short[INITIAL_CAPACITY];
+    private short[] endMinute = new short[INITIAL_CAPACITY];
+    private byte[] statusCode = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+    private int deleted = 0;
+
+    private final StringDictionary users = new StringDictionary();
+    private final StringDictionary spaces = new StringDictionary();
+    private final StringDictionary statuses = new StringDictionary();
+
+    /** Row → bookingId for the rare ids that are not canonical UUIDs */
+    private final Map<Integer, String> irregularIds = new HashMap<>();
+
+    /** bookingId index: slots hold row + 1 of a live row, EMPTY_SLOT or REMOVED_SLOT (power-of-two length) */
+    private int[] idSlots = new int[INITIAL_CAPACITY * 2];
+    private int idSlotsUsed = 0;
+    private static final int EMPTY_SLOT = 0;
+    private static final int REMOVED_SLOT = -1;
+
+    /** Store that replaced this one (compacted / cleared), or null while this one is current */
+    private BookingColumnStore successor;
+
+    /**
+     * Append a copy of a booking as a new row
+     * Time Complexity: O(1) amortized
+     * @return Row number
+     * @throws IllegalArgumentException if a time has seconds (not representable as minute of day)
+     */
+    public int append(Booking b) {
+        return append(b.getBookingId(), b.getUserId(), b.getSpaceId(),
+                b.getDate(), b.getStartTime(), b.getEndTime(), b.getStatus());
+    }
+
+    /**
+     * Append one booking from its field values
+     * @return Row number
+     */
+    public int append(String bookingId, String userId, String spaceId, LocalDate date,
+                      LocalTime startTime, LocalTime endTime, String status) {
+        short start = toMinute(startTime);
+        short end = toMinute(endTime);
+        if (size == epochDay.length) {
+            grow();
+        }
+        int row = size;
+
+        setId(row, bookingId);
+        userCode[row] = users.encode(userId);
+        spaceCode[row] = spaces.encode(spaceId);
+        epochDay[row] = date != null ? (int) date.toEpochDay() : NO_DATE;
+        startMinute[row] = start;
+        endMinute[row] = end;
+        statusCode[row] = encodeStatus(status);
+        indexId(row);
+        size++;
+        return row;
+    }
+
+    /**
+     * Overwrite every column of a live row with a booking's values (row number unchanged)
+     * @throws IllegalArgumentException if a time has seconds
+     */
+    public void set(int row, Booking b) {
+        checkRow(row);
+        short start = toMinute(b.getStartTime());
+        short end = toMinute(b.getEndTime());
+        setBookingId(row, b.getBookingId());
+        userCode[row] = users.encode(b.getUserId());
+        spaceCode[row] = spaces.encode(b.getSpaceId());
+        setDate(row, b.getDate());
+        startMinute[row] = start;
+        endMinute[row] = end;
+        setStatus(row, b.getStatus());
+    }
+
+    /** Mark a row as removed (its views read as before, but it is skipped by scans and find) */
+    public void delete(int row) {
+        checkRow(row);
+        if (statusCode[row] >= 0) {
+            unindexId(row);
+            statusCode[row] = (byte) ~statusCode[row];
+            deleted++;
+        }
+    }
+
+    /**
+     * New store holding only the live rows, in the same order (removed rows are reclaimed);
+     * this store is retired: it must not be changed any more, and its views follow their
+     * bookings to the new store
+     * Time Complexity: O(n)
+     */
+    public BookingColumnStore compacted() {
+        BookingColumnStore copy = new BookingColumnStore();
+        for (int row : liveRows()) {
+            copy.append(getBookingId(row), getUserId(row), getSpaceId(row),
+                    getDate(row), getStartTime(row), getEndTime(row), getStatus(row));
+        }
+        successor = copy;
+        return copy;
+    }
+
+    /**
+     * New empty store replacing this one (e.g. before a reload); this store is retired as in
+     * compacted(), so its views follow their bookings once they are added to the new store
+     */
+    public BookingColumnStore cleared() {
+        successor = new BookingColumnStore();
+        return successor;
+    }
+
+    /** Number of rows, including removed ones (row numbers are 0 .. size-1) */
+    public int size() {
+        return size;
+    }
+
+    /** Number of rows not removed */
+    public int liveCount() {
+        return size - deleted;
+    }
+
+    public boolean isLive(int row) {
+        checkRow(row);
+        return statusCode[row] >= 0;
+    }
+
+    /** Approximate heap used by the columns (excluding dictionaries) */
+    public long columnBytes() {
+        return (long) epochDay.length * (8 + 8 + 4 + 4 + 4 + 2 + 2 + 1);
+    }
+
+    // =========================================================
+    //               Row access
+    // =========================================================
+
+    public String getBookingId(int row) {
+        checkRow(row);
+        String irregular = irregularIds.get(row);
+        return irregular != null ? irregular : new UUID(idHi[row], idLo[row]).toString();
+    }
+
+    public String getUserId(int row) {
+        checkRow(row);
+        return users.decode(userCode[row]);
+    }
+
+    public String getSpaceId(int row) {
+        checkRow(row);
+        return spaces.decode(spaceCode[row]);
+    }
+
+    public LocalDate getDate(int row) {
+        checkRow(row);
+        return epochDay[row] == NO_DATE ? null : LocalDate.ofEpochDay(epochDay[row]);
+    }
+
+    public LocalTime getStartTime(int row) {
+        checkRow(row);
+        return fromMinute(startMinute[row]);
+    }
+
+    public LocalTime getEndTime(int row) {
+        checkRow(row);
+        return fromMinute(endMinute[row]);
+    }
+
+    /** Status (a removed row still reports the status it had, so stale views stay readable) */
+    public String getStatus(int row) {
+        checkRow(row);
+        byte code = statusCode[row];
+        return statuses.decode(code >= 0 ? code : ~code);
+    }
+
+    public int getEpochDay(int row) {
+        checkRow(row);
+        return epochDay[row];
+    }
+
+    public int getStartMinute(int row) {
+        checkRow(row);
+        return startMinute[row];
+    }
+
+    public int getEndMinute(int row) {
+        checkRow(row);
+        return endMinute[row];
+    }
+
+    public void setBookingId(int row, String bookingId) {
+        checkRow(row);
+        boolean live = statusCode[row] >= 0;
+        if (live) {
+            unindexId(row);
+        }
+        irregularIds.remove(row);
+        setId(row, bookingId);
+        if (live) {
+            indexId(row);
+        }
+    }
+
+    public void setUserId(int row, String userId) {
+        checkRow(row);
+        userCode[row] = users.encode(userId);
+    }
+
+    public void setSpaceId(int row, String spaceId) {
+        checkRow(row);
+        spaceCode[row] = spaces.encode(spaceId);
+    }
+
+    public void setDate(int row, LocalDate date) {
+        checkRow(row);
+        epochDay[row] = date != null ? (int) date.toEpochDay() : NO_DATE;
+    }
+
+    public void setStartTime(int row, LocalTime time) {
+        checkRow(row);
+        startMinute[row] = toMinute(time);
+    }
+
+    public void setEndTime(int row, LocalTime time) {
+        checkRow(row);
+        endMinute[row] = toMinute(time);
+    }
+
+    /** Change the status of a live row (no effect on removed rows) */
+    public void setStatus(int row, String status) {
+        checkRow(row);
+        if (statusCode[row] >= 0) {
+            statusCode[row] = encodeStatus(status);
+        }
+    }
+
+    /** True if the row is live and has this status */
+    public boolean hasStatus(int row, String status) {
+        checkRow(row);
+        int code = statuses.lookup(Booking.canonicalStatus(status));
+        return code >= 0 && statusCode[row] == code;
+    }
+
+    // =========================================================
+    //               Search
+    // =========================================================
+
+    /**
+     * Row of a live booking (through the id index)
+     * @return Row number, or -1 if there is no live booking with this id
+     */
+    public int find(String bookingId) {
+        if (bookingId == null) {
+            return -1;
+        }
+        UUID uuid = parseUuid(bookingId);
+        long hi = uuid != null ? uuid.getMostSignificantBits() : 0;
+        long lo = uuid != null ? uuid.getLeastSignificantBits() : 0;
+        int mask = idSlots.length - 1;
+        int hash = uuid != null ? idHash(hi, lo) : idHash(bookingId);
+        for (int i = hash & mask; idSlots[i] != EMPTY_SLOT; i = (i + 1) & mask) {
+            int row = idSlots[i] - 1;
+            if (row < 0) {
+                continue;
+            }
+            String irregular = irregularIds.get(row);
+            if (uuid != null ? irregular == null && idLo[row] == lo && idHi[row] == hi
+                             : bookingId.equals(irregular)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Live rows of a space, optionally on one date and without a given status
+     * @param date Date, or null for any date
+     * @param excludedStatus Status to leave out (e.g. Booking.RELEASED), or null
+     * @return Selection vector: matching row numbers in ascending order
+     */
+    public int[] select(String spaceId, LocalDate date, String excludedStatus) {
+        int space = spaces.lookup(spaceId);
+        if (space < 0) {
+            return new int[0];
+        }
+        boolean anyDate = date == null;
+        int day = anyDate ? 0 : (int) date.toEpochDay();
+        int excluded = excludedStatus == null ? -1 : statuses.lookup(Booking.canonicalStatus(excludedStatus));
+
+        int[] rows = new int[16];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            byte status = statusCode[i];
+            if (spaceCode[i] == space && (anyDate || epochDay[i] == day)
+                    && status >= 0 && status != excluded) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /** All live rows, in insertion order */
+    public int[] liveRows() {
+        int[] rows = new int[liveCount()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (statusCode[i] >= 0) {
+                rows[count++] = i;
+            }
+        }
+        return rows;
+    }
+
+    // =========================================================
+    //               Flyweight views
+    // =========================================================
+
+    /** Read-only Booking view of one row (reads go to the columns) */
+    public Booking view(int row) {
+        checkRow(row);
+        return new RowView(this, row);
+    }
+
+    /** Views of the given rows */
+    public List<Booking> views(int[] rows) {
+        List<Booking> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(new RowView(this, row));
+        }
+        return result;
+    }
+
+    /** Row number behind a view of this store, or -1 for any other Booking */
+    public int rowOf(Booking b) {
+        if (b instanceof RowView) {
+            RowView view = (RowView) b;
+            view.follow();
+            if (view.store == this) {
+                return view.row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Flyweight: the only state is the store and row number (plus the inherited, unused Booking
+     * fields, which stay null). Setters throw UnsupportedOperationException: changes must be
+     * logged and indexed by the owner (BookingDataUtil.updateBookingStatus and friends).
+     * Two views of the same booking are equal.
+     */
+    private static final class RowView extends Booking {
+        private BookingColumnStore store;
+        private int row;
+
+        private RowView(BookingColumnStore store, int row) {
+            this.store = store;
+            this.row = row;
+        }
+
+        /** Move to the booking's row in the newest store, if the store was retired and it is there */
+        private void follow() {
+            if (store.successor == null) {
+                return;
+            }
+            BookingColumnStore newest = store.successor;
+            while (newest.successor != null) {
+                newest = newest.successor;
+            }
+            int found = newest.find(store.getBookingId(row));
+            if (found >= 0) {
+                store = newest;
+                row = found;
+            }
+        }
+
+        @Override public String getBookingId() { follow(); return store.getBookingId(row); }
+        @Override public String getUserId() { follow(); return store.getUserId(row); }
+        @Override public String getSpaceId() { follow(); return store.getSpaceId(row); }
+        @Override public LocalDate getDate() { follow(); return store.getDate(row); }
+        @Override public LocalTime getStartTime() { follow(); return store.getStartTime(row); }
+        @Override public LocalTime getEndTime() { follow(); return store.getEndTime(row); }
+        @Override public String getStatus() { follow(); return store.getStatus(row); }
+
+        @Override public void setBookingId(String bookingId) { throw readOnly(); }
+        @Override public void setUserId(String userId) { throw readOnly(); }
+        @Override public void setSpaceId(String spaceId) { throw readOnly(); }
+        @Override public void setDate(LocalDate date) { throw readOnly(); }
+        @Override public void setStartTime(LocalTime time) { throw readOnly(); }
+        @Override public void setEndTime(LocalTime time) { throw readOnly(); }
+        @Override public void setStatus(String status) { throw readOnly(); }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Cached bookings are read-only; change them through BookingDataUtil");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RowView)) {
+                return false;
+            }
+            RowView other = (RowView) o;
+            follow();
+            other.follow();
+            return other.row == row && other.store == store;
+        }
+
+        @Override
+        public int hashCode() {
+            return getBookingId().hashCode();
+        }
+    }
+
+    // =========================================================
+    //               Internal
+    // =========================================================
+
+    private void setId(int row, String id) {
+        UUID uuid = parseUuid(id);
+        if (uuid != null) {
+            idHi[row] = uuid.getMostSignificantBits();
+            idLo[row] = uuid.getLeastSignificantBits();
+        } else {
+            idHi[row] = 0;
+            idLo[row] = 0;
+            irregularIds.put(row, id);
+        }
+    }
+
+    /** Add a live row to the id index (rebuilt larger once half the slots are taken) */
+    private void indexId(int row) {
+        if ((idSlotsUsed + 1) * 2 > idSlots.length) {
+            rebuildIdIndex();
+            if (row < size) {
+                return; // the rebuild already indexed it
+            }
+        }
+        int mask = idSlots.length - 1;
+        int i = rowHash(row) & mask;
+        while (idSlots[i] != EMPTY_SLOT) {
+            i = (i + 1) & mask;
+        }
+        idSlots[i] = row + 1;
+        idSlotsUsed++;
+    }
+
+    /** Remove a row from the id index (its slot becomes REMOVED_SLOT, so probe chains stay intact) */
+    private void unindexId(int row) {
+        int mask = idSlots.length - 1;
+        for (int i = rowHash(row) & mask; idSlots[i] != EMPTY_SLOT; i = (i + 1) & mask) {
+            if (idSlots[i] == row + 1) {
+                idSlots[i] = REMOVED_SLOT;
+                return;
+            }
+        }
+    }
+
+    /** Re-insert the live rows into a table sized for them (drops the REMOVED_SLOT entries) */
+    private void rebuildIdIndex() {
+        int live = liveCount();
+        int length = Math.max(INITIAL_CAPACITY * 2, Integer.highestOneBit(Math.max(live, 1) * 4 - 1) << 1);
+        idSlots = new int[length];
+        idSlotsUsed = 0;
+        int mask = length - 1;
+        for (int row = 0; row < size; row++) {
+            if (statusCode[row] >= 0) {
+                int i = rowHash(row) & mask;
+                while (idSlots[i] != EMPTY_SLOT) {
+                    i = (i + 1) & mask;
+                }
+                idSlots[i] = row + 1;
+                idSlotsUsed++;
+            }
+        }
+    }
+
+    private int rowHash(int row) {
+        String irregular = irregularIds.get(row);
+        return irregular != null ? idHash(irregular) : idHash(idHi[row], idLo[row]);
+    }
+
+    private static int idHash(long hi, long lo) {
+        long h = (hi ^ Long.rotateLeft(lo, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int idHash(String irregularId) {
+        return idHash(irregularId.hashCode(), 0x5BD1E995L);
+    }
+
+    /** Status code of the canonical status (so views compare equal to Booking.BOOKED by identity) */
+    private byte encodeStatus(String status) {
+        int code = statuses.encode(Booking.canonicalStatus(status));
+        if (code > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct booking statuses: " + statuses.size());
+        }
+        return (byte) code;
+    }
+
+    private static short toMinute(LocalTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        if (time.getSecond() != 0 || time.getNano() != 0) {
+            throw new IllegalArgumentException("Booking time with seconds is not supported: " + time);
+        }
+        return (short) (time.getHour() * 60 + time.getMinute());
+    }
+
+    private static LocalTime fromMinute(short minute) {
+        return minute == NO_TIME ? null : LocalTime.of(minute / 60, minute % 60);
+    }
+
+    /** UUID, only for canonical lower-case text (so getBookingId returns the id unchanged) */
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void grow() {
+        int capacity = epochDay.length * 2;
+        idHi = Arrays.copyOf(idHi, capacity);
+        idLo = Arrays.copyOf(idLo, capacity);
+        userCode = Arrays.copyOf(userCode, capacity);
+        spaceCode = Arrays.copyOf(spaceCode, capacity);
+        epochDay = Arrays.copyOf(epochDay, capacity);
+        startMinute = Arrays.copyOf(startMinute, capacity);
+        endMinute = Arrays.copyOf(endMinute, capacity);
+        statusCode = Arrays.copyOf(statusCode, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package datastructure;
 
 import adt.HashTableADT;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Chaining Hash Table Implementation
@@ -133,8 +135,7 @@ public class ChainingHashTable<K, V> implements HashTableADT<K, V> {
         int index = hashFunction(key);
         LinkedList<Entry<K, V>> bucket = table[index];
         
-        bucket.removeIf(entry -> entry.key.equals(key));
-        if (bucket.size() < table[index].size()) {
+        if (bucket.removeIf(entry -> entry.key.equals(key))) {
             size--; // If element removed, decrease size
         }
     }
@@ -149,6 +150,17 @@ public class ChainingHashTable<K, V> implements HashTableADT<K, V> {
         return size == 0;
     }
     
+    @Override
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        for (LinkedList<Entry<K, V>> bucket : table) {
+            for (Entry<K, V> entry : bucket) {
+                values.add(entry.value);
+            }
+        }
+        return values;
+    }
+    
     /**
      * 
      */
@@ -0,0 +1,179 @@
+package datastructure;
+
+/**
+ * HyperLogLog Cardinality Sketch
+ * Estimates the number of distinct items in a stream using a fixed array of small registers
+ *
+ * Time Complexity:
+ * - add: O(1)
+ * - estimate: O(m) where m = 2^precision registers
+ * - merge: O(m)
+ *
+ * Space Complexity: O(m) bytes, independent of how many items are added
+ * (default precision 12 -> 4096 registers -> 4 KB, standard error ~1.6%)
+ *
+ * Algorithm:
+ * 1. Hash each item to 64 bits
+ * 2. The first p bits select a register, the remaining bits give a rank (position of first 1-bit)
+ * 3. Each register keeps the maximum rank it has seen
+ * 4. The harmonic mean of 2^-rank over all registers estimates the cardinality
+ *    (linear counting is used for small cardinalities, where it is more accurate)
+ *
+ * Application Scenarios:
+ * - Analytics Module: distinct active users per week / per building
+ * - Sketches with the same precision are mergeable (union), so any coarser
+ *   granularity (month, all buildings, ...) can be answered without rescanning data
+ */
+public class HyperLogLog {
+
+    private static final int DEFAULT_PRECISION = 12;
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 16;
+
+    private final int precision;
+    private final int registerCount;
+    private final byte[] registers;
+
+    /**
+     * Default Constructor (precision 12)
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructor with specified precision
+     * @param precision Number of index bits (4..16), registers = 2^precision
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION
+                    + " and " + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new byte[registerCount];
+    }
+
+    /**
+     * Add item to the sketch (adding the same item again has no effect)
+     * Time Complexity: O(length of item)
+     */
+    public void add(String item) {
+        if (item == null) {
+            return;
+        }
+        long hash = hash64(item);
+
+        // First p bits -> register index
+        int index = (int) (hash >>> (64 - precision));
+
+        // Remaining bits -> rank (position of first 1-bit, starting at 1)
+        long remaining = hash << precision;
+        int rank = Math.min(Long.numberOfLeadingZeros(remaining), 64 - precision) + 1;
+
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Estimate number of distinct items added so far
+     * Time Complexity: O(m)
+     */
+    public long estimate() {
+        double sum = 0.0;
+        int zeroRegisters = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double m = registerCount;
+        double rawEstimate = alpha() * m * m / sum;
+
+        // Small range correction: linear counting
+        if (rawEstimate <= 2.5 * m && zeroRegisters > 0) {
+            return Math.round(m * Math.log(m / zeroRegisters));
+        }
+        // 64-bit hashes make the large range correction unnecessary
+        return Math.round(rawEstimate);
+    }
+
+    /**
+     * Merge another sketch into this one (set union)
+     * Time Complexity: O(m)
+     * @param other Sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other == null) {
+            return;
+        }
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision: "
+                    + precision + " vs " + other.precision);
+        }
+        for (int i = 0; i < registerCount; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Create an independent copy of this sketch
+     */
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registerCount);
+        return copy;
+    }
+
+    /**
+     * Check if no item has been added
+     */
+    public boolean isEmpty() {
+        for (byte r : registers) {
+            if (r != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Bias correction constant for m registers
+     */
+    private double alpha() {
+        switch (registerCount) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+
+    /**
+     * 64-bit hash: FNV-1a over the characters, followed by the MurmurHash3 finalizer
+     * (String.hashCode() is only 32 bits and too weak for rank estimation)
+     */
+    private static long hash64(String item) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < item.length(); i++) {
+            h ^= item.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53e4a63L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,70 @@
+package datastructure;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Intern Pool
+ * Returns one shared String instance per distinct value, so fields with a handful of
+ * distinct values (status, type, building, ...) cost one reference per record instead
+ * of one String copy per parsed line.
+ *
+ * Canonical values (e.g. Booking.BOOKED) can be registered with a case-insensitive match:
+ * "Booked", "BOOKED" and " booked " all map to the registered instance, so callers can
+ * compare such fields by identity.
+ *
+ * Time Complexity:
+ * - intern: O(1) average (one hash lookup; safe to call from parallel loaders)
+ *
+ * The pool is bounded: past MAX_SIZE distinct values, new values are returned as-is
+ * (still correct, just not shared), so a column of unique values cannot grow it forever.
+ */
+public class InternPool {
+
+    /** Most distinct values kept */
+    private static final int MAX_SIZE = 4096;
+
+    private final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+
+    /** Lower-cased, trimmed canonical value → registered instance */
+    private final ConcurrentHashMap<String, String> canonical = new ConcurrentHashMap<>();
+
+    /**
+     * Register a canonical value: later intern() calls that match it ignoring case and
+     * surrounding spaces return this exact instance
+     */
+    public String canonical(String value) {
+        canonical.put(value.trim().toLowerCase(), value);
+        pool.put(value, value);
+        return value;
+    }
+
+    /**
+     * Shared instance for a value
+     * @param value String to intern (null is returned as null)
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = pool.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (!canonical.isEmpty()) {
+            shared = canonical.get(value.trim().toLowerCase());
+            if (shared != null) {
+                return shared;
+            }
+        }
+        if (pool.size() >= MAX_SIZE) {
+            return value;
+        }
+        shared = pool.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    /** Number of distinct values held */
+    public int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,302 @@
+package datastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * KLL Quantile Sketch (Karnin, Lang, Liberty)
+ * Answers approximate quantile queries (p50 / p90 / p99 ...) over a stream of numbers
+ * without storing or sorting the raw samples
+ *
+ * Time Complexity:
+ * - update: O(1) amortized
+ * - quantile: O(s log s) where s is the number of retained items (about 3k)
+ * - merge: O(s)
+ *
+ * Space Complexity: O(k) retained items, independent of the stream length
+ * (default k = 200 -> rank error ~1.3%)
+ *
+ * Algorithm:
+ * 1. Items enter level 0; an item at level h stands for 2^h original items
+ * 2. Each level has a capacity that shrinks geometrically (factor 2/3) towards the lower levels
+ * 3. When the sketch is full, the lowest full level is sorted and "compacted":
+ *    every other item (random offset) is promoted to the next level, the rest are discarded
+ * 4. A quantile is read from the weighted, sorted union of all levels
+ *
+ * Sketches with the same k are mergeable: levels are concatenated and compacted again.
+ */
+public class KllSketch {
+
+    private static final int DEFAULT_K = 200;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    /**
+     * One level of the sketch: an unsorted, growable array of items with weight 2^level
+     */
+    private static class Level {
+        double[] items = new double[MIN_LEVEL_CAPACITY];
+        int size;
+
+        void add(double value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[size++] = value;
+        }
+    }
+
+    private final int k;
+    private final List<Level> levels = new ArrayList<>();
+    private final Random random = new Random();
+    private long n;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Default Constructor (k = 200)
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructor with specified accuracy parameter
+     * @param k Capacity of the top level; larger k -> more accurate, more memory
+     */
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_CAPACITY + ": " + k);
+        }
+        this.k = k;
+        levels.add(new Level());
+    }
+
+    /**
+     * Add a value to the sketch (NaN is ignored)
+     * Time Complexity: O(1) amortized
+     */
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (n == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        n++;
+        levels.get(0).add(value);
+        compress();
+    }
+
+    /**
+     * Merge another sketch into this one
+     * Time Complexity: O(s)
+     * @param other Sketch with the same k
+     */
+    public void merge(KllSketch other) {
+        if (other == null || other.n == 0) {
+            return;
+        }
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with different k: " + k + " vs " + other.k);
+        }
+        while (levels.size() < other.levels.size()) {
+            levels.add(new Level());
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            Level source = other.levels.get(h);
+            Level target = levels.get(h);
+            for (int i = 0; i < source.size; i++) {
+                target.add(source.items[i]);
+            }
+        }
+        min = n == 0 ? other.min : Math.min(min, other.min);
+        max = n == 0 ? other.max : Math.max(max, other.max);
+        n += other.n;
+        compress();
+    }
+
+    /**
+     * Approximate value at quantile q
+     * @param q Quantile in [0, 1] (0.5 = median, 0.99 = p99)
+     * @return Value, or NaN if the sketch is empty
+     */
+    public double quantile(double q) {
+        return quantiles(q)[0];
+    }
+
+    /**
+     * Approximate values at several quantiles in one pass
+     * @param qs Quantiles in [0, 1]
+     * @return Values in the same order as qs (NaN if the sketch is empty)
+     */
+    public double[] quantiles(double... qs) {
+        double[] result = new double[qs.length];
+        if (n == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        // Weighted union of all levels, sorted by value
+        int retained = retainedItems();
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int pos = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            Level level = levels.get(h);
+            Arrays.sort(level.items, 0, level.size); // order inside a level is irrelevant
+            for (int i = 0; i < level.size; i++) {
+                values[pos] = level.items[i];
+                weights[pos] = 1L << h;
+                pos++;
+            }
+        }
+        sortByValue(values, weights);
+
+        // Total weight may differ slightly from n after compaction, so use it as the reference
+        long total = 0;
+        for (long w : weights) {
+            total += w;
+        }
+
+        for (int j = 0; j < qs.length; j++) {
+            double q = qs[j];
+            if (q < 0.0 || q > 1.0) {
+                throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+            }
+            if (q == 0.0) {
+                result[j] = min;
+                continue;
+            }
+            if (q == 1.0) {
+                result[j] = max;
+                continue;
+            }
+            long target = (long) Math.ceil(q * total);
+            long cumulative = 0;
+            result[j] = max;
+            for (int i = 0; i < values.length; i++) {
+                cumulative += weights[i];
+                if (cumulative >= target) {
+                    result[j] = values[i];
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Number of values added (including merged sketches) */
+    public long getN() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /** Number of items currently held in memory */
+    public int retainedItems() {
+        int total = 0;
+        for (Level level : levels) {
+            total += level.size;
+        }
+        return total;
+    }
+
+    // =========================================================
+    //               Compaction
+    // =========================================================
+
+    /**
+     * Capacity of a level: k for the top level, shrinking by 2/3 per level below it
+     */
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    /**
+     * Compact the lowest over-full level until the sketch fits its capacity again
+     */
+    private void compress() {
+        while (retainedItems() > totalCapacity()) {
+            for (int h = 0; h < levels.size(); h++) {
+                if (levels.get(h).size >= capacity(h)) {
+                    compactLevel(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sort a level and promote every other item (random offset) to the level above
+     * If the level has an odd number of items, one item stays behind
+     */
+    private void compactLevel(int h) {
+        if (h + 1 == levels.size()) {
+            levels.add(new Level());
+        }
+        Level level = levels.get(h);
+        Level next = levels.get(h + 1);
+
+        Arrays.sort(level.items, 0, level.size);
+
+        boolean odd = (level.size % 2) == 1;
+        int end = odd ? level.size - 1 : level.size;
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = offset; i < end; i += 2) {
+            next.add(level.items[i]);
+        }
+
+        if (odd) {
+            level.items[0] = level.items[level.size - 1];
+            level.size = 1;
+        } else {
+            level.size = 0;
+        }
+    }
+
+    /**
+     * Sort parallel arrays by value (index sort)
+     */
+    private static void sortByValue(double[] values, long[] weights) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        double[] sortedValues = new double[values.length];
+        long[] sortedWeights = new long[weights.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedValues[i] = values[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        System.arraycopy(sortedValues, 0, values, 0, values.length);
+        System.arraycopy(sortedWeights, 0, weights, 0, weights.length);
+    }
+}
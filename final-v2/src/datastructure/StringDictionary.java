@@ -0,0 +1,65 @@
+package datastructure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * String Dictionary (dictionary encoding)
+ * Maps each distinct string to a dense int code (0, 1, 2, ...) and back
+ *
+ * Time Complexity:
+ * - encode: O(1) average
+ * - decode: O(1)
+ *
+ * Application Scenarios:
+ * - Columnar stores keep an int[] of codes instead of a String reference per row,
+ *   and group-by can use the code directly as an array index
+ */
+public class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Get the code of a string, assigning the next code if it is new
+     * @param value String to encode (null is allowed and gets its own code)
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Get the code of a string without adding it
+     * @return Code, or -1 if the string was never encoded
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Get the string for a code
+     * @throws IndexOutOfBoundsException if the code was never assigned
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /** Number of distinct strings (codes are 0 .. size-1) */
+    public int size() {
+        return values.size();
+    }
+
+    public void clear() {
+        codes.clear();
+        values.clear();
+    }
+}
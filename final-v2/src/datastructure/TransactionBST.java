@@ -2,16 +2,20 @@ package datastructure;
 
 import model.Transaction;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Binary Search Tree dedicated to Transaction
- * Sorts Transaction objects by date (LocalDate)
+ * Sorts Transaction objects by (date, transactionId)
+ * Self-balancing (AVL): every insert/remove rebalances with rotations, so the height stays
+ * O(log n) even when transactions arrive in date order (which would make a plain BST a linked list)
  * 
  * Time Complexity:
- * - insert: O(log n) average, O(n) worst (degenerate to linked list)
- * - contains: O(log n) average, O(n) worst
+ * - insert: O(log n)
+ * - contains: O(log n)
+ * - remove: O(log n)
  * - inOrderTraversal: O(n)
  * - rangeQuery: O(log n + k) where k is the number of results
  * 
@@ -19,6 +23,7 @@ import java.util.List;
  * - Billing Module: Maintains transaction records sorted by date
  * - Range Query: Query transactions within a specific date range
  * - Automatic Sorting: Automatically maintains order upon insertion, avoiding sorting each time
+ * - TransactionDataUtil: persistent date index kept up to date on every added transaction
  */
 public class TransactionBST {
     
@@ -29,11 +34,13 @@ public class TransactionBST {
         Transaction transaction;
         TreeNode left;
         TreeNode right;
+        int height;
         
         TreeNode(Transaction transaction) {
             this.transaction = transaction;
             this.left = null;
             this.right = null;
+            this.height = 1;
         }
     }
     
@@ -45,9 +52,20 @@ public class TransactionBST {
         this.size = 0;
     }
     
+    /**
+     * Ordering: by date, then by transactionId (ensure uniqueness)
+     */
+    private static int compare(Transaction a, Transaction b) {
+        int dateCompare = a.getDate().compareTo(b.getDate());
+        if (dateCompare != 0) {
+            return dateCompare;
+        }
+        return a.getTransactionId().compareTo(b.getTransactionId());
+    }
+    
     /**
      * Insert Transaction
-     * Time Complexity: O(log n) average, O(n) worst
+     * Time Complexity: O(log n)
      */
     public void insert(Transaction transaction) {
         root = insertRecursive(root, transaction);
@@ -65,51 +83,35 @@ public class TransactionBST {
             return new TreeNode(transaction);
         }
         
-        // Compare dates
-        int dateCompare = transaction.getDate().compareTo(node.transaction.getDate());
-        
-        if (dateCompare < 0) {
-            // Insert into left subtree (earlier date)
+        int cmp = compare(transaction, node.transaction);
+        if (cmp < 0) {
+            // Insert into left subtree (earlier)
             node.left = insertRecursive(node.left, transaction);
-        } else if (dateCompare > 0) {
-            // Insert into right subtree (later date)
+        } else if (cmp > 0) {
+            // Insert into right subtree (later)
             node.right = insertRecursive(node.right, transaction);
         } else {
-            // Dates are equal, compare by transactionId (ensure uniqueness)
-            int idCompare = transaction.getTransactionId().compareTo(node.transaction.getTransactionId());
-            if (idCompare < 0) {
-                node.left = insertRecursive(node.left, transaction);
-            } else if (idCompare > 0) {
-                node.right = insertRecursive(node.right, transaction);
-            }
-            // If transactionId is also equal, do not insert (already exists)
+            // Same date and transactionId: already exists, do not insert
+            return node;
         }
         
-        return node;
+        return rebalance(node);
     }
     
     /**
      * Check if contains Transaction
-     * Time Complexity: O(log n) average, O(n) worst
+     * Time Complexity: O(log n)
      */
     public boolean contains(Transaction transaction) {
-        return containsRecursive(root, transaction);
-    }
-    
-    private boolean containsRecursive(TreeNode node, Transaction transaction) {
-        if (node == null) {
-            return false;
-        }
-        
-        int dateCompare = transaction.getDate().compareTo(node.transaction.getDate());
-        if (dateCompare < 0) {
-            return containsRecursive(node.left, transaction);
-        } else if (dateCompare > 0) {
-            return containsRecursive(node.right, transaction);
-        } else {
-            // Dates are equal, compare transactionId
-            return transaction.getTransactionId().equals(node.transaction.getTransactionId());
+        TreeNode node = root;
+        while (node != null) {
+            int cmp = compare(transaction, node.transaction);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
         }
+        return false;
     }
     
     /**
@@ -118,7 +120,7 @@ public class TransactionBST {
      * Result: Sorted by date from earliest to latest
      */
     public List<Transaction> inOrderTraversal() {
-        List<Transaction> result = new ArrayList<>();
+        List<Transaction> result = new ArrayList<>(size);
         inOrderRecursive(root, result);
         return result;
     }
@@ -136,51 +138,57 @@ public class TransactionBST {
     }
     
     /**
-     * Range Query: Find all Transactions within [min, max] range
+     * Range Query: Find all Transactions whose date is within [min date, max date]
      * Time Complexity: O(log n + k), where k is the number of results
      */
     public List<Transaction> rangeQuery(Transaction min, Transaction max) {
+        return rangeQuery(min.getDate(), max.getDate());
+    }
+    
+    /**
+     * Range Query by date: all Transactions dated within [from, to] (inclusive), earliest first
+     * Time Complexity: O(log n + k), where k is the number of results
+     * @param from First date, or null for unbounded
+     * @param to Last date, or null for unbounded
+     */
+    public List<Transaction> rangeQuery(LocalDate from, LocalDate to) {
         List<Transaction> result = new ArrayList<>();
-        rangeQueryRecursive(root, min, max, result);
+        rangeQueryRecursive(root, from, to, result);
         return result;
     }
     
     /**
      * Range Query Recursive Implementation
+     * In-order, so results come out sorted; subtrees entirely outside the range are skipped
      */
-    private void rangeQueryRecursive(TreeNode node, Transaction min, Transaction max, List<Transaction> result) {
+    private void rangeQueryRecursive(TreeNode node, LocalDate from, LocalDate to, List<Transaction> result) {
         if (node == null) {
             return;
         }
         
-        // If current node is in range, add to result
-        if (isInRange(node.transaction, min, max)) {
-            result.add(node.transaction);
+        LocalDate date = node.transaction.getDate();
+        boolean afterFrom = from == null || !date.isBefore(from);
+        boolean beforeTo = to == null || !date.isAfter(to);
+        
+        // If from is not after current node date, left subtree may contain matches
+        if (afterFrom) {
+            rangeQueryRecursive(node.left, from, to, result);
         }
         
-        // If min is less than current node date, search left subtree
-        if (min.getDate().compareTo(node.transaction.getDate()) <= 0) {
-            rangeQueryRecursive(node.left, min, max, result);
+        // If current node is in range, add to result
+        if (afterFrom && beforeTo) {
+            result.add(node.transaction);
         }
         
-        // If max is greater than current node date, search right subtree
-        if (max.getDate().compareTo(node.transaction.getDate()) >= 0) {
-            rangeQueryRecursive(node.right, min, max, result);
+        // If to is not before current node date, right subtree may contain matches
+        if (beforeTo) {
+            rangeQueryRecursive(node.right, from, to, result);
         }
     }
     
-    /**
-     * Check if transaction is in [min, max] range
-     */
-    private boolean isInRange(Transaction transaction, Transaction min, Transaction max) {
-        int compareMin = transaction.getDate().compareTo(min.getDate());
-        int compareMax = transaction.getDate().compareTo(max.getDate());
-        return compareMin >= 0 && compareMax <= 0;
-    }
-    
     /**
      * Find Minimum Date Transaction
-     * Time Complexity: O(log n) average, O(n) worst
+     * Time Complexity: O(log n)
      */
     public Transaction findMin() {
         if (root == null) {
@@ -199,7 +207,7 @@ public class TransactionBST {
     
     /**
      * Find Maximum Date Transaction
-     * Time Complexity: O(log n) average, O(n) worst
+     * Time Complexity: O(log n)
      */
     public Transaction findMax() {
         if (root == null) {
@@ -218,7 +226,7 @@ public class TransactionBST {
     
     /**
      * Remove Transaction
-     * Time Complexity: O(log n) average, O(n) worst
+     * Time Complexity: O(log n)
      */
     public void remove(Transaction transaction) {
         root = removeRecursive(root, transaction);
@@ -229,49 +237,97 @@ public class TransactionBST {
      * 1. Leaf Node: Delete directly
      * 2. One Child Node: Replace with child node
      * 3. Two Child Nodes: Replace with minimum of right subtree, then delete minimum of right subtree
+     * Every node on the path is rebalanced on the way back up
      */
     private TreeNode removeRecursive(TreeNode node, Transaction transaction) {
         if (node == null) {
             return null;
         }
         
-        int dateCompare = transaction.getDate().compareTo(node.transaction.getDate());
-        if (dateCompare < 0) {
+        int cmp = compare(transaction, node.transaction);
+        if (cmp < 0) {
             node.left = removeRecursive(node.left, transaction);
-        } else if (dateCompare > 0) {
+        } else if (cmp > 0) {
             node.right = removeRecursive(node.right, transaction);
         } else {
             // Found node to delete
-            if (transaction.getTransactionId().equals(node.transaction.getTransactionId())) {
+            // Case 1 / Case 2: at most one child
+            if (node.left == null || node.right == null) {
                 size--;
-                
-                // Case 1: Leaf Node
-                if (node.left == null && node.right == null) {
-                    return null;
-                }
-                
-                // Case 2: One Child Node
-                if (node.left == null) {
-                    return node.right;
-                }
-                if (node.right == null) {
-                    return node.left;
-                }
-                
-                // Case 3: Two Child Nodes
-                // Find minimum of right subtree
-                TreeNode minNode = findMinRecursive(node.right);
-                node.transaction = minNode.transaction;
-                node.right = removeRecursive(node.right, minNode.transaction);
-            } else {
-                // Dates match but transactionId differs, continue searching
-                node.left = removeRecursive(node.left, transaction);
+                return node.left != null ? node.left : node.right;
             }
+            
+            // Case 3: Two Child Nodes
+            // Find minimum of right subtree
+            TreeNode minNode = findMinRecursive(node.right);
+            node.transaction = minNode.transaction;
+            node.right = removeRecursive(node.right, minNode.transaction);
         }
         
+        return rebalance(node);
+    }
+    
+    // ===== AVL balancing =====
+    
+    private static int height(TreeNode node) {
+        return node == null ? 0 : node.height;
+    }
+    
+    private static void updateHeight(TreeNode node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+    }
+    
+    /**
+     * Restore the AVL property at this node (subtree heights differ by at most 1)
+     * Time Complexity: O(1)
+     */
+    private static TreeNode rebalance(TreeNode node) {
+        updateHeight(node);
+        int balance = height(node.left) - height(node.right);
+        
+        if (balance > 1) {
+            // Left-Right case: rotate the left child first
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            // Right-Left case: rotate the right child first
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
         return node;
     }
     
+    private static TreeNode rotateRight(TreeNode node) {
+        TreeNode pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        updateHeight(node);
+        updateHeight(pivot);
+        return pivot;
+    }
+    
+    private static TreeNode rotateLeft(TreeNode node) {
+        TreeNode pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        updateHeight(node);
+        updateHeight(pivot);
+        return pivot;
+    }
+    
+    /**
+     * Remove all transactions
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+    
     /**
      * Get tree size
      */
@@ -285,4 +341,11 @@ public class TransactionBST {
     public boolean isEmpty() {
         return size == 0;
     }
+    
+    /**
+     * Get tree height (O(log n) thanks to balancing)
+     */
+    public int height() {
+        return height(root);
+    }
 }
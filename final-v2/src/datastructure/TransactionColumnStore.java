@@ -0,0 +1,303 @@
+package datastructure;
+
+import model.Transaction;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Columnar Transaction Store
+ * Keeps transactions as parallel primitive arrays (one array per field) instead of one object per row
+ *
+ * Columns:
+ * - idHi / idLo:  transactionId as the two halves of its UUID
+ * - epochDay:     date as days since 1970-01-01
+ * - type:         TransactionType ordinal
+ * - cents:        amount in cents
+ * - userCode:     userId, dictionary-encoded (see StringDictionary)
+ *
+ * Scans and aggregates (total revenue, revenue per day / per user, filters) are plain loops
+ * over contiguous primitive arrays - no pointer chasing, no boxing - which the JIT can unroll
+ * and vectorize.
+ *
+ * Time Complexity:
+ * - append: O(1) amortized
+ * - sum / filter / group-by: O(n) with a very small constant
+ */
+public class TransactionColumnStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+    private long[] idHi = new long[INITIAL_CAPACITY];
+    private long[] idLo = new long[INITIAL_CAPACITY];
+    private int[] epochDay = new int[INITIAL_CAPACITY];
+    private byte[] type = new byte[INITIAL_CAPACITY];
+    private long[] cents = new long[INITIAL_CAPACITY];
+    private int[] userCode = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private final StringDictionary users = new StringDictionary();
+
+    /** Row → transactionId for the rare ids that are not UUIDs */
+    private final Map<Integer, String> irregularIds = new HashMap<>();
+
+    /**
+     * Append one transaction as a new row
+     * Time Complexity: O(1) amortized
+     */
+    public void append(Transaction t) {
+        if (size == cents.length) {
+            grow();
+        }
+        int row = size;
+
+        String id = t.getTransactionId();
+        try {
+            UUID uuid = UUID.fromString(id);
+            idHi[row] = uuid.getMostSignificantBits();
+            idLo[row] = uuid.getLeastSignificantBits();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            idHi[row] = 0;
+            idLo[row] = 0;
+            irregularIds.put(row, id);
+        }
+
+        epochDay[row] = t.getDate() != null ? (int) t.getDate().toEpochDay() : Integer.MIN_VALUE;
+        type[row] = t.getType() != null ? (byte) t.getType().ordinal() : -1;
+        cents[row] = t.getAmountCents();
+        userCode[row] = users.encode(t.getUserId());
+        size++;
+    }
+
+    /** Remove all rows */
+    public void clear() {
+        size = 0;
+        users.clear();
+        irregularIds.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // =========================================================
+    //               Row access
+    // =========================================================
+
+    public String getTransactionId(int row) {
+        checkRow(row);
+        String irregular = irregularIds.get(row);
+        return irregular != null ? irregular : new UUID(idHi[row], idLo[row]).toString();
+    }
+
+    public String getUserId(int row) {
+        checkRow(row);
+        return users.decode(userCode[row]);
+    }
+
+    public LocalDate getDate(int row) {
+        checkRow(row);
+        return epochDay[row] == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay[row]);
+    }
+
+    public Transaction.TransactionType getType(int row) {
+        checkRow(row);
+        return type[row] < 0 ? null : TYPES[type[row]];
+    }
+
+    public long getAmountCents(int row) {
+        checkRow(row);
+        return cents[row];
+    }
+
+    // =========================================================
+    //               Filter (selection vectors)
+    // =========================================================
+
+    /**
+     * Rows matching all given conditions
+     * @param txType Type, or null for any type
+     * @param from First date (inclusive), or null for unbounded
+     * @param to Last date (inclusive), or null for unbounded
+     * @return Selection vector: matching row numbers in ascending order
+     */
+    public int[] select(Transaction.TransactionType txType, LocalDate from, LocalDate to) {
+        int t = txType == null ? -1 : txType.ordinal();
+        int lo = from == null ? Integer.MIN_VALUE + 1 : (int) from.toEpochDay();
+        int hi = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+
+        int[] rows = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int d = epochDay[i];
+            if (d >= lo && d <= hi && (t < 0 || type[i] == t)) {
+                rows[count++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Rows of one user
+     * @return Selection vector (empty if the user has no transactions)
+     */
+    public int[] selectUser(String userId) {
+        int code = users.lookup(userId);
+        if (code < 0) {
+            return new int[0];
+        }
+        int[] rows = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (userCode[i] == code) {
+                rows[count++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // =========================================================
+    //               Aggregates
+    // =========================================================
+
+    /** Sum of all amounts, in cents */
+    public long sumCents() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cents[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sum of amounts of the rows matching the conditions (fused filter + sum, no selection vector)
+     * @param txType Type, or null for any type
+     * @param from First date (inclusive), or null for unbounded
+     * @param to Last date (inclusive), or null for unbounded
+     */
+    public long sumCents(Transaction.TransactionType txType, LocalDate from, LocalDate to) {
+        int t = txType == null ? -1 : txType.ordinal();
+        int lo = from == null ? Integer.MIN_VALUE + 1 : (int) from.toEpochDay();
+        int hi = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int d = epochDay[i];
+            if (d >= lo && d <= hi && (t < 0 || type[i] == t)) {
+                total += cents[i];
+            }
+        }
+        return total;
+    }
+
+    /** Sum of amounts of the selected rows, in cents */
+    public long sumCents(int[] rows) {
+        long total = 0;
+        for (int row : rows) {
+            total += cents[row];
+        }
+        return total;
+    }
+
+    /**
+     * Revenue per user (group by userId)
+     * The dictionary code is used as array index, so no hashing happens inside the loop
+     * @return userId → sum in cents
+     */
+    public Map<String, Long> sumCentsByUser() {
+        long[] sums = new long[users.size()];
+        for (int i = 0; i < size; i++) {
+            sums[userCode[i]] += cents[i];
+        }
+
+        Map<String, Long> result = new HashMap<>();
+        for (int code = 0; code < sums.length; code++) {
+            result.put(users.decode(code), sums[code]);
+        }
+        return result;
+    }
+
+    /**
+     * Revenue per day (group by date), over a dense array spanning the date range
+     * @param txType Type, or null for any type
+     * @param from First date, or null for unbounded
+     * @param to Last date, or null for unbounded
+     * @return date → sum in cents, in date order (days without transactions are left out)
+     */
+    public SortedMap<LocalDate, Long> sumCentsByDay(Transaction.TransactionType txType, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Long> result = new TreeMap<>();
+        int t = txType == null ? -1 : txType.ordinal();
+        long lower = from == null ? Integer.MIN_VALUE + 1L : from.toEpochDay();
+        long upper = to == null ? Integer.MAX_VALUE : to.toEpochDay();
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int d = epochDay[i];
+            if (d == Integer.MIN_VALUE || d < lower || d > upper) continue;
+            if (d < min) min = d;
+            if (d > max) max = d;
+        }
+        if (min > max) {
+            return result;
+        }
+
+        long[] sums = new long[max - min + 1];
+        boolean[] present = new boolean[sums.length];
+        for (int i = 0; i < size; i++) {
+            int d = epochDay[i];
+            if (d < min || d > max || (t >= 0 && type[i] != t)) continue;
+            sums[d - min] += cents[i];
+            present[d - min] = true;
+        }
+
+        for (int k = 0; k < sums.length; k++) {
+            if (present[k]) {
+                result.put(LocalDate.ofEpochDay(min + k), sums[k]);
+            }
+        }
+        return result;
+    }
+
+    /** Number of rows per transaction type */
+    public Map<Transaction.TransactionType, Long> countByType() {
+        long[] counts = new long[TYPES.length];
+        for (int i = 0; i < size; i++) {
+            if (type[i] >= 0) {
+                counts[type[i]]++;
+            }
+        }
+
+        Map<Transaction.TransactionType, Long> result = new EnumMap<>(Transaction.TransactionType.class);
+        for (Transaction.TransactionType tt : TYPES) {
+            result.put(tt, counts[tt.ordinal()]);
+        }
+        return result;
+    }
+
+    /** Number of distinct users with at least one row */
+    public int distinctUsers() {
+        return users.size();
+    }
+
+    // =========================================================
+    //               Internal
+    // =========================================================
+
+    private void grow() {
+        int capacity = cents.length * 2;
+        idHi = Arrays.copyOf(idHi, capacity);
+        idLo = Arrays.copyOf(idLo, capacity);
+        epochDay = Arrays.copyOf(epochDay, capacity);
+        type = Arrays.copyOf(type, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        userCode = Arrays.copyOf(userCode, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+}
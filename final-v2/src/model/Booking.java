@@ -1,19 +1,30 @@
 package model;
 
+import datastructure.InternPool;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.UUID;
 
 public class Booking {
 
+    /**
+     * Shared instances for spaceId and status (few distinct values, one reference per booking)
+     * Statuses matching BOOKED / RELEASED in any case become those constants
+     */
+    private static final InternPool STRINGS = new InternPool();
+
+    public static final String BOOKED = STRINGS.canonical("booked");
+    public static final String RELEASED = STRINGS.canonical("released");
+    public static final String COMPLETED = STRINGS.canonical("completed");
+
     private String bookingId;       // unique identifier
     private String userId;          // which user booked
     private String spaceId;         // corresponds to Space.id
     private LocalDate date;         // booking date
     private LocalTime startTime;    // start time
     private LocalTime endTime;      // end time
-    private String status;          // booked / released
-    private int totalCredits;
+    private String status;          // booked / released / completed
 
     public Booking() {
         // default constructor, keep empty implementation
@@ -22,22 +33,22 @@ public class Booking {
                    LocalTime startTime, LocalTime endTime, String status) {
         this.bookingId = UUID.randomUUID().toString(); // automatically generate unique ID
         this.userId = userId;
-        this.spaceId = spaceId;
+        this.spaceId = STRINGS.intern(spaceId);
         this.date = date;
         this.startTime = startTime;
         this.endTime = endTime;
-        this.status = (status == null || status.isBlank()) ? "booked" : status;
+        this.status = (status == null || status.isBlank()) ? BOOKED : STRINGS.intern(status);
     }
 
     public Booking(String bookingId, String userId, String spaceId, LocalDate date,
                    LocalTime startTime, LocalTime endTime, String status) {
         this.bookingId = bookingId;
         this.userId = userId;
-        this.spaceId = spaceId;
+        this.spaceId = STRINGS.intern(spaceId);
         this.date = date;
         this.startTime = startTime;
         this.endTime = endTime;
-        this.status = status;
+        this.status = STRINGS.intern(status);
     }
 
     public String getBookingId() { return bookingId; }
@@ -47,13 +58,6 @@ public class Booking {
     public LocalTime getStartTime() { return startTime; }
     public LocalTime getEndTime() { return endTime; }
     public String getStatus() { return status; }
-    public int getTotalCredits() {
-        return totalCredits;
-    }
-
-    public void setTotalCredits(int totalCredits) {
-        this.totalCredits = totalCredits;
-    }
     public void setBookingId(String bookingId) {
         this.bookingId = bookingId;
     }
@@ -63,7 +67,7 @@ public class Booking {
     }
 
     public void setSpaceId(String spaceId) {
-        this.spaceId = spaceId;
+        this.spaceId = STRINGS.intern(spaceId);
     }
 
     public void setStartTime(LocalTime startTime) {
@@ -78,10 +82,27 @@ public class Booking {
         this.date = date;
     }
 
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { this.status = STRINGS.intern(status); }
+
+    /** Shared instance of a status (BOOKED / RELEASED for any case), as stored by setStatus */
+    public static String canonicalStatus(String status) {
+        return STRINGS.intern(status);
+    }
+
+    /** Status is "booked" (any case); identity compare, the status is always the canonical instance */
+    public boolean isBooked() { return getStatus() == BOOKED; }
+
+    /** Status is "released" (any case) */
+    public boolean isReleased() { return getStatus() == RELEASED; }
+
+    /** Status is "completed" (a booking whose time has passed, set by the booking sweeper) */
+    public boolean isCompleted() { return getStatus() == COMPLETED; }
+
+    /** Booked now or completed - every booking that held its slot (what stats and billing count) */
+    public boolean isBookedOrCompleted() { return isBooked() || isCompleted(); }
 
     public boolean overlaps(LocalDate d, LocalTime start, LocalTime end) {
-        if (!this.date.equals(d)) return false;
-        return startTime.isBefore(end) && endTime.isAfter(start);
+        if (!getDate().equals(d)) return false;
+        return getStartTime().isBefore(end) && getEndTime().isAfter(start);
     }
 }
@@ -0,0 +1,159 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.function.ToLongFunction;
+
+/**
+ * Money value type: an exact amount in cents (fixed-point, 2 decimals)
+ *
+ * Amounts are stored as a long number of cents, so adding up many of them is an exact
+ * integer add instead of a double add that accumulates rounding error.
+ * double only appears at the edges (display, legacy APIs) via {@link #toDouble()}.
+ *
+ * Immutable.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long CENTS_PER_UNIT = 100;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    // =========================================================
+    //               Creation
+    // =========================================================
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Convert a double amount, rounding half up to whole cents
+     * (uses the shortest decimal form of the double, so 1.005 becomes 1.01)
+     */
+    public static Money of(double amount) {
+        return ofCents(toCents(amount));
+    }
+
+    /**
+     * Parse a decimal string such as "22.5" or "9.99" exactly
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static Money parse(String text) {
+        BigDecimal value = new BigDecimal(text.trim());
+        return ofCents(value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    // =========================================================
+    //               Arithmetic
+    // =========================================================
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    /**
+     * Multiply by a fraction, rounding half up to whole cents
+     * e.g. hourly rate × (minutes / 60) = rate.times(minutes, 60)
+     */
+    public Money times(long numerator, long denominator) {
+        if (denominator <= 0) {
+            throw new IllegalArgumentException("Denominator must be positive: " + denominator);
+        }
+        long product = Math.multiplyExact(cents, numerator);
+        long quotient = Math.floorDiv(product, denominator);
+        long remainder = Math.floorMod(product, denominator);
+        if (remainder * 2 >= denominator) {
+            quotient++;
+        }
+        return ofCents(quotient);
+    }
+
+    // =========================================================
+    //               Access
+    // =========================================================
+
+    public long getCents() {
+        return cents;
+    }
+
+    /** Amount as double (for display and legacy APIs only - do not sum these) */
+    public double toDouble() {
+        return toDouble(cents);
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    /** Plain decimal text with two decimals, e.g. "22.50" (used in CSV files) */
+    @Override
+    public String toString() {
+        return format(cents);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    // =========================================================
+    //               Allocation-free helpers on raw cents
+    // =========================================================
+
+    /** double → cents, rounding half up */
+    public static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /** cents → double (display only) */
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    /** cents → "12.50" */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long units = abs / CENTS_PER_UNIT;
+        long rest = abs % CENTS_PER_UNIT;
+        return (cents < 0 ? "-" : "") + units + (rest < 10 ? ".0" : ".") + rest;
+    }
+
+    /**
+     * Exact sum over a collection, as a primitive loop (no Money objects per element)
+     * e.g. Money.sumCents(transactions, Transaction::getAmountCents)
+     */
+    public static <T> long sumCents(Collection<? extends T> items, ToLongFunction<? super T> centsOf) {
+        long total = 0;
+        for (T item : items) {
+            total += centsOf.applyAsLong(item);
+        }
+        return total;
+    }
+}
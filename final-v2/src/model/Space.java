@@ -1,6 +1,19 @@
 package model;
 
+import datastructure.InternPool;
+import util.CsvTokenizer;
+
 public class Space {
+
+    /**
+     * Shared instances for floor, type, building and status (a handful of distinct values)
+     * Statuses matching AVAILABLE / MAINTENANCE in any case become those constants
+     */
+    private static final InternPool STRINGS = new InternPool();
+
+    public static final String AVAILABLE = STRINGS.canonical("available");
+    public static final String MAINTENANCE = STRINGS.canonical("maintenance");
+
     private String id;              // id
     private String name;            // event_001
     private String floor;           // floor
@@ -21,12 +34,12 @@ public class Space {
                  double x, double y, double w, double h) {
         this.id = id;
         this.name = name;
-        this.floor = floor;
+        this.floor = STRINGS.intern(floor);
         this.spaceId = spaceId;
-        this.type = type;
-        this.building = building;
+        this.type = STRINGS.intern(type);
+        this.building = STRINGS.intern(building);
         this.capacity = capacity;
-        this.status = status;
+        this.status = STRINGS.intern(status);
         this.creditsPerHour = creditsPerHour;
         this.x = x;
         this.y = y;
@@ -63,7 +76,7 @@ public class Space {
     }
 
     public void setFloor(String floor) {
-        this.floor = floor;
+        this.floor = STRINGS.intern(floor);
     }
 
     public String getSpaceId() {
@@ -79,7 +92,7 @@ public class Space {
     }
 
     public void setType(String type) {
-        this.type = type;
+        this.type = STRINGS.intern(type);
     }
 
     public String getBuilding() {
@@ -87,7 +100,7 @@ public class Space {
     }
 
     public void setBuilding(String building) {
-        this.building = building;
+        this.building = STRINGS.intern(building);
     }
 
     public int getCapacity() {
@@ -103,7 +116,7 @@ public class Space {
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        this.status = STRINGS.intern(status);
     }
 
     public double getCreditsPerHour() {
@@ -147,6 +160,30 @@ public class Space {
     }
     
 	public boolean isAvailable() {
-		return "available".equalsIgnoreCase(status);
+		return status == AVAILABLE;
 	}
+
+    /** Status is "maintenance" (any case) */
+    public boolean isUnderMaintenance() {
+        return status == MAINTENANCE;
+    }
+
+    // ===== Parse from spaces.csv (current record of a tokenizer) =====
+    // Format: id,name,floor,spaceId,type,building,seats,status,creditsPerHour
+    public static Space fromCSV(CsvTokenizer csv) {
+        if (csv.fieldCount() < 9) {
+            throw new IllegalArgumentException("Invalid space csv line: " + csv.line());
+        }
+        return new Space(
+                csv.getTrimmed(0),  // id
+                csv.getTrimmed(1),  // name
+                csv.getTrimmed(2),  // floor
+                csv.getTrimmed(3),  // spaceId
+                csv.getTrimmed(4),  // type
+                csv.getTrimmed(5),  // building
+                csv.getInt(6),      // capacity
+                csv.getTrimmed(7),  // status
+                csv.getDouble(8)    // creditsPerHour
+        );
+    }
 }
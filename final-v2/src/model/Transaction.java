@@ -1,5 +1,7 @@
 package model;
 
+import util.CsvTokenizer;
+
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
@@ -18,36 +20,44 @@ public class Transaction {
     private String transactionId;
     private String userId;
     private TransactionType type;
-    private double amount;
+    private long amountCents;  // exact amount in cents (see Money)
     private LocalDate date;
     private String description;
     private String relatedId;  // bookingId for BOOKING, or membershipId for MEMBERSHIP
+    private String building;   // building of the booked space (BOOKING only; null if unknown)
+    private LocalDate paidOn;  // payment date (null if unknown); date is the booked day for BOOKING
     
     // Default constructor
     public Transaction() {}
     
     // Full constructor
     public Transaction(String transactionId, String userId, TransactionType type, 
-                      double amount, LocalDate date, String description, String relatedId) {
+                      Money amount, LocalDate date, String description, String relatedId) {
         this.transactionId = transactionId;
         this.userId = userId;
         this.type = type;
-        this.amount = amount;
+        this.amountCents = amount.getCents();
         this.date = date;
         this.description = description;
         this.relatedId = relatedId;
     }
     
+    // Full constructor (double amount, rounded to cents)
+    public Transaction(String transactionId, String userId, TransactionType type, 
+                      double amount, LocalDate date, String description, String relatedId) {
+        this(transactionId, userId, type, Money.of(amount), date, description, relatedId);
+    }
+    
     // Constructor without transactionId (auto-generates UUID)
+    public Transaction(String userId, TransactionType type, Money amount, 
+                      LocalDate date, String description, String relatedId) {
+        this(UUID.randomUUID().toString(), userId, type, amount, date, description, relatedId);
+    }
+    
+    // Constructor without transactionId (double amount, rounded to cents)
     public Transaction(String userId, TransactionType type, double amount, 
                       LocalDate date, String description, String relatedId) {
-        this.transactionId = UUID.randomUUID().toString();
-        this.userId = userId;
-        this.type = type;
-        this.amount = amount;
-        this.date = date;
-        this.description = description;
-        this.relatedId = relatedId;
+        this(userId, type, Money.of(amount), date, description, relatedId);
     }
     
     // Getters and Setters
@@ -75,12 +85,26 @@ public class Transaction {
         this.type = type;
     }
     
+    /** Amount as double (display only; sum getAmountCents() instead) */
     public double getAmount() {
-        return amount;
+        return Money.toDouble(amountCents);
     }
     
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
+    }
+    
+    /** Exact amount in cents */
+    public long getAmountCents() {
+        return amountCents;
+    }
+    
+    public Money getMoney() {
+        return Money.ofCents(amountCents);
+    }
+    
+    public void setMoney(Money amount) {
+        this.amountCents = amount.getCents();
     }
     
     public LocalDate getDate() {
@@ -107,45 +131,91 @@ public class Transaction {
         this.relatedId = relatedId;
     }
     
+    public String getBuilding() {
+        return building;
+    }
+    
+    public void setBuilding(String building) {
+        this.building = building;
+    }
+    
+    public LocalDate getPaidOn() {
+        return paidOn;
+    }
+    
+    public void setPaidOn(LocalDate paidOn) {
+        this.paidOn = paidOn;
+    }
+    
     /**
      * Convert Transaction to CSV line
-     * Format: transactionId,userId,type,amount,date,description,relatedId
+     * Format: transactionId,userId,type,amount,date,description,relatedId,building,paidOn
      */
     public String toCSV() {
         return String.join(",",
             transactionId,
             userId,
             type.name(),
-            String.valueOf(amount),
+            Money.format(amountCents),
             date.format(DateTimeFormatter.ISO_LOCAL_DATE),
             description != null ? description.replace(",", ";") : "",  // Replace commas in description
-            relatedId != null ? relatedId : ""
+            relatedId != null ? relatedId : "",
+            building != null ? building.replace(",", ";") : "",
+            paidOn != null ? paidOn.format(DateTimeFormatter.ISO_LOCAL_DATE) : ""
         );
     }
     
     /**
      * Parse Transaction from CSV line
-     * Format: transactionId,userId,type,amount,date,description,relatedId
+     * Format: transactionId,userId,type,amount,date,description,relatedId,building,paidOn
+     * (building and paidOn are missing in rows written before they were added)
      */
     public static Transaction fromCSV(String line) {
-        String[] parts = line.split(",");
-        if (parts.length < 6) {
+        CsvTokenizer csv = CsvTokenizer.of(line);
+        if (!csv.next()) {
             throw new IllegalArgumentException("Invalid transaction CSV line: " + line);
         }
+        return fromCSV(csv);
+    }
+    
+    /**
+     * Parse Transaction from the current record of a tokenizer (fields are parsed in place)
+     * Format: transactionId,userId,type,amount,date,description,relatedId,building,paidOn
+     */
+    public static Transaction fromCSV(CsvTokenizer csv) {
+        if (csv.fieldCount() < 6) {
+            throw new IllegalArgumentException("Invalid transaction CSV line: " + csv.line());
+        }
         
         try {
-            String transactionId = parts[0];
-            String userId = parts[1];
-            TransactionType type = TransactionType.valueOf(parts[2]);
-            double amount = Double.parseDouble(parts[3]);
-            LocalDate date = LocalDate.parse(parts[4], DateTimeFormatter.ISO_LOCAL_DATE);
-            String description = parts.length > 5 ? parts[5].replace(";", ",") : "";
-            String relatedId = parts.length > 6 ? parts[6] : "";
+            String transactionId = csv.getString(0);
+            String userId = csv.getString(1);
+            TransactionType type = parseType(csv);
+            Money amount = Money.ofCents(csv.getCents(3));
+            LocalDate date = csv.getDate(4);
+            String description = csv.getString(5).replace(";", ",");
+            String relatedId = csv.fieldCount() > 6 ? csv.getString(6) : "";
             
-            return new Transaction(transactionId, userId, type, amount, date, description, relatedId);
+            Transaction t = new Transaction(transactionId, userId, type, amount, date, description, relatedId);
+            if (csv.fieldCount() > 7 && !csv.isEmpty(7)) {
+                t.setBuilding(csv.getString(7).replace(";", ","));
+            }
+            if (csv.fieldCount() > 8 && !csv.isEmpty(8)) {
+                t.setPaidOn(csv.getDate(8));
+            }
+            return t;
         } catch (Exception e) {
-            throw new IllegalArgumentException("Error parsing transaction CSV line: " + line, e);
+            throw new IllegalArgumentException("Error parsing transaction CSV line: " + csv.line(), e);
+        }
+    }
+    
+    private static TransactionType parseType(CsvTokenizer csv) {
+        for (TransactionType type : TransactionType.values()) {
+            if (csv.fieldEquals(2, type.name())) {
+                return type;
+            }
         }
+        return TransactionType.valueOf(csv.getString(2));
     }
     
     @Override
@@ -154,10 +224,12 @@ public class Transaction {
                 "transactionId='" + transactionId + '\'' +
                 ", userId='" + userId + '\'' +
                 ", type=" + type +
-                ", amount=" + amount +
+                ", amount=" + Money.format(amountCents) +
                 ", date=" + date +
                 ", description='" + description + '\'' +
                 ", relatedId='" + relatedId + '\'' +
+                ", building='" + building + '\'' +
+                ", paidOn=" + paidOn +
                 '}';
     }
 }
@@ -1,7 +1,20 @@
 package model;
 
+import datastructure.InternPool;
+import util.CsvTokenizer;
+
 public class User {
 
+    /**
+     * Shared instances for type and membership
+     * Values matching the constants below in any case become those constants
+     */
+    private static final InternPool STRINGS = new InternPool();
+
+    public static final String ADMIN = STRINGS.canonical("Admin");
+    public static final String MEMBER = STRINGS.canonical("Member");
+    public static final String NON_MEMBER = STRINGS.canonical("Non-member");
+
     private String userId;       // unique id (e.g., "U-xxxxxx")
     private String username;     // login username
     private String password;     // login password
@@ -19,8 +32,8 @@ public class User {
         this.username = username;
         this.password = password;
         this.email = email;
-        this.type = type;
-        this.membership = membership;
+        this.type = STRINGS.intern(type);
+        this.membership = STRINGS.intern(membership);
     }
 
     // Constructor without userId (useful when registering)
@@ -30,8 +43,8 @@ public class User {
         this.username = username;
         this.password = password;
         this.email = email;
-        this.type = type;
-        this.membership = membership;
+        this.type = STRINGS.intern(type);
+        this.membership = STRINGS.intern(membership);
     }
 
     // Empty constructor (JavaFX or frameworks may need this)
@@ -78,15 +91,25 @@ public class User {
     }
 
     public void setType(String type) {
-        this.type = type;
+        this.type = STRINGS.intern(type);
     }
 
     public String getMembership() {
         return membership;
     }
 
+    /** Membership is "Member" (any case); identity compare against the canonical instance */
+    public boolean isMember() {
+        return membership == MEMBER;
+    }
+
+    /** Type is "Admin" (any case) */
+    public boolean isAdmin() {
+        return type == ADMIN;
+    }
+
     public void setMembership(String membership) {
-        this.membership = membership;
+        this.membership = STRINGS.intern(membership);
     }
 
     // ----------------------------
@@ -103,18 +126,26 @@ public class User {
     // ----------------------------
 
     public static User fromCSV(String line) {
-        String[] parts = line.split(",");
-        if (parts.length != 6) {
+        CsvTokenizer csv = CsvTokenizer.of(line);
+        if (!csv.next()) {
             throw new IllegalArgumentException("Invalid user csv line: " + line);
         }
+        return fromCSV(csv);
+    }
+
+    /** Parse User from the current record of a tokenizer */
+    public static User fromCSV(CsvTokenizer csv) {
+        if (csv.fieldCount() != 6) {
+            throw new IllegalArgumentException("Invalid user csv line: " + csv.line());
+        }
 
         return new User(
-                parts[0], // userId
-                parts[1], // username
-                parts[2], // password
-                parts[3], // email
-                parts[4], // type
-                parts[5]  // membership
+                csv.getString(0), // userId
+                csv.getString(1), // username
+                csv.getString(2), // password
+                csv.getString(3), // email
+                csv.getString(4), // type
+                csv.getString(5)  // membership
         );
     }
 
@@ -2,6 +2,7 @@ package model.viewmodel;
 
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
+import model.Money;
 
 /**
  * Transaction table view model for JavaFX TableView
@@ -11,17 +12,19 @@ public class TransactionTableModel {
     private final SimpleStringProperty date;
     private final SimpleStringProperty type;
     private final SimpleStringProperty description;
-    private final SimpleDoubleProperty amount;
+    private final SimpleDoubleProperty amount;      // display value
+    private final long amountCents;                 // exact value, used for totals
     private final SimpleStringProperty userId;      // For admin view
     private final SimpleStringProperty username;    // For admin view
     private final SimpleStringProperty transactionId; // For admin view (optional)
     
     // Constructor for user view (without userId/username)
-    public TransactionTableModel(String date, String type, String description, double amount) {
+    public TransactionTableModel(String date, String type, String description, long amountCents) {
         this.date = new SimpleStringProperty(date);
         this.type = new SimpleStringProperty(type);
         this.description = new SimpleStringProperty(description);
-        this.amount = new SimpleDoubleProperty(amount);
+        this.amountCents = amountCents;
+        this.amount = new SimpleDoubleProperty(Money.toDouble(amountCents));
         this.userId = new SimpleStringProperty("");
         this.username = new SimpleStringProperty("");
         this.transactionId = new SimpleStringProperty("");
@@ -29,14 +32,15 @@ public class TransactionTableModel {
     
     // Constructor for admin view (with userId/username)
     public TransactionTableModel(String transactionId, String userId, String username, 
-                                String date, String type, String description, double amount) {
+                                String date, String type, String description, long amountCents) {
         this.transactionId = new SimpleStringProperty(transactionId);
         this.userId = new SimpleStringProperty(userId);
         this.username = new SimpleStringProperty(username);
         this.date = new SimpleStringProperty(date);
         this.type = new SimpleStringProperty(type);
         this.description = new SimpleStringProperty(description);
-        this.amount = new SimpleDoubleProperty(amount);
+        this.amountCents = amountCents;
+        this.amount = new SimpleDoubleProperty(Money.toDouble(amountCents));
     }
     
     // Date property
@@ -91,6 +95,11 @@ public class TransactionTableModel {
         return amount;
     }
     
+    /** Exact amount in cents (sum this, not getAmount()) */
+    public long getAmountCents() {
+        return amountCents;
+    }
+    
     // UserId property (for admin view)
     public String getUserId() {
         return userId.get();
@@ -0,0 +1,128 @@
+package repository;
+
+import model.Booking;
+import storage.BPlusTree;
+import storage.StorageEngine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BookingRepository over the storage engine
+ *
+ * Trees:
+ * - "bookings":         bookingId → record
+ * - "bookings.bySpace": spaceId \0 date \0 startTime \0 bookingId → (empty)
+ *
+ * findBySpace / findBySpaceAndDate are prefix scans of the secondary tree, so they read
+ * only the pages holding that space (and date) instead of every booking.
+ */
+public class BTreeBookingRepository implements BookingRepository {
+
+    private final StorageEngine engine;
+    private final BPlusTree bookings;
+    private final BPlusTree bySpace;
+
+    public BTreeBookingRepository(StorageEngine engine) throws IOException {
+        this.engine = engine;
+        this.bookings = engine.tree("bookings");
+        this.bySpace = engine.tree("bookings.bySpace");
+    }
+
+    @Override
+    public Booking findById(String bookingId) {
+        synchronized (engine) {
+            return Records.decode(bookings.get(Records.key(bookingId)), BTreeBookingRepository::read);
+        }
+    }
+
+    @Override
+    public List<Booking> findAll() {
+        synchronized (engine) {
+            List<Booking> result = new ArrayList<>();
+            bookings.scan(null, null, (key, value) -> result.add(Records.decode(value, BTreeBookingRepository::read)));
+            return result;
+        }
+    }
+
+    @Override
+    public List<Booking> findBySpace(String spaceId) {
+        synchronized (engine) {
+            return activeByPrefix(Records.prefix(spaceId));
+        }
+    }
+
+    @Override
+    public List<Booking> findBySpaceAndDate(String spaceId, LocalDate date) {
+        synchronized (engine) {
+            return activeByPrefix(Records.prefix(spaceId, date));
+        }
+    }
+
+    @Override
+    public void save(Booking booking) {
+        synchronized (engine) {
+            byte[] id = Records.key(booking.getBookingId());
+            Booking old = Records.decode(bookings.get(id), BTreeBookingRepository::read);
+            if (old != null) {
+                bySpace.remove(spaceKey(old));
+            }
+            bookings.put(id, Records.encode(out -> write(out, booking)));
+            bySpace.put(spaceKey(booking), new byte[0]);
+            Records.commit(engine);
+        }
+    }
+
+    // =========================================================
+    //               Internal
+    // =========================================================
+
+    private List<Booking> activeByPrefix(byte[] prefix) {
+        List<String> ids = new ArrayList<>();
+        bySpace.scanPrefix(prefix, (key, value) -> {
+            ids.add(lastPart(key));
+            return true;
+        });
+        List<Booking> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Booking b = findById(id);
+            if (b != null && !b.isReleased()) {
+                result.add(b);
+            }
+        }
+        return result;
+    }
+
+    private static byte[] spaceKey(Booking b) {
+        return Records.key(b.getSpaceId(), b.getDate(), b.getStartTime(), b.getBookingId());
+    }
+
+    /** Last 0x00-separated part of a key */
+    private static String lastPart(byte[] key) {
+        int start = key.length;
+        while (start > 0 && key[start - 1] != 0) {
+            start--;
+        }
+        return new String(key, start, key.length - start, StandardCharsets.UTF_8);
+    }
+
+    private static void write(DataOutputStream out, Booking b) throws IOException {
+        Records.writeString(out, b.getBookingId());
+        Records.writeString(out, b.getUserId());
+        Records.writeString(out, b.getSpaceId());
+        Records.writeDate(out, b.getDate());
+        Records.writeTime(out, b.getStartTime());
+        Records.writeTime(out, b.getEndTime());
+        Records.writeString(out, b.getStatus());
+    }
+
+    private static Booking read(DataInputStream in) throws IOException {
+        return new Booking(Records.readString(in), Records.readString(in), Records.readString(in),
+                Records.readDate(in), Records.readTime(in), Records.readTime(in), Records.readString(in));
+    }
+}
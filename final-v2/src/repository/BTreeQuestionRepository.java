@@ -0,0 +1,88 @@
+package repository;
+
+import model.Question;
+import storage.BPlusTree;
+import storage.StorageEngine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * QuestionRepository over the storage engine
+ *
+ * Tree "questions": createdAt \0 questionId → record (findAll returns oldest first)
+ */
+public class BTreeQuestionRepository implements QuestionRepository {
+
+    private final StorageEngine engine;
+    private final BPlusTree questions;
+
+    public BTreeQuestionRepository(StorageEngine engine) throws IOException {
+        this.engine = engine;
+        this.questions = engine.tree("questions");
+    }
+
+    @Override
+    public List<Question> findAll() {
+        synchronized (engine) {
+            List<Question> result = new ArrayList<>();
+            questions.scan(null, null, (key, value) -> result.add(Records.decode(value, BTreeQuestionRepository::read)));
+            return result;
+        }
+    }
+
+    @Override
+    public void add(Question q) {
+        synchronized (engine) {
+            questions.put(key(q), Records.encode(out -> write(out, q)));
+            Records.commit(engine);
+        }
+    }
+
+    @Override
+    public void remove(Question q) {
+        synchronized (engine) {
+            if (q.getCreatedAt() != null && questions.remove(key(q))) {
+                Records.commit(engine);
+                return;
+            }
+            // createdAt unknown or different: find by id (the question list is small)
+            byte[][] match = new byte[1][];
+            questions.scan(null, null, (key, value) -> {
+                Question stored = Records.decode(value, BTreeQuestionRepository::read);
+                if (stored.getQuestionId().equals(q.getQuestionId())) {
+                    match[0] = key;
+                    return false;
+                }
+                return true;
+            });
+            if (match[0] != null) {
+                questions.remove(match[0]);
+                Records.commit(engine);
+            }
+        }
+    }
+
+    private static byte[] key(Question q) {
+        return Records.key(q.getCreatedAt(), q.getQuestionId());
+    }
+
+    // =========================================================
+    //               Record
+    // =========================================================
+
+    private static void write(DataOutputStream out, Question q) throws IOException {
+        Records.writeString(out, q.getQuestionId());
+        Records.writeString(out, q.getUsername());
+        Records.writeString(out, q.getContent());
+        Records.writeDateTime(out, q.getCreatedAt());
+    }
+
+    private static Question read(DataInputStream in) throws IOException {
+        return new Question(Records.readString(in), Records.readString(in),
+                Records.readString(in), Records.readDateTime(in));
+    }
+}
@@ -0,0 +1,78 @@
+package repository;
+
+import model.Space;
+import storage.BPlusTree;
+import storage.StorageEngine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SpaceRepository over the storage engine
+ *
+ * Tree "spaces": spaceId → record (so findAll returns spaces in spaceId order)
+ */
+public class BTreeSpaceRepository implements SpaceRepository {
+
+    private final StorageEngine engine;
+    private final BPlusTree spaces;
+
+    public BTreeSpaceRepository(StorageEngine engine) throws IOException {
+        this.engine = engine;
+        this.spaces = engine.tree("spaces");
+    }
+
+    @Override
+    public Space findBySpaceId(String spaceId) {
+        synchronized (engine) {
+            return Records.decode(spaces.get(Records.key(spaceId)), BTreeSpaceRepository::read);
+        }
+    }
+
+    @Override
+    public List<Space> findAll() {
+        synchronized (engine) {
+            List<Space> result = new ArrayList<>();
+            spaces.scan(null, null, (key, value) -> result.add(Records.decode(value, BTreeSpaceRepository::read)));
+            return result;
+        }
+    }
+
+    @Override
+    public void save(Space space) {
+        synchronized (engine) {
+            spaces.put(Records.key(space.getSpaceId()), Records.encode(out -> write(out, space)));
+            Records.commit(engine);
+        }
+    }
+
+    // =========================================================
+    //               Record
+    // =========================================================
+
+    private static void write(DataOutputStream out, Space s) throws IOException {
+        Records.writeString(out, s.getId());
+        Records.writeString(out, s.getName());
+        Records.writeString(out, s.getFloor());
+        Records.writeString(out, s.getSpaceId());
+        Records.writeString(out, s.getType());
+        Records.writeString(out, s.getBuilding());
+        out.writeInt(s.getCapacity());
+        Records.writeString(out, s.getStatus());
+        out.writeDouble(s.getCreditsPerHour());
+        out.writeDouble(s.getX());
+        out.writeDouble(s.getY());
+        out.writeDouble(s.getW());
+        out.writeDouble(s.getH());
+    }
+
+    private static Space read(DataInputStream in) throws IOException {
+        return new Space(Records.readString(in), Records.readString(in), Records.readString(in),
+                Records.readString(in), Records.readString(in), Records.readString(in),
+                in.readInt(), Records.readString(in), in.readDouble(),
+                in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+    }
+}
@@ -0,0 +1,119 @@
+package repository;
+
+import model.Money;
+import model.Transaction;
+import storage.BPlusTree;
+import storage.StorageEngine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransactionRepository over the storage engine
+ *
+ * Trees (the secondary trees hold a full copy of the record, so scans need no second lookup):
+ * - "transactions":        transactionId → record
+ * - "transactions.byDate": date \0 transactionId → record
+ * - "transactions.byUser": userId \0 date \0 transactionId → record
+ *
+ * Ordering matches TransactionDataUtil: by date, then transactionId.
+ */
+public class BTreeTransactionRepository implements TransactionRepository {
+
+    private final StorageEngine engine;
+    private final BPlusTree transactions;
+    private final BPlusTree byDate;
+    private final BPlusTree byUser;
+
+    public BTreeTransactionRepository(StorageEngine engine) throws IOException {
+        this.engine = engine;
+        this.transactions = engine.tree("transactions");
+        this.byDate = engine.tree("transactions.byDate");
+        this.byUser = engine.tree("transactions.byUser");
+    }
+
+    @Override
+    public Transaction findById(String transactionId) {
+        synchronized (engine) {
+            return Records.decode(transactions.get(Records.key(transactionId)), BTreeTransactionRepository::read);
+        }
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        synchronized (engine) {
+            return findBetween(null, null);
+        }
+    }
+
+    @Override
+    public List<Transaction> findByUser(String userId) {
+        synchronized (engine) {
+            List<Transaction> result = new ArrayList<>();
+            byUser.scanPrefix(Records.prefix(userId),
+                    (key, value) -> result.add(Records.decode(value, BTreeTransactionRepository::read)));
+            return result;
+        }
+    }
+
+    @Override
+    public List<Transaction> findBetween(LocalDate from, LocalDate to) {
+        synchronized (engine) {
+            // "yyyy-MM-dd" sorts before "yyyy-MM-dd\0id", so the next day is an exclusive upper bound
+            byte[] lower = from == null ? null : Records.key(from);
+            byte[] upper = to == null ? null : Records.key(to.plusDays(1));
+            List<Transaction> result = new ArrayList<>();
+            byDate.scan(lower, upper, (key, value) -> result.add(Records.decode(value, BTreeTransactionRepository::read)));
+            return result;
+        }
+    }
+
+    @Override
+    public boolean add(Transaction t) {
+        synchronized (engine) {
+            byte[] id = Records.key(t.getTransactionId());
+            if (transactions.get(id) != null) {
+                return false;
+            }
+            byte[] record = Records.encode(out -> write(out, t));
+            transactions.put(id, record);
+            byDate.put(Records.key(t.getDate(), t.getTransactionId()), record);
+            byUser.put(Records.key(t.getUserId(), t.getDate(), t.getTransactionId()), record);
+            return Records.commit(engine);
+        }
+    }
+
+    // =========================================================
+    //               Record
+    // =========================================================
+
+    private static void write(DataOutputStream out, Transaction t) throws IOException {
+        Records.writeString(out, t.getTransactionId());
+        Records.writeString(out, t.getUserId());
+        Records.writeString(out, t.getType() == null ? null : t.getType().name());
+        out.writeLong(t.getAmountCents());
+        Records.writeDate(out, t.getDate());
+        Records.writeString(out, t.getDescription());
+        Records.writeString(out, t.getRelatedId());
+        Records.writeString(out, t.getBuilding());
+        Records.writeDate(out, t.getPaidOn());
+    }
+
+    private static Transaction read(DataInputStream in) throws IOException {
+        String id = Records.readString(in);
+        String userId = Records.readString(in);
+        String type = Records.readString(in);
+        Money amount = Money.ofCents(in.readLong());
+        Transaction t = new Transaction(id, userId, type == null ? null : Transaction.TransactionType.valueOf(type),
+                amount, Records.readDate(in), Records.readString(in), Records.readString(in));
+        if (in.available() > 0) { // records written before building / paidOn end here
+            t.setBuilding(Records.readString(in));
+            t.setPaidOn(Records.readDate(in));
+        }
+        return t;
+    }
+}
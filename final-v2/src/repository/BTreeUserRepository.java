@@ -0,0 +1,100 @@
+package repository;
+
+import model.User;
+import storage.BPlusTree;
+import storage.StorageEngine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * UserRepository over the storage engine
+ *
+ * Trees:
+ * - "users":        userId → record
+ * - "users.byName": username → userId
+ */
+public class BTreeUserRepository implements UserRepository {
+
+    private final StorageEngine engine;
+    private final BPlusTree users;
+    private final BPlusTree byName;
+
+    public BTreeUserRepository(StorageEngine engine) throws IOException {
+        this.engine = engine;
+        this.users = engine.tree("users");
+        this.byName = engine.tree("users.byName");
+    }
+
+    @Override
+    public User findById(String userId) {
+        synchronized (engine) {
+            return Records.decode(users.get(Records.key(userId)), BTreeUserRepository::read);
+        }
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        synchronized (engine) {
+            byte[] id = byName.get(Records.key(username));
+            return id == null ? null : findById(new String(id, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        synchronized (engine) {
+            List<User> result = new ArrayList<>();
+            users.scan(null, null, (key, value) -> result.add(Records.decode(value, BTreeUserRepository::read)));
+            return result;
+        }
+    }
+
+    /** Same rules as UserDataUtil.addUser / updateUser: usernames are unique, a missing userId is generated */
+    @Override
+    public boolean save(User user) {
+        synchronized (engine) {
+            if (user == null || user.getUsername() == null) {
+                return false;
+            }
+            User owner = findByUsername(user.getUsername());
+            if (owner != null && !owner.getUserId().equals(user.getUserId())) {
+                return false;
+            }
+            if (user.getUserId() == null || user.getUserId().isEmpty()) {
+                user.setUserId(UUID.randomUUID().toString());
+            }
+
+            User old = findById(user.getUserId());
+            if (old != null && !old.getUsername().equals(user.getUsername())) {
+                byName.remove(Records.key(old.getUsername()));
+            }
+            users.put(Records.key(user.getUserId()), Records.encode(out -> write(out, user)));
+            byName.put(Records.key(user.getUsername()), user.getUserId().getBytes(StandardCharsets.UTF_8));
+            return Records.commit(engine);
+        }
+    }
+
+    // =========================================================
+    //               Record
+    // =========================================================
+
+    private static void write(DataOutputStream out, User u) throws IOException {
+        Records.writeString(out, u.getUserId());
+        Records.writeString(out, u.getUsername());
+        Records.writeString(out, u.getPassword());
+        Records.writeString(out, u.getEmail());
+        Records.writeString(out, u.getType());
+        Records.writeString(out, u.getMembership());
+    }
+
+    private static User read(DataInputStream in) throws IOException {
+        return new User(Records.readString(in), Records.readString(in), Records.readString(in),
+                Records.readString(in), Records.readString(in), Records.readString(in));
+    }
+}
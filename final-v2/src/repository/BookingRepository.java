@@ -0,0 +1,28 @@
+package repository;
+
+import model.Booking;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Booking persistence
+ * Implementations: CsvBookingRepository (data/bookings.csv), BTreeBookingRepository (storage engine)
+ */
+public interface BookingRepository {
+
+    /** Booking by id, or null */
+    Booking findById(String bookingId);
+
+    /** All bookings (any status) */
+    List<Booking> findAll();
+
+    /** Non-released bookings of a space */
+    List<Booking> findBySpace(String spaceId);
+
+    /** Non-released bookings of a space on one date */
+    List<Booking> findBySpaceAndDate(String spaceId, LocalDate date);
+
+    /** Insert a new booking, or update the stored one with the same bookingId */
+    void save(Booking booking);
+}
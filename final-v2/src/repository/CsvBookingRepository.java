@@ -0,0 +1,44 @@
+package repository;
+
+import model.Booking;
+import util.BookingDataUtil;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BookingRepository over the CSV store (BookingDataUtil, data/bookings.csv)
+ */
+public class CsvBookingRepository implements BookingRepository {
+
+    @Override
+    public Booking findById(String bookingId) {
+        return BookingDataUtil.getBookingById(bookingId);
+    }
+
+    @Override
+    public List<Booking> findAll() {
+        return new ArrayList<>(BookingDataUtil.getAllBookings());
+    }
+
+    @Override
+    public List<Booking> findBySpace(String spaceId) {
+        return BookingDataUtil.getBookingsBySpaceId(spaceId);
+    }
+
+    @Override
+    public List<Booking> findBySpaceAndDate(String spaceId, LocalDate date) {
+        return BookingDataUtil.getBookingsBySpaceIdAndDate(spaceId, date);
+    }
+
+    /** New bookings are added; for an existing booking only the status can change in this store */
+    @Override
+    public void save(Booking booking) {
+        if (findById(booking.getBookingId()) != null) {
+            BookingDataUtil.updateBookingStatus(booking.getBookingId(), booking.getStatus());
+        } else {
+            BookingDataUtil.addBooking(booking);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package repository;
+
+import model.Question;
+import util.QuestionDataUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * QuestionRepository over the CSV store (QuestionDataUtil, data/question.csv)
+ */
+public class CsvQuestionRepository implements QuestionRepository {
+
+    @Override
+    public List<Question> findAll() {
+        return Arrays.asList(QuestionDataUtil.getAllQuestions());
+    }
+
+    @Override
+    public void add(Question question) {
+        QuestionDataUtil.addQuestion(question);
+    }
+
+    @Override
+    public void remove(Question question) {
+        for (Question q : QuestionDataUtil.getAllQuestions()) {
+            if (q.getQuestionId().equals(question.getQuestionId())) {
+                QuestionDataUtil.removeQuestion(q);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package repository;
+
+import model.Space;
+import service.SpaceService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SpaceRepository over the CSV store (SpaceService, data/spaces.csv)
+ */
+public class CsvSpaceRepository implements SpaceRepository {
+
+    private final SpaceService spaceService = new SpaceService();
+
+    public CsvSpaceRepository() {
+        spaceService.loadSpacesFromCSV();
+    }
+
+    @Override
+    public synchronized Space findBySpaceId(String spaceId) {
+        for (Space s : spaceService.getCachedSpaces()) {
+            if (s.getSpaceId().equals(spaceId)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized List<Space> findAll() {
+        return new ArrayList<>(spaceService.getCachedSpaces());
+    }
+
+    /** Updates rewrite spaces.csv; new spaces are added through SpaceService.addSpace */
+    @Override
+    public synchronized void save(Space space) {
+        List<Space> spaces = spaceService.getCachedSpaces();
+        for (int i = 0; i < spaces.size(); i++) {
+            if (spaces.get(i).getSpaceId().equals(space.getSpaceId())) {
+                spaces.set(i, space);
+                spaceService.saveSpacesToCSV(spaces);
+                spaceService.loadSpacesFromCSV();
+                return;
+            }
+        }
+        spaceService.addSpace(space);
+        spaceService.loadSpacesFromCSV();
+    }
+}
@@ -0,0 +1,43 @@
+package repository;
+
+import model.Transaction;
+import util.TransactionDataUtil;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * TransactionRepository over the CSV store (TransactionDataUtil, data/transactions)
+ */
+public class CsvTransactionRepository implements TransactionRepository {
+
+    @Override
+    public Transaction findById(String transactionId) {
+        for (Transaction t : TransactionDataUtil.getAllTransactions()) {
+            if (t.getTransactionId().equals(transactionId)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return TransactionDataUtil.getTransactionsBetween(null, null);
+    }
+
+    @Override
+    public List<Transaction> findByUser(String userId) {
+        return TransactionDataUtil.getTransactionsByUserBetween(userId, null, null);
+    }
+
+    @Override
+    public List<Transaction> findBetween(LocalDate from, LocalDate to) {
+        return TransactionDataUtil.getTransactionsBetween(from, to);
+    }
+
+    @Override
+    public boolean add(Transaction transaction) {
+        return TransactionDataUtil.addTransaction(transaction);
+    }
+}
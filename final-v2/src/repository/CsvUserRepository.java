@@ -0,0 +1,36 @@
+package repository;
+
+import model.User;
+import util.UserDataUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UserRepository over the CSV store (UserDataUtil, data/data.csv + journal)
+ */
+public class CsvUserRepository implements UserRepository {
+
+    @Override
+    public User findById(String userId) {
+        return UserDataUtil.getUserById(userId);
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        return UserDataUtil.getUserByUsername(username);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(UserDataUtil.getAllUsers());
+    }
+
+    @Override
+    public boolean save(User user) {
+        if (user.getUserId() != null && UserDataUtil.getUserById(user.getUserId()) != null) {
+            return UserDataUtil.updateUser(user);
+        }
+        return UserDataUtil.addUser(user);
+    }
+}
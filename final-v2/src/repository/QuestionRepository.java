@@ -0,0 +1,21 @@
+package repository;
+
+import model.Question;
+
+import java.util.List;
+
+/**
+ * Question persistence
+ * Implementations: CsvQuestionRepository (data/question.csv), BTreeQuestionRepository (storage engine)
+ */
+public interface QuestionRepository {
+
+    /** All questions */
+    List<Question> findAll();
+
+    /** Store a new question */
+    void add(Question question);
+
+    /** Remove a question (matched by questionId) */
+    void remove(Question question);
+}
@@ -0,0 +1,141 @@
+package repository;
+
+import storage.StorageEngine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Key and record encoding shared by the B+ tree repositories, and their commit step
+ *
+ * - keys: UTF-8 parts joined by 0x00, so byte order = part-by-part order
+ *   (dates as ISO text sort chronologically; times as HH:mm likewise)
+ * - records: DataOutputStream fields; strings may be null
+ */
+final class Records {
+
+    private Records() {
+    }
+
+    /** Key from parts (null parts are stored as empty) */
+    static byte[] key(Object... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                out.write(0);
+            }
+            if (parts[i] != null) {
+                byte[] bytes = parts[i].toString().getBytes(StandardCharsets.UTF_8);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /** Prefix matching every key whose first parts equal the given ones */
+    static byte[] prefix(Object... parts) {
+        byte[] key = key(parts);
+        byte[] prefix = new byte[key.length + 1];
+        System.arraycopy(key, 0, prefix, 0, key.length);
+        return prefix;
+    }
+
+    /**
+     * Commit one repository operation (StorageEngine.commit)
+     * @return false, with the error printed, if the pages could not be written; the changes
+     *         stay in the buffer pool and are written by the next successful commit
+     */
+    static boolean commit(StorageEngine engine) {
+        try {
+            engine.commit();
+            return true;
+        } catch (IOException e) {
+            System.err.println("ERROR committing storage changes: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // =========================================================
+    //               Record fields
+    // =========================================================
+
+    interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    interface Decoder<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    static byte[] encode(Encoder encoder) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            encoder.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static <T> T decode(byte[] record, Decoder<T> decoder) {
+        if (record == null) {
+            return null;
+        }
+        try {
+            return decoder.read(new DataInputStream(new ByteArrayInputStream(record)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Damaged record", e);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    static LocalDate readDate(DataInputStream in) throws IOException {
+        long day = in.readLong();
+        return day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    static void writeTime(DataOutputStream out, LocalTime time) throws IOException {
+        out.writeLong(time == null ? -1 : time.toNanoOfDay());
+    }
+
+    static LocalTime readTime(DataInputStream in) throws IOException {
+        long nanos = in.readLong();
+        return nanos < 0 ? null : LocalTime.ofNanoOfDay(nanos);
+    }
+
+    static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        writeDate(out, value == null ? null : value.toLocalDate());
+        writeTime(out, value == null ? null : value.toLocalTime());
+    }
+
+    static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        LocalDate date = readDate(in);
+        LocalTime time = readTime(in);
+        return date == null ? null : LocalDateTime.of(date, time);
+    }
+}
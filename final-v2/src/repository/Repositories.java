@@ -0,0 +1,183 @@
+package repository;
+
+import model.Booking;
+import model.Question;
+import model.Space;
+import model.Transaction;
+import model.User;
+import storage.StorageEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Entry point for persistence: one repository per entity, backed by the configured store
+ *
+ * Backend selection (system property "storage.backend"):
+ * - csv   (default): the existing CSV files under data/, through the *DataUtil classes
+ * - btree: the page-based storage engine in data/store.db
+ *
+ * The first time the btree store is opened it is filled from the CSV files, so switching
+ * backends keeps the current data. After that the two stores are independent: the selected
+ * backend serves the callers that go through these repositories, while code that calls the
+ * *DataUtil classes directly keeps using the CSV files.
+ *
+ * The btree store commits every repository operation atomically (StorageEngine.commit), and
+ * the import is written to a temporary file that is renamed into place only once complete,
+ * so a crash never leaves a partly imported or partly updated store behind.
+ */
+public final class Repositories {
+
+    public static final String BACKEND_PROPERTY = "storage.backend";
+    private static final Path STORE_FILE = Paths.get("data/store.db");
+    private static final Path IMPORT_FILE = Paths.get("data/store.db.import");
+
+    /** Buffer pool size: 2048 × 8 KB pages = 16 MB */
+    private static final int POOL_PAGES = 2048;
+
+    private static BookingRepository bookings;
+    private static TransactionRepository transactions;
+    private static UserRepository users;
+    private static SpaceRepository spaces;
+    private static QuestionRepository questions;
+    private static StorageEngine engine;
+
+    private Repositories() {
+    }
+
+    public static synchronized BookingRepository bookings() {
+        init();
+        return bookings;
+    }
+
+    public static synchronized TransactionRepository transactions() {
+        init();
+        return transactions;
+    }
+
+    public static synchronized UserRepository users() {
+        init();
+        return users;
+    }
+
+    public static synchronized SpaceRepository spaces() {
+        init();
+        return spaces;
+    }
+
+    public static synchronized QuestionRepository questions() {
+        init();
+        return questions;
+    }
+
+    // =========================================================
+    //               Setup
+    // =========================================================
+
+    private static void init() {
+        if (bookings != null) {
+            return;
+        }
+        String backend = System.getProperty(BACKEND_PROPERTY, "csv");
+        if ("btree".equalsIgnoreCase(backend)) {
+            openStore();
+        } else {
+            if (!"csv".equalsIgnoreCase(backend)) {
+                System.err.println("Unknown " + BACKEND_PROPERTY + " '" + backend + "', using csv");
+            }
+            bookings = new CsvBookingRepository();
+            transactions = new CsvTransactionRepository();
+            users = new CsvUserRepository();
+            spaces = new CsvSpaceRepository();
+            questions = new CsvQuestionRepository();
+        }
+    }
+
+    private static void openStore() {
+        try {
+            if (!Files.exists(STORE_FILE)) {
+                importFromCsv();
+            }
+            engine = new StorageEngine(STORE_FILE, POOL_PAGES);
+            bookings = new BTreeBookingRepository(engine);
+            transactions = new BTreeTransactionRepository(engine);
+            users = new BTreeUserRepository(engine);
+            spaces = new BTreeSpaceRepository(engine);
+            questions = new BTreeQuestionRepository(engine);
+            Runtime.getRuntime().addShutdownHook(new Thread(Repositories::close, "storage-engine-shutdown"));
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Cannot open " + STORE_FILE, e);
+        }
+    }
+
+    /**
+     * Build the btree store from the CSV files: import into IMPORT_FILE as one batch, then
+     * rename it to STORE_FILE (a leftover IMPORT_FILE from an interrupted import is discarded)
+     */
+    private static void importFromCsv() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.deleteIfExists(IMPORT_FILE);
+        Files.deleteIfExists(Paths.get(IMPORT_FILE + "-journal"));
+        int count;
+        try (StorageEngine target = new StorageEngine(IMPORT_FILE, POOL_PAGES)) {
+            target.beginBatch();
+            count = copyFromCsv(target);
+            target.endBatch();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(IMPORT_FILE);
+            throw e;
+        }
+        Files.move(IMPORT_FILE, STORE_FILE, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Imported " + count + " records into " + STORE_FILE
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /** Copy every record from the CSV files into a new, empty store */
+    private static int copyFromCsv(StorageEngine target) throws IOException {
+        BookingRepository bookings = new BTreeBookingRepository(target);
+        TransactionRepository transactions = new BTreeTransactionRepository(target);
+        UserRepository users = new BTreeUserRepository(target);
+        SpaceRepository spaces = new BTreeSpaceRepository(target);
+        QuestionRepository questions = new BTreeQuestionRepository(target);
+        int count = 0;
+        for (User u : new CsvUserRepository().findAll()) {
+            users.save(u);
+            count++;
+        }
+        for (Space s : new CsvSpaceRepository().findAll()) {
+            spaces.save(s);
+            count++;
+        }
+        for (Booking b : new CsvBookingRepository().findAll()) {
+            bookings.save(b);
+            count++;
+        }
+        for (Transaction t : new CsvTransactionRepository().findAll()) {
+            transactions.add(t);
+            count++;
+        }
+        for (Question q : new CsvQuestionRepository().findAll()) {
+            questions.add(q);
+            count++;
+        }
+        return count;
+    }
+
+    private static synchronized void close() {
+        if (engine == null) {
+            return;
+        }
+        try {
+            engine.close();
+        } catch (IOException e) {
+            System.err.println("ERROR closing " + STORE_FILE + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            engine = null;
+        }
+    }
+}
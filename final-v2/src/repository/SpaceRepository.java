@@ -0,0 +1,21 @@
+package repository;
+
+import model.Space;
+
+import java.util.List;
+
+/**
+ * Space persistence
+ * Implementations: CsvSpaceRepository (data/spaces.csv), BTreeSpaceRepository (storage engine)
+ */
+public interface SpaceRepository {
+
+    /** Space by spaceId (e.g. "A-01-01"), or null */
+    Space findBySpaceId(String spaceId);
+
+    /** All spaces */
+    List<Space> findAll();
+
+    /** Insert a new space, or update the stored one with the same spaceId */
+    void save(Space space);
+}
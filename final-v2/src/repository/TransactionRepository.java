@@ -0,0 +1,35 @@
+package repository;
+
+import model.Transaction;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Transaction persistence (append-only: transactions are never changed or removed)
+ * Implementations: CsvTransactionRepository (data/transactions), BTreeTransactionRepository (storage engine)
+ */
+public interface TransactionRepository {
+
+    /** Transaction by id, or null */
+    Transaction findById(String transactionId);
+
+    /** All transactions, oldest first */
+    List<Transaction> findAll();
+
+    /** Transactions of one user, oldest first */
+    List<Transaction> findByUser(String userId);
+
+    /**
+     * Transactions dated within [from, to], oldest first
+     * @param from First date (inclusive), or null for unbounded
+     * @param to Last date (inclusive), or null for unbounded
+     */
+    List<Transaction> findBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Store a new transaction
+     * @return false if it could not be stored
+     */
+    boolean add(Transaction transaction);
+}
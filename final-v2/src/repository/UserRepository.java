@@ -0,0 +1,27 @@
+package repository;
+
+import model.User;
+
+import java.util.List;
+
+/**
+ * User persistence
+ * Implementations: CsvUserRepository (data/data.csv), BTreeUserRepository (storage engine)
+ */
+public interface UserRepository {
+
+    /** User by id, or null */
+    User findById(String userId);
+
+    /** User by username, or null */
+    User findByUsername(String username);
+
+    /** All users */
+    List<User> findAll();
+
+    /**
+     * Insert a new user, or update the stored one with the same userId
+     * @return false if the username belongs to another user
+     */
+    boolean save(User user);
+}
@@ -0,0 +1,245 @@
+package service;
+
+import datastructure.HyperLogLog;
+import datastructure.KllSketch;
+import model.Booking;
+import model.Transaction;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * AnalyticsService
+ *
+ * Keeps mergeable sketches for the admin analytics page:
+ *   - Distinct active users per week (all buildings)
+ *   - Distinct active users per week per building
+ *   - Distributions (p50 / p90 / p99) of booking duration, spend per booking and lead time
+ *
+ * Each (week, building) cell holds a HyperLogLog sketch of fixed size, so memory does not
+ * grow with the number of users. Coarser queries (a date range, one building, everything)
+ * are answered by merging the cells instead of rescanning transactions.
+ * Distributions are kept in KLL quantile sketches, so percentiles are read without
+ * storing or sorting the raw samples.
+ *
+ * TransactionDataUtil keeps one instance per month partition, fed as rows are loaded or
+ * appended (recordTransaction); the analytics page merges them (merge) instead of rescanning.
+ * A booking transaction is placed in the building recorded on it (Transaction.getBuilding);
+ * transactions written before that field existed count in the all-buildings cells only.
+ */
+public class AnalyticsService {
+
+    public enum Metric {
+        BOOKING_DURATION_MINUTES,   // endTime - startTime of a booking
+        BOOKING_SPEND,              // amount of a BOOKING transaction
+        LEAD_TIME_DAYS              // days between payment (Transaction.getPaidOn) and the booked date
+    }
+
+    /** week start (Monday) → users active that week in any building */
+    private final TreeMap<LocalDate, HyperLogLog> weeklyActiveUsers = new TreeMap<>();
+
+    /** building → week start → users active that week there */
+    private final Map<String, TreeMap<LocalDate, HyperLogLog>> buildingWeeklyActiveUsers = new HashMap<>();
+
+    /** metric → quantile sketch of its distribution */
+    private final Map<Metric, KllSketch> distributions = new EnumMap<>(Metric.class);
+
+    public AnalyticsService() {
+        for (Metric metric : Metric.values()) {
+            distributions.put(metric, new KllSketch());
+        }
+    }
+
+    // =============================================
+    // Recording
+    // =============================================
+
+    /**
+     * Record that a user was active on a date
+     * Recording the same user twice in the same bucket has no effect
+     * @param userId User ID
+     * @param date Activity date
+     * @param building Building of the activity, or null if not tied to a building (e.g. membership)
+     */
+    public void recordActivity(String userId, LocalDate date, String building) {
+        if (userId == null || date == null) {
+            return;
+        }
+        LocalDate week = weekOf(date);
+
+        weeklyActiveUsers.computeIfAbsent(week, w -> new HyperLogLog()).add(userId);
+
+        if (building != null && !building.isEmpty()) {
+            buildingWeeklyActiveUsers
+                    .computeIfAbsent(building, b -> new TreeMap<>())
+                    .computeIfAbsent(week, w -> new HyperLogLog())
+                    .add(userId);
+        }
+    }
+
+    /**
+     * Record a transaction: its user is active in its week; a BOOKING transaction also counts
+     * in its building and feeds the spend and lead time distributions
+     */
+    public void recordTransaction(Transaction t) {
+        if (t.getType() == Transaction.TransactionType.BOOKING) {
+            recordActivity(t.getUserId(), t.getDate(), t.getBuilding());
+            recordBookingPayment(t.getAmount(), t.getPaidOn(), t.getDate());
+        } else {
+            recordActivity(t.getUserId(), t.getDate(), null);
+        }
+    }
+
+    /**
+     * Add all cells and distributions of another service to this one
+     * Time Complexity: O(cells), independent of the number of recorded events
+     */
+    public void merge(AnalyticsService other) {
+        mergeCells(weeklyActiveUsers, other.weeklyActiveUsers);
+        for (Map.Entry<String, TreeMap<LocalDate, HyperLogLog>> e : other.buildingWeeklyActiveUsers.entrySet()) {
+            mergeCells(buildingWeeklyActiveUsers.computeIfAbsent(e.getKey(), b -> new TreeMap<>()), e.getValue());
+        }
+        for (Metric metric : Metric.values()) {
+            distributions.get(metric).merge(other.distributions.get(metric));
+        }
+    }
+
+    private static void mergeCells(TreeMap<LocalDate, HyperLogLog> into, TreeMap<LocalDate, HyperLogLog> from) {
+        for (Map.Entry<LocalDate, HyperLogLog> cell : from.entrySet()) {
+            HyperLogLog target = into.get(cell.getKey());
+            if (target == null) {
+                into.put(cell.getKey(), cell.getValue().copy());
+            } else {
+                target.merge(cell.getValue());
+            }
+        }
+    }
+
+    /**
+     * Record the duration of a booking
+     * @param booking Booking with start and end time
+     */
+    public void recordBookingDuration(Booking booking) {
+        if (booking == null || booking.getStartTime() == null || booking.getEndTime() == null) {
+            return;
+        }
+        long minutes = Duration.between(booking.getStartTime(), booking.getEndTime()).toMinutes();
+        distributions.get(Metric.BOOKING_DURATION_MINUTES).update(minutes);
+    }
+
+    /**
+     * Record the payment of a booking
+     * @param amount Amount paid
+     * @param paidOn Payment date, or null if unknown (lead time is then not recorded)
+     * @param usedOn Booked date (the BOOKING transaction's date)
+     */
+    public void recordBookingPayment(double amount, LocalDate paidOn, LocalDate usedOn) {
+        distributions.get(Metric.BOOKING_SPEND).update(amount);
+
+        if (paidOn != null && usedOn != null) {
+            long leadDays = ChronoUnit.DAYS.between(paidOn, usedOn);
+            if (leadDays >= 0) {
+                distributions.get(Metric.LEAD_TIME_DAYS).update(leadDays);
+            }
+        }
+    }
+
+    // =============================================
+    // Percentile queries
+    // =============================================
+
+    /**
+     * Approximate percentile of a metric
+     * @param metric Metric
+     * @param q Quantile in [0, 1] (0.9 = p90)
+     * @return Value, or NaN if nothing was recorded
+     */
+    public double percentile(Metric metric, double q) {
+        return distributions.get(metric).quantile(q);
+    }
+
+    /**
+     * Approximate percentiles of a metric in one pass
+     * @param metric Metric
+     * @param qs Quantiles in [0, 1]
+     * @return Values in the same order as qs (NaN if nothing was recorded)
+     */
+    public double[] percentiles(Metric metric, double... qs) {
+        return distributions.get(metric).quantiles(qs);
+    }
+
+    /** Number of samples recorded for a metric */
+    public long sampleCount(Metric metric) {
+        return distributions.get(metric).getN();
+    }
+
+    // =============================================
+    // Distinct active user queries
+    // =============================================
+
+    /** Distinct active users over all time and all buildings */
+    public long estimateActiveUsers() {
+        return activeUsersSketch(null, null, null).estimate();
+    }
+
+    /** Distinct active users within [from, to] (inclusive, rounded to whole weeks) */
+    public long estimateActiveUsers(LocalDate from, LocalDate to) {
+        return activeUsersSketch(null, from, to).estimate();
+    }
+
+    /** Distinct active users of a building over all time */
+    public long estimateActiveUsers(String building) {
+        return activeUsersSketch(building, null, null).estimate();
+    }
+
+    /** Distinct active users of a building within [from, to] (rounded to whole weeks) */
+    public long estimateActiveUsers(String building, LocalDate from, LocalDate to) {
+        return activeUsersSketch(building, from, to).estimate();
+    }
+
+    /**
+     * Merge all cells matching the filter into one sketch
+     * @param building Building (or space name), or null for all buildings
+     * @param from First date (inclusive), or null for unbounded
+     * @param to Last date (inclusive), or null for unbounded
+     * @return Merged sketch (a new object, cells are not modified)
+     */
+    public HyperLogLog activeUsersSketch(String building, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, HyperLogLog> cells = building == null
+                ? weeklyActiveUsers
+                : buildingWeeklyActiveUsers.getOrDefault(building, new TreeMap<>());
+
+        if (from != null && to != null) {
+            cells = cells.subMap(weekOf(from), true, weekOf(to), true);
+        } else if (from != null) {
+            cells = cells.tailMap(weekOf(from), true);
+        } else if (to != null) {
+            cells = cells.headMap(weekOf(to), true);
+        }
+
+        HyperLogLog merged = new HyperLogLog();
+        for (HyperLogLog cell : cells.values()) {
+            merged.merge(cell);
+        }
+        return merged;
+    }
+
+    /** Buildings (and untagged space names) with at least one recorded activity */
+    public Set<String> getBuildings() {
+        return Collections.unmodifiableSet(buildingWeeklyActiveUsers.keySet());
+    }
+
+    /** Week buckets (Monday dates) with at least one recorded activity, in order */
+    public Set<LocalDate> getWeeks() {
+        return Collections.unmodifiableSet(weeklyActiveUsers.keySet());
+    }
+
+    /** Time bucket of a date: the Monday of its week */
+    public static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -2,49 +2,168 @@ package service;
 
 import datastructure.SpaceIndexDS;
 import model.Space;
+import util.BinarySnapshot;
 import util.BookingDataUtil;
+import util.CsvTokenizer;
+import util.WriteAheadLog;
 
 import java.io.*;
 import java.nio.file.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
+/**
+ * Spaces of data/spaces.csv, with indexes for browsing and filtering
+ *
+ * Added spaces are appended to the write-ahead log data/spaces.wal (shared by all instances)
+ * instead of rewriting spaces.csv; the log is replayed on load and checkpointed into the CSV
+ * (temp file + fsync + atomic rename) once it holds CHECKPOINT_THRESHOLD records.
+ */
 public class SpaceService {
 
     private static final String FILE = "data/spaces.csv";
+    private static final String HEADER = "id,name,floor,spaceId,type,building,seats,status,creditsPerHour";
+
+    /** Changes not yet checkpointed into FILE */
+    private static final WriteAheadLog log = new WriteAheadLog(Paths.get("data/spaces.wal"));
+
+    /** Checkpoint once the log holds this many records */
+    private static final int CHECKPOINT_THRESHOLD = 32;
+
+    /** Binary snapshot of FILE, preferred at load while it matches the CSV */
+    private static final String SNAPSHOT_FILE = "data/spaces.bin";
+
+    /** Snapshot record: id, name, floor, spaceId, type, building, status (codes), capacity, creditsPerHour */
+    private static final int SNAPSHOT_RECORD = 7 * 4 + 4 + 8;
 
     private final SpaceIndexDS index = new SpaceIndexDS();
     
     private final List<Space> cachedSpaces = new ArrayList<>();
 
     public void loadSpacesFromCSV() {
-        List<Space> list = new ArrayList<>();
-
-        try (BufferedReader br = Files.newBufferedReader(Paths.get(FILE), StandardCharsets.UTF_8)) {
-            br.readLine();
-            String line;
+        List<Space> list = readCurrent(true);
 
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
+        cachedSpaces.clear();
+        cachedSpaces.addAll(list);
+        index.buildIndex(list);
+    }
 
-                String[] p = line.split(",");
-                if (p.length < 9) continue;
+    /**
+     * Current spaces on disk: the CSV (or its snapshot) with the log applied
+     * @param checkpoint Fold replayed log records into the CSV
+     */
+    private static synchronized List<Space> readCurrent(boolean checkpoint) {
+        List<Space> list = readSnapshot();
+
+        if (list == null) {
+            list = new ArrayList<>();
+            try {
+                CsvTokenizer csv = CsvTokenizer.open(Paths.get(FILE));
+
+                while (csv.next()) {
+                    if (csv.isHeader("id")) continue;
+                    if (csv.fieldCount() < 9) continue;
+
+                    list.add(Space.fromCSV(csv));
+                }
+                writeSnapshot(list);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
 
-                Space s = new Space(
-                        p[0], p[1], p[2], p[3], p[4],
-                        p[5], Integer.parseInt(p[6]),
-                        p[7], Double.parseDouble(p[8]),
-                        0,0,0,0
-                );
-                list.add(s);
+        try {
+            List<String> records = log.recover();
+            for (String record : records) {
+                CsvTokenizer csv = CsvTokenizer.of(WriteAheadLog.body(record));
+                if (csv.next() && csv.fieldCount() >= 9) {
+                    upsert(list, Space.fromCSV(csv));
+                }
+            }
+            if (checkpoint && !records.isEmpty()) {
+                checkpoint(list);
             }
-        } catch (Exception e) {
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERROR replaying space log: " + e.getMessage());
             e.printStackTrace();
         }
-        
-        cachedSpaces.clear();
-        cachedSpaces.addAll(list);
-        index.buildIndex(list);
+        return list;
+    }
+
+    /** Replace the space with the same spaceId, or append */
+    private static void upsert(List<Space> list, Space s) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getSpaceId().equals(s.getSpaceId())) {
+                list.set(i, s);
+                return;
+            }
+        }
+        list.add(s);
+    }
+
+    private static String toCsvLine(Space sp) {
+        return String.join(",",
+                sp.getId(), sp.getName(), sp.getFloor(), sp.getSpaceId(),
+                sp.getType(), sp.getBuilding(),
+                String.valueOf(sp.getCapacity()),
+                sp.getStatus(),
+                String.valueOf(sp.getCreditsPerHour())
+        );
+    }
+
+    /** Rewrite spaces.csv atomically with the given spaces, empty the log and refresh the snapshot */
+    private static synchronized void checkpoint(List<Space> spaces) throws IOException {
+        List<String> lines = new ArrayList<>(spaces.size() + 1);
+        lines.add(HEADER);
+        for (Space sp : spaces) {
+            lines.add(toCsvLine(sp));
+        }
+        log.checkpoint(Paths.get(FILE), lines);
+        writeSnapshot(spaces);
+    }
+
+    /** Spaces from the binary snapshot, or null if it is missing or older than the CSV */
+    private static List<Space> readSnapshot() {
+        BinarySnapshot.Reader r = BinarySnapshot.Reader.open(
+                Paths.get(SNAPSHOT_FILE), Paths.get(FILE), BinarySnapshot.KIND_SPACES, SNAPSHOT_RECORD, false);
+        if (r == null) {
+            return null;
+        }
+        List<Space> list = new ArrayList<>(r.rows());
+        for (int i = 0; i < r.rows(); i++) {
+            String id = r.getString();
+            String name = r.getString();
+            String floor = r.getString();
+            String spaceId = r.getString();
+            String type = r.getString();
+            String building = r.getString();
+            String status = r.getString();
+            int capacity = r.getInt();
+            double creditsPerHour = r.getDouble();
+            list.add(new Space(id, name, floor, spaceId, type, building, capacity, status, creditsPerHour));
+        }
+        return list;
+    }
+
+    /** Write the binary snapshot for the spaces now in the CSV */
+    private static void writeSnapshot(List<Space> list) {
+        try {
+            Path csv = Paths.get(FILE);
+            BinarySnapshot.Writer w = new BinarySnapshot.Writer(BinarySnapshot.KIND_SPACES, SNAPSHOT_RECORD, list.size());
+            for (Space s : list) {
+                w.row().putString(s.getId())
+                        .putString(s.getName())
+                        .putString(s.getFloor())
+                        .putString(s.getSpaceId())
+                        .putString(s.getType())
+                        .putString(s.getBuilding())
+                        .putString(s.getStatus())
+                        .putInt(s.getCapacity())
+                        .putDouble(s.getCreditsPerHour());
+            }
+            w.writeTo(Paths.get(SNAPSHOT_FILE), Files.size(csv), BinarySnapshot.modifiedMicros(csv));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR writing space snapshot: " + e.getMessage());
+        }
     }
 
     public SpaceIndexDS getIndex() {
@@ -71,52 +190,29 @@ public class SpaceService {
     }
 
     public void addSpace(Space s) {
-        List<Space> existing = new ArrayList<>();
-
-        // ⚠️ Step 1: Read old data
-        try (BufferedReader br = Files.newBufferedReader(Paths.get(FILE), StandardCharsets.UTF_8)) {
-            br.readLine(); // Skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                String[] p = line.split(",");
-                if (p.length < 9) continue;
-
-                existing.add(new Space(
-                        p[0], p[1], p[2], p[3], p[4],
-                        p[5], Integer.parseInt(p[6]),
-                        p[7], Double.parseDouble(p[8]),
-                        0, 0, 0, 0
-                ));
-            }
+        // ⚠️ Step 1: Log the new space (one fsynced record instead of rewriting the file)
+        try {
+            log.append(WriteAheadLog.record(WriteAheadLog.UPSERT, toCsvLine(s)));
         } catch (IOException e) {
-            System.err.println("Failed to read existing spaces: " + e.getMessage());
+            System.err.println("Error writing space log: " + e.getMessage());
+            e.printStackTrace();
+            return;
         }
 
-        // ⚠️ Step 2: Add new space
-        existing.add(s);
-
-        // ⚠️ Step 3: Rewrite file (not APPEND)
-        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(FILE), StandardCharsets.UTF_8)) {
-            bw.write("id,name,floor,spaceId,type,building,seats,status,creditsPerHour\n");
-            for (Space sp : existing) {
-                bw.write(String.join(",",
-                        sp.getId(), sp.getName(), sp.getFloor(), sp.getSpaceId(),
-                        sp.getType(), sp.getBuilding(),
-                        String.valueOf(sp.getCapacity()),
-                        sp.getStatus(),
-                        String.valueOf(sp.getCreditsPerHour())
-                ));
-                bw.newLine();
+        // ⚠️ Step 2: Update cache and index from disk (picks up spaces added by other instances)
+        List<Space> current = readCurrent(false);
+        cachedSpaces.clear();
+        cachedSpaces.addAll(current);
+        index.buildIndex(current);
+
+        // ⚠️ Step 3: Fold the log into the CSV once it is long enough
+        if (log.size() >= CHECKPOINT_THRESHOLD) {
+            try {
+                checkpoint(current);
+            } catch (IOException e) {
+                System.err.println("Error writing spaces.csv: " + e.getMessage());
             }
-        } catch (IOException e) {
-            System.err.println("Error writing spaces.csv: " + e.getMessage());
         }
-
-        // ⚠️ Step 4: Update cache and index
-        cachedSpaces.clear();
-        cachedSpaces.addAll(existing);
-        index.buildIndex(existing);
     }
 
     /** Booking count per building (For Admin Statistics) */
@@ -143,20 +239,10 @@ public class SpaceService {
         return result;
     }
 
-    /** Save spaces to CSV (Used after Admin adds/modifies) */
+    /** Save spaces to CSV (Used after Admin adds/modifies): atomic rewrite, pending log records are superseded */
     public void saveSpacesToCSV(List<Space> spaces) {
-        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(FILE), StandardCharsets.UTF_8)) {
-            bw.write("id,name,floor,spaceId,type,building,seats,status,creditsPerHour\n");
-            for (Space sp : spaces) {
-                bw.write(String.join(",",
-                        sp.getId(), sp.getName(), sp.getFloor(), sp.getSpaceId(),
-                        sp.getType(), sp.getBuilding(),
-                        String.valueOf(sp.getCapacity()),
-                        sp.getStatus(),
-                        String.valueOf(sp.getCreditsPerHour())
-                ));
-                bw.newLine();
-            }
+        try {
+            checkpoint(spaces);
         } catch (IOException e) {
             System.err.println("Error saving spaces.csv: " + e.getMessage());
         }
@@ -0,0 +1,424 @@
+package storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Page-based B+ tree: byte[] keys (unsigned lexicographic order) → byte[] values
+ *
+ * Every node is one page of the buffer pool. Leaves hold the entries and are linked
+ * left to right, so a range scan descends once and then walks the leaf chain.
+ *
+ * Page layout:
+ * <pre>
+ *   leaf:     type=1, count short, next leaf int, then count × (keyLen short, key, valueLen short, value)
+ *   internal: type=2, count short, unused int, child0 int, then count × (keyLen short, key, child int)
+ * </pre>
+ * Keys in child i of an internal node are >= key i-1 and < key i.
+ *
+ * Time Complexity:
+ * - get / put / remove: O(log n) page visits
+ * - scan: O(log n + k) where k is the number of entries visited
+ *
+ * Nodes split by size when they overflow a page. remove() does not merge underfull pages
+ * (lookups stay correct; the space is reused by later inserts into the same key range).
+ */
+public class BPlusTree {
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int NODE_HEADER = 1 + 2 + 4;
+
+    /** Largest key + value, so that any split leaves both halves within a page */
+    public static final int MAX_ENTRY_BYTES = (PageFile.PAGE_SIZE - NODE_HEADER) / 4 - 4;
+
+    /** Visitor for scans; return false to stop */
+    public interface EntryVisitor {
+        boolean visit(byte[] key, byte[] value);
+    }
+
+    private final BufferPool pool;
+    private int rootPageId;
+
+    private BPlusTree(BufferPool pool, int rootPageId) {
+        this.pool = pool;
+        this.rootPageId = rootPageId;
+    }
+
+    /** Open an existing tree */
+    public static BPlusTree open(BufferPool pool, int rootPageId) {
+        return new BPlusTree(pool, rootPageId);
+    }
+
+    /** Create an empty tree (one empty leaf) */
+    public static BPlusTree create(BufferPool pool) throws IOException {
+        BPlusTree tree = new BPlusTree(pool, -1);
+        Node root = Node.leaf();
+        BufferPool.Frame frame = pool.allocate();
+        root.encode(frame.data());
+        pool.unpin(frame, true);
+        tree.rootPageId = frame.getPageId();
+        return tree;
+    }
+
+    /** Page id of the root (changes when the root splits) */
+    public synchronized int getRootPageId() {
+        return rootPageId;
+    }
+
+    // =========================================================
+    //               Operations
+    // =========================================================
+
+    /** Value for a key, or null */
+    public synchronized byte[] get(byte[] key) {
+        Node leaf = readNode(findLeaf(key));
+        int i = leaf.find(key);
+        return i >= 0 ? leaf.values.get(i) : null;
+    }
+
+    /**
+     * Insert or replace
+     * @throws IllegalArgumentException if key + value exceed MAX_ENTRY_BYTES
+     */
+    public synchronized void put(byte[] key, byte[] value) {
+        if (key.length + value.length > MAX_ENTRY_BYTES) {
+            throw new IllegalArgumentException("Entry too large: " + (key.length + value.length)
+                    + " bytes (max " + MAX_ENTRY_BYTES + ")");
+        }
+        Split split = insert(rootPageId, key, value);
+        if (split != null) {
+            // Root split: the tree grows one level
+            Node root = Node.internal();
+            root.children.add(rootPageId);
+            root.keys.add(split.separator);
+            root.children.add(split.rightPageId);
+            rootPageId = writeNewNode(root);
+        }
+    }
+
+    /** Remove a key; false if it was not present */
+    public synchronized boolean remove(byte[] key) {
+        int pageId = findLeaf(key);
+        Node leaf = readNode(pageId);
+        int i = leaf.find(key);
+        if (i < 0) {
+            return false;
+        }
+        leaf.keys.remove(i);
+        leaf.values.remove(i);
+        writeNode(pageId, leaf);
+        return true;
+    }
+
+    /**
+     * Visit entries with from <= key < to, in key order
+     * @param from First key (inclusive), or null for the smallest
+     * @param to Upper bound (exclusive), or null for no bound
+     */
+    public synchronized void scan(byte[] from, byte[] to, EntryVisitor visitor) {
+        int pageId = from != null ? findLeaf(from) : leftmostLeaf();
+        while (pageId >= 0) {
+            Node leaf = readNode(pageId);
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                byte[] key = leaf.keys.get(i);
+                if (from != null && compare(key, from) < 0) continue;
+                if (to != null && compare(key, to) >= 0) return;
+                if (!visitor.visit(key, leaf.values.get(i))) return;
+            }
+            pageId = leaf.next;
+        }
+    }
+
+    /** Visit all entries whose key starts with the prefix */
+    public void scanPrefix(byte[] prefix, EntryVisitor visitor) {
+        scan(prefix, prefixEnd(prefix), visitor);
+    }
+
+    // =========================================================
+    //               Internal
+    // =========================================================
+
+    private static final class Split {
+        final byte[] separator;
+        final int rightPageId;
+
+        Split(byte[] separator, int rightPageId) {
+            this.separator = separator;
+            this.rightPageId = rightPageId;
+        }
+    }
+
+    private Split insert(int pageId, byte[] key, byte[] value) {
+        Node node = readNode(pageId);
+
+        if (node.leaf) {
+            int i = node.find(key);
+            if (i >= 0) {
+                node.values.set(i, value);
+            } else {
+                int at = -i - 1;
+                node.keys.add(at, key);
+                node.values.add(at, value);
+            }
+            if (node.encodedSize() <= PageFile.PAGE_SIZE) {
+                writeNode(pageId, node);
+                return null;
+            }
+            return splitLeaf(pageId, node);
+        }
+
+        int childIndex = node.childIndex(key);
+        Split childSplit = insert(node.children.get(childIndex), key, value);
+        if (childSplit == null) {
+            return null;
+        }
+        node.keys.add(childIndex, childSplit.separator);
+        node.children.add(childIndex + 1, childSplit.rightPageId);
+        if (node.encodedSize() <= PageFile.PAGE_SIZE) {
+            writeNode(pageId, node);
+            return null;
+        }
+        return splitInternal(pageId, node);
+    }
+
+    private Split splitLeaf(int pageId, Node node) {
+        int mid = node.splitPoint();
+        Node right = Node.leaf();
+        right.keys.addAll(node.keys.subList(mid, node.keys.size()));
+        right.values.addAll(node.values.subList(mid, node.values.size()));
+        node.keys.subList(mid, node.keys.size()).clear();
+        node.values.subList(mid, node.values.size()).clear();
+
+        right.next = node.next;
+        int rightPageId = writeNewNode(right);
+        node.next = rightPageId;
+        writeNode(pageId, node);
+        return new Split(right.keys.get(0), rightPageId);
+    }
+
+    private Split splitInternal(int pageId, Node node) {
+        int mid = node.splitPoint();
+        byte[] separator = node.keys.get(mid);
+
+        Node right = Node.internal();
+        right.keys.addAll(node.keys.subList(mid + 1, node.keys.size()));
+        right.children.addAll(node.children.subList(mid + 1, node.children.size()));
+        node.keys.subList(mid, node.keys.size()).clear();
+        node.children.subList(mid + 1, node.children.size()).clear();
+
+        int rightPageId = writeNewNode(right);
+        writeNode(pageId, node);
+        return new Split(separator, rightPageId);
+    }
+
+    private int findLeaf(byte[] key) {
+        int pageId = rootPageId;
+        while (true) {
+            Node node = readNode(pageId);
+            if (node.leaf) {
+                return pageId;
+            }
+            pageId = node.children.get(node.childIndex(key));
+        }
+    }
+
+    private int leftmostLeaf() {
+        int pageId = rootPageId;
+        while (true) {
+            Node node = readNode(pageId);
+            if (node.leaf) {
+                return pageId;
+            }
+            pageId = node.children.get(0);
+        }
+    }
+
+    private Node readNode(int pageId) {
+        try {
+            BufferPool.Frame frame = pool.pin(pageId);
+            try {
+                return Node.decode(frame.data());
+            } finally {
+                pool.unpin(frame, false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read page " + pageId, e);
+        }
+    }
+
+    private void writeNode(int pageId, Node node) {
+        try {
+            BufferPool.Frame frame = pool.pin(pageId);
+            node.encode(frame.data());
+            pool.unpin(frame, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write page " + pageId, e);
+        }
+    }
+
+    private int writeNewNode(Node node) {
+        try {
+            BufferPool.Frame frame = pool.allocate();
+            node.encode(frame.data());
+            pool.unpin(frame, true);
+            return frame.getPageId();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot allocate page", e);
+        }
+    }
+
+    static int compare(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    /** Smallest key greater than every key with this prefix, or null if there is none */
+    static byte[] prefixEnd(byte[] prefix) {
+        byte[] end = Arrays.copyOf(prefix, prefix.length);
+        for (int i = end.length - 1; i >= 0; i--) {
+            if (end[i] != (byte) 0xFF) {
+                end[i]++;
+                return Arrays.copyOf(end, i + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decoded node (a page is decoded on access and encoded back when modified)
+     */
+    private static final class Node {
+        final boolean leaf;
+        int next = -1;
+        final List<byte[]> keys = new ArrayList<>();
+        final List<byte[]> values;     // leaf only
+        final List<Integer> children;  // internal only: keys.size() + 1 entries
+
+        private Node(boolean leaf) {
+            this.leaf = leaf;
+            this.values = leaf ? new ArrayList<>() : null;
+            this.children = leaf ? null : new ArrayList<>();
+        }
+
+        static Node leaf() {
+            return new Node(true);
+        }
+
+        static Node internal() {
+            return new Node(false);
+        }
+
+        /** Index of the key, or (-(insertion point) - 1) */
+        int find(byte[] key) {
+            int lo = 0;
+            int hi = keys.size() - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compare(keys.get(mid), key);
+                if (c < 0) lo = mid + 1;
+                else if (c > 0) hi = mid - 1;
+                else return mid;
+            }
+            return -(lo + 1);
+        }
+
+        /** Child to descend into: number of separator keys <= key */
+        int childIndex(byte[] key) {
+            int i = find(key);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        int entrySize(int i) {
+            return leaf
+                    ? 2 + keys.get(i).length + 2 + values.get(i).length
+                    : 2 + keys.get(i).length + 4;
+        }
+
+        int encodedSize() {
+            int size = NODE_HEADER + (leaf ? 0 : 4);
+            for (int i = 0; i < keys.size(); i++) {
+                size += entrySize(i);
+            }
+            return size;
+        }
+
+        /** Split index by bytes, so both halves fit in a page */
+        int splitPoint() {
+            int total = encodedSize();
+            int acc = NODE_HEADER;
+            for (int i = 0; i < keys.size(); i++) {
+                acc += entrySize(i);
+                if (acc >= total / 2) {
+                    return Math.max(1, Math.min(i + 1, keys.size() - 1));
+                }
+            }
+            return keys.size() / 2;
+        }
+
+        void encode(ByteBuffer page) {
+            int p = 0;
+            page.put(p, leaf ? LEAF : INTERNAL);
+            page.putShort(p + 1, (short) keys.size());
+            page.putInt(p + 3, next);
+            p = NODE_HEADER;
+            if (!leaf) {
+                page.putInt(p, children.get(0));
+                p += 4;
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] key = keys.get(i);
+                page.putShort(p, (short) key.length);
+                p += 2;
+                page.put(p, key);
+                p += key.length;
+                if (leaf) {
+                    byte[] value = values.get(i);
+                    page.putShort(p, (short) value.length);
+                    p += 2;
+                    page.put(p, value);
+                    p += value.length;
+                } else {
+                    page.putInt(p, children.get(i + 1));
+                    p += 4;
+                }
+            }
+        }
+
+        static Node decode(ByteBuffer page) {
+            byte type = page.get(0);
+            if (type != LEAF && type != INTERNAL) {
+                throw new IllegalStateException("Not a B+ tree page (type " + type + ")");
+            }
+            Node node = new Node(type == LEAF);
+            int count = page.getShort(1) & 0xFFFF;
+            node.next = page.getInt(3);
+            int p = NODE_HEADER;
+            if (!node.leaf) {
+                node.children.add(page.getInt(p));
+                p += 4;
+            }
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[page.getShort(p) & 0xFFFF];
+                p += 2;
+                page.get(p, key);
+                p += key.length;
+                node.keys.add(key);
+                if (node.leaf) {
+                    byte[] value = new byte[page.getShort(p) & 0xFFFF];
+                    p += 2;
+                    page.get(p, value);
+                    p += value.length;
+                    node.values.add(value);
+                } else {
+                    node.children.add(page.getInt(p));
+                    p += 4;
+                }
+            }
+            return node;
+        }
+    }
+}
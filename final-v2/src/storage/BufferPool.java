@@ -0,0 +1,151 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Buffer pool: a fixed number of in-memory page frames in front of a PageFile
+ *
+ * - pin(pageId) returns the frame holding the page, reading it from disk on a miss
+ * - unpin(frame, dirty) releases it; dirty frames are written back by flush(), as one atomic
+ *   group (PageFile.writeAll)
+ * - eviction is LRU among unpinned clean frames; dirty frames stay in memory until the next
+ *   flush, so an unfinished change never reaches the file. Only when every unpinned frame is
+ *   dirty does eviction flush first (the storage engine flushes after every operation, which
+ *   dirties a handful of pages, so this only happens inside very large batches)
+ *
+ * Only the pages actually touched by lookups and scans are ever read, so the file can be
+ * much larger than memory.
+ */
+public class BufferPool {
+
+    /** One page in memory */
+    public static final class Frame {
+        private final int pageId;
+        private final ByteBuffer data = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+        private boolean dirty;
+        private int pins;
+
+        private Frame(int pageId) {
+            this.pageId = pageId;
+        }
+
+        public int getPageId() {
+            return pageId;
+        }
+
+        /** Page bytes (absolute get/put only; position and limit are not meaningful) */
+        public ByteBuffer data() {
+            return data;
+        }
+    }
+
+    private final PageFile file;
+    private final int capacity;
+
+    /** pageId → frame, in access order (least recently used first) */
+    private final LinkedHashMap<Integer, Frame> frames = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+    private long misses;
+
+    public BufferPool(PageFile file, int capacity) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("Buffer pool needs at least 4 frames: " + capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+    }
+
+    /** Get a page into memory and pin it (it cannot be evicted until unpinned) */
+    public synchronized Frame pin(int pageId) throws IOException {
+        Frame frame = frames.get(pageId);
+        if (frame != null) {
+            hits++;
+        } else {
+            misses++;
+            evictIfFull();
+            frame = new Frame(pageId);
+            file.read(pageId, frame.data);
+            frames.put(pageId, frame);
+        }
+        frame.pins++;
+        return frame;
+    }
+
+    /** Allocate a new zero-filled page, pinned and dirty */
+    public synchronized Frame allocate() throws IOException {
+        evictIfFull();
+        Frame frame = new Frame(file.allocate());
+        frame.dirty = true;
+        frame.pins = 1;
+        frames.put(frame.pageId, frame);
+        return frame;
+    }
+
+    /**
+     * Release a pinned page
+     * @param dirty true if the page was modified
+     */
+    public synchronized void unpin(Frame frame, boolean dirty) {
+        if (frame.pins <= 0) {
+            throw new IllegalStateException("Page " + frame.pageId + " is not pinned");
+        }
+        frame.pins--;
+        frame.dirty |= dirty;
+    }
+
+    /** Write all dirty pages back as one atomic group (fsynced) */
+    public synchronized void flush() throws IOException {
+        Map<Integer, ByteBuffer> dirty = new LinkedHashMap<>();
+        for (Frame frame : frames.values()) {
+            if (frame.dirty) {
+                dirty.put(frame.pageId, frame.data);
+            }
+        }
+        file.writeAll(dirty);
+        for (Frame frame : frames.values()) {
+            frame.dirty = false;
+        }
+    }
+
+    /** Number of pages in the file */
+    public int pageCount() {
+        return file.pageCount();
+    }
+
+    /** Fraction of pin() calls served from memory */
+    public synchronized double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : hits / (double) total;
+    }
+
+    private void evictIfFull() throws IOException {
+        if (frames.size() < capacity) {
+            return;
+        }
+        if (evictClean()) {
+            return;
+        }
+        flush();
+        if (!evictClean()) {
+            throw new IllegalStateException("Buffer pool exhausted: all " + capacity + " frames are pinned");
+        }
+    }
+
+    /** Drop the least recently used unpinned clean frame; false if there is none */
+    private boolean evictClean() {
+        Iterator<Map.Entry<Integer, Frame>> it = frames.entrySet().iterator();
+        while (it.hasNext()) {
+            Frame victim = it.next().getValue();
+            if (victim.pins == 0 && !victim.dirty) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,176 @@
+package storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Single file divided into fixed-size pages (page id × PAGE_SIZE = file offset)
+ *
+ * Only whole pages are read and written. New pages are appended at the end;
+ * a page that was allocated but never written reads as all zeros.
+ *
+ * Pages are written in atomic groups (writeAll) through a redo journal next to the file
+ * (path + "-journal"): the page images are written and forced to the journal, then to the
+ * file, then the journal is deleted. Opening the file replays a complete journal left by a
+ * crash and drops an incomplete one, so the file always holds whole groups.
+ *
+ * Journal layout: magic int, count int, count × (pageId int, PAGE_SIZE bytes), CRC32 long
+ */
+public class PageFile implements Closeable {
+
+    public static final int PAGE_SIZE = 8192;
+
+    private static final int JOURNAL_MAGIC = 0x504A524E; // "PJRN"
+
+    private final Path path;
+    private final Path journalPath;
+    private final FileChannel channel;
+    private int pageCount;
+
+    public PageFile(Path path) throws IOException {
+        this.path = path;
+        this.journalPath = Paths.get(path + "-journal");
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        long size = channel.size();
+        if (size % PAGE_SIZE != 0) {
+            channel.close();
+            throw new IOException("Damaged page file (size " + size + " is not a multiple of "
+                    + PAGE_SIZE + "): " + path);
+        }
+        this.pageCount = (int) (size / PAGE_SIZE);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /** Number of allocated pages */
+    public synchronized int pageCount() {
+        return pageCount;
+    }
+
+    /** Reserve a new page at the end of the file */
+    public synchronized int allocate() {
+        return pageCount++;
+    }
+
+    /** Read a page into dst (cleared first, PAGE_SIZE bytes) */
+    public void read(int pageId, ByteBuffer dst) throws IOException {
+        checkPage(pageId);
+        dst.clear();
+        long offset = (long) pageId * PAGE_SIZE;
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, offset + dst.position());
+            if (n < 0) {
+                // Allocated but not written yet
+                while (dst.hasRemaining()) dst.put((byte) 0);
+            }
+        }
+        dst.flip();
+    }
+
+    /**
+     * Write whole pages (the PAGE_SIZE bytes of each buffer, regardless of its position) as one
+     * atomic group: after a crash the file holds either all of them or none
+     */
+    public synchronized void writeAll(Map<Integer, ByteBuffer> pages) throws IOException {
+        if (pages.isEmpty()) {
+            return;
+        }
+        for (int pageId : pages.keySet()) {
+            checkPage(pageId);
+        }
+
+        ByteBuffer journal = ByteBuffer.allocate(8 + pages.size() * (4 + PAGE_SIZE) + 8);
+        journal.putInt(JOURNAL_MAGIC).putInt(pages.size());
+        for (Map.Entry<Integer, ByteBuffer> e : pages.entrySet()) {
+            ByteBuffer data = e.getValue().duplicate();
+            data.clear();
+            journal.putInt(e.getKey()).put(data);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(journal.array(), 0, journal.position());
+        journal.putLong(crc.getValue());
+        journal.flip();
+        try (FileChannel out = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (journal.hasRemaining()) {
+                out.write(journal);
+            }
+            out.force(true);
+        }
+
+        for (Map.Entry<Integer, ByteBuffer> e : pages.entrySet()) {
+            writePage(e.getKey(), e.getValue());
+        }
+        channel.force(true);
+        Files.delete(journalPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writePage(int pageId, ByteBuffer src) throws IOException {
+        ByteBuffer data = src.duplicate();
+        data.clear();
+        long offset = (long) pageId * PAGE_SIZE;
+        while (data.hasRemaining()) {
+            channel.write(data, offset + data.position());
+        }
+    }
+
+    /** Replay a complete journal left by a crash; drop an incomplete one */
+    private void recover() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(journalPath);
+        ByteBuffer journal = ByteBuffer.wrap(bytes);
+        int count = bytes.length >= 8 && journal.getInt(0) == JOURNAL_MAGIC ? journal.getInt(4) : -1;
+        long expected = 8 + (long) count * (4 + PAGE_SIZE) + 8;
+        boolean complete = count >= 0 && bytes.length == expected;
+        if (complete) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 8);
+            complete = crc.getValue() == journal.getLong(bytes.length - 8);
+        }
+        if (complete) {
+            int p = 8;
+            for (int i = 0; i < count; i++) {
+                int pageId = journal.getInt(p);
+                ByteBuffer page = ByteBuffer.wrap(bytes, p + 4, PAGE_SIZE).slice();
+                writePage(pageId, page);
+                p += 4 + PAGE_SIZE;
+            }
+            channel.force(true);
+            System.out.println("Storage journal replayed: " + count + " pages (" + path + ")");
+        } else {
+            // The crash came before the journal was complete: the file was not touched yet
+            System.err.println("Dropping incomplete storage journal: " + journalPath);
+        }
+        Files.delete(journalPath);
+    }
+
+    private void checkPage(int pageId) {
+        if (pageId < 0 || pageId >= pageCount()) {
+            throw new IllegalArgumentException("Page " + pageId + " out of range (pages: " + pageCount() + ")");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single-file storage engine: named B+ trees sharing one page file and one buffer pool
+ *
+ * Page 0 is the catalog: magic, version, page size, then (name, root page) per tree.
+ * flush() is the commit: the catalog (which records the current root of every tree) and
+ * every dirty page are written as one atomic group through the page file's journal, so a
+ * crash loses at most the changes made since the last flush and never leaves a tree half
+ * updated. Callers commit() after each complete operation, holding the engine's lock for
+ * the whole operation so that no commit can catch another caller's operation half done.
+ */
+public class StorageEngine implements Closeable {
+
+    private static final int MAGIC = 0x42505452; // "BPTR"
+    private static final int VERSION = 1;
+    private static final int CATALOG_PAGE = 0;
+
+    private final PageFile file;
+    private final BufferPool pool;
+    private final boolean created;
+
+    /** Open batches (beginBatch without endBatch); commit() waits for the outermost one */
+    private int batchDepth;
+
+    /** Tree name → tree, in catalog order */
+    private final Map<String, BPlusTree> trees = new LinkedHashMap<>();
+
+    /**
+     * Open or create a storage file
+     * @param poolPages Buffer pool size in pages (memory = poolPages × PAGE_SIZE)
+     */
+    public StorageEngine(Path path, int poolPages) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.file = new PageFile(path);
+        this.pool = new BufferPool(file, poolPages);
+        this.created = file.pageCount() == 0;
+
+        if (created) {
+            BufferPool.Frame catalog = pool.allocate();
+            pool.unpin(catalog, true);
+            writeCatalog();
+        } else {
+            readCatalog();
+        }
+    }
+
+    /** True if the file did not exist (or was empty) when opened */
+    public boolean isNew() {
+        return created;
+    }
+
+    /** Get a tree by name, creating an empty one if it does not exist */
+    public synchronized BPlusTree tree(String name) throws IOException {
+        BPlusTree tree = trees.get(name);
+        if (tree == null) {
+            tree = BPlusTree.create(pool);
+            trees.put(name, tree);
+            writeCatalog();
+        }
+        return tree;
+    }
+
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    /**
+     * End of one complete operation: flush(), unless a batch is open (the batch is then
+     * committed as a whole by its endBatch)
+     */
+    public synchronized void commit() throws IOException {
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
+    /** Group the following operations into one commit (bulk loads); pair with endBatch */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    /** Close a batch; closing the outermost one commits it */
+    public synchronized void endBatch() throws IOException {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            flush();
+        }
+    }
+
+    /** Write the catalog and all dirty pages as one atomic, fsynced group */
+    public synchronized void flush() throws IOException {
+        writeCatalog();
+        pool.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            file.close();
+        }
+    }
+
+    // =========================================================
+    //               Catalog
+    // =========================================================
+
+    private void readCatalog() throws IOException {
+        BufferPool.Frame frame = pool.pin(CATALOG_PAGE);
+        try {
+            ByteBuffer page = frame.data().duplicate();
+            page.clear();
+            if (page.getInt() != MAGIC) {
+                throw new IOException("Not a storage file: " + file.getPath());
+            }
+            int version = page.getInt();
+            int pageSize = page.getInt();
+            if (version != VERSION || pageSize != PageFile.PAGE_SIZE) {
+                throw new IOException("Unsupported storage file (version " + version
+                        + ", page size " + pageSize + "): " + file.getPath());
+            }
+            int count = page.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[page.getShort()];
+                page.get(name);
+                int root = page.getInt();
+                trees.put(new String(name, StandardCharsets.UTF_8), BPlusTree.open(pool, root));
+            }
+        } finally {
+            pool.unpin(frame, false);
+        }
+    }
+
+    private void writeCatalog() throws IOException {
+        BufferPool.Frame frame = pool.pin(CATALOG_PAGE);
+        ByteBuffer page = frame.data().duplicate();
+        page.clear();
+        page.putInt(MAGIC).putInt(VERSION).putInt(PageFile.PAGE_SIZE).putInt(trees.size());
+        for (Map.Entry<String, BPlusTree> e : trees.entrySet()) {
+            byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+            page.putShort((short) name.length).put(name).putInt(e.getValue().getRootPageId());
+        }
+        pool.unpin(frame, true);
+    }
+}
@@ -0,0 +1,80 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * Crash-safe file writes
+ *
+ * A full rewrite goes to a temp file in the same directory, is fsynced and then renamed over
+ * the target, so readers see either the old or the new file - never a half-written one.
+ * The directory is fsynced after the rename, so the new file is still there after a crash.
+ */
+public class AtomicFileUtil {
+
+    private AtomicFileUtil() {
+    }
+
+    /**
+     * Replace a file with the given lines atomically
+     * @param target File to replace (created if missing)
+     * @param lines Lines to write, each followed by a line separator
+     */
+    public static void writeLines(Path target, List<String> lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append(System.lineSeparator());
+        }
+        write(target, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replace a file with the given bytes atomically
+     * @param target File to replace (created if missing)
+     * @param data New content
+     */
+    public static void write(Path target, byte[] data) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+
+        try (FileChannel ch = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            ch.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // File system without atomic rename: fall back to a plain replace
+            System.err.println("WARNING: atomic rename not supported for " + target
+                    + ", replacing it non-atomically: " + e.getMessage());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(dir);
+    }
+
+    /**
+     * Fsync a directory, making a rename in it durable
+     * Platforms that cannot open a directory (Windows) are skipped: they persist renames themselves.
+     */
+    private static void forceDirectory(Path dir) throws IOException {
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileChannel c = ch) {
+            c.force(true);
+        }
+    }
+}
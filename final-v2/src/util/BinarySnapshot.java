@@ -0,0 +1,331 @@
+package util;
+
+import datastructure.StringDictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot of a CSV data file (e.g. data/bookings.csv → data/bookings.bin)
+ *
+ * The CSV stays the interchange / export format; the snapshot is a cache of its parsed content
+ * that loads without any text parsing:
+ * - fixed-width records (the layout of a record is defined by the caller, per kind)
+ * - UUIDs as two longs, dates as epoch-day ints, times as minute-of-day shorts, money as long cents
+ * - repeated strings (spaceId, type, building, status, ...) stored once in a dictionary table
+ *   and referenced by int code; rows decoded from the same code share one String instance
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   header:  magic int, version short, kind short, recordSize int,
+ *            sourceSize long, sourceModified long (microseconds), rows int, crc int
+ *   body:    dictionary count int, then per entry: length int + UTF-8 bytes
+ *            rows × recordSize bytes
+ * </pre>
+ * The snapshot remembers the size and modification time of the CSV it was built from, and is
+ * only used while they still match (or, for append-only files, while the CSV has only grown).
+ * The CRC32C over the body catches damaged files. Snapshots are written atomically.
+ */
+public final class BinarySnapshot {
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 8 + 8 + 4 + 4;
+
+    public static final short KIND_BOOKINGS = 1;
+    public static final short KIND_TRANSACTIONS = 2;
+    public static final short KIND_SPACES = 3;
+
+    /** Bytes taken by one id written with putId */
+    public static final int ID_BYTES = 17;
+
+    private static final byte ID_UUID = 0;
+    private static final byte ID_TEXT = 1;
+
+    private BinarySnapshot() {
+    }
+
+    /** Last-modified time of a file in microseconds (freshness check) */
+    public static long modifiedMicros(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).to(TimeUnit.MICROSECONDS);
+    }
+
+    // =========================================================
+    //               Writer
+    // =========================================================
+
+    /**
+     * Builds a snapshot in memory, one fixed-width record at a time:
+     * call row(), then exactly recordSize bytes worth of put* calls
+     */
+    public static final class Writer {
+        private final short kind;
+        private final int recordSize;
+        private final StringDictionary dictionary = new StringDictionary();
+        private ByteBuffer records;
+        private int rows;
+
+        public Writer(short kind, int recordSize, int expectedRows) {
+            this.kind = kind;
+            this.recordSize = recordSize;
+            this.records = ByteBuffer.allocate(Math.max(1, expectedRows) * recordSize);
+        }
+
+        /** Start the next record */
+        public Writer row() {
+            if (rows > 0 && records.position() != rows * recordSize) {
+                throw new IllegalStateException("Record " + (rows - 1) + " has "
+                        + (records.position() - (rows - 1) * recordSize) + " bytes, expected " + recordSize);
+            }
+            if (records.remaining() < recordSize) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(records.capacity() * 2, records.capacity() + recordSize));
+                records.flip();
+                bigger.put(records);
+                records = bigger;
+            }
+            rows++;
+            return this;
+        }
+
+        /** UUID text as two longs; any other id goes to the dictionary (ID_BYTES bytes either way) */
+        public Writer putId(String id) {
+            UUID uuid = parseUuid(id);
+            if (uuid != null) {
+                records.put(ID_UUID).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+            } else {
+                records.put(ID_TEXT).putInt(dictionary.encode(id)).putInt(0).putLong(0);
+            }
+            return this;
+        }
+
+        /** Dictionary-encoded string (4 bytes) */
+        public Writer putString(String value) {
+            records.putInt(dictionary.encode(value));
+            return this;
+        }
+
+        /** Date as epoch day (4 bytes) */
+        public Writer putDate(LocalDate date) {
+            records.putInt((int) date.toEpochDay());
+            return this;
+        }
+
+        /**
+         * Time as minute of day (2 bytes)
+         * @throws IllegalArgumentException if the time has seconds (not representable)
+         */
+        public Writer putTime(LocalTime time) {
+            if (time.getSecond() != 0 || time.getNano() != 0) {
+                throw new IllegalArgumentException("Time with seconds cannot be stored as minute of day: " + time);
+            }
+            records.putShort((short) (time.getHour() * 60 + time.getMinute()));
+            return this;
+        }
+
+        public Writer putByte(byte value) {
+            records.put(value);
+            return this;
+        }
+
+        public Writer putInt(int value) {
+            records.putInt(value);
+            return this;
+        }
+
+        public Writer putLong(long value) {
+            records.putLong(value);
+            return this;
+        }
+
+        public Writer putDouble(double value) {
+            records.putDouble(value);
+            return this;
+        }
+
+        /**
+         * Write the snapshot atomically
+         * @param snapshot Snapshot file
+         * @param sourceSize Size of the CSV the rows came from
+         * @param sourceModified Last-modified time of that CSV (microseconds)
+         */
+        public void writeTo(Path snapshot, long sourceSize, long sourceModified) throws IOException {
+            row(); // validates the last record
+            rows--;
+
+            byte[][] encoded = new byte[dictionary.size()][];
+            int dictionaryBytes = 4;
+            for (int code = 0; code < encoded.length; code++) {
+                String value = dictionary.decode(code);
+                encoded[code] = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+                dictionaryBytes += 4 + encoded[code].length;
+            }
+
+            int recordBytes = rows * recordSize;
+            ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + dictionaryBytes + recordBytes);
+            out.position(HEADER_BYTES);
+            out.putInt(encoded.length);
+            for (byte[] bytes : encoded) {
+                out.putInt(bytes.length).put(bytes);
+            }
+            out.put(records.array(), 0, recordBytes);
+
+            CRC32C crc = new CRC32C();
+            crc.update(out.array(), HEADER_BYTES, out.position() - HEADER_BYTES);
+
+            out.position(0);
+            out.putInt(MAGIC).putShort(VERSION).putShort(kind).putInt(recordSize)
+                    .putLong(sourceSize).putLong(sourceModified).putInt(rows).putInt((int) crc.getValue());
+
+            AtomicFileUtil.write(snapshot, out.array());
+        }
+    }
+
+    // =========================================================
+    //               Reader
+    // =========================================================
+
+    /**
+     * Sequential reader over the records of a snapshot
+     * Each record is read with the get* calls matching the put* calls used to write it
+     */
+    public static final class Reader {
+        private final ByteBuffer buf;
+        private final String[] dictionary;
+        private final int rows;
+        private final long sourceSize;
+
+        private Reader(ByteBuffer buf, String[] dictionary, int rows, long sourceSize) {
+            this.buf = buf;
+            this.dictionary = dictionary;
+            this.rows = rows;
+            this.sourceSize = sourceSize;
+        }
+
+        /**
+         * Open a snapshot if it is usable for the given CSV
+         * @param appendOnly true if the CSV is only ever appended to: the snapshot is then also
+         *                   accepted when the CSV has grown (it covers the first sourceSize() bytes)
+         * @return Reader, or null if the snapshot is missing, stale, of another kind/version or damaged
+         */
+        public static Reader open(Path snapshot, Path source, short kind, int recordSize, boolean appendOnly) {
+            try {
+                if (!Files.exists(snapshot) || !Files.exists(source)) {
+                    return null;
+                }
+                ByteBuffer buf = CsvTokenizer.readBuffer(snapshot);
+                if (buf.remaining() < HEADER_BYTES
+                        || buf.getInt() != MAGIC || buf.getShort() != VERSION
+                        || buf.getShort() != kind || buf.getInt() != recordSize) {
+                    return null;
+                }
+                long sourceSize = buf.getLong();
+                long sourceModified = buf.getLong();
+                int rows = buf.getInt();
+                int expectedCrc = buf.getInt();
+
+                long currentSize = Files.size(source);
+                boolean fresh = appendOnly
+                        ? currentSize >= sourceSize
+                        : currentSize == sourceSize && modifiedMicros(source) == sourceModified;
+                if (!fresh) {
+                    return null;
+                }
+
+                CRC32C crc = new CRC32C();
+                crc.update(buf.duplicate());
+                if ((int) crc.getValue() != expectedCrc) {
+                    System.err.println("Ignoring damaged snapshot: " + snapshot);
+                    return null;
+                }
+
+                String[] dictionary = new String[buf.getInt()];
+                byte[] scratch = new byte[64];
+                for (int code = 0; code < dictionary.length; code++) {
+                    int length = buf.getInt();
+                    if (scratch.length < length) {
+                        scratch = new byte[length];
+                    }
+                    buf.get(scratch, 0, length);
+                    dictionary[code] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+                if (buf.remaining() != (long) rows * recordSize) {
+                    return null;
+                }
+                return new Reader(buf, dictionary, rows, sourceSize);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("ERROR reading snapshot " + snapshot + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        /** Number of records */
+        public int rows() {
+            return rows;
+        }
+
+        /** Bytes of the CSV covered by this snapshot */
+        public long sourceSize() {
+            return sourceSize;
+        }
+
+        public String getId() {
+            byte tag = buf.get();
+            if (tag == ID_UUID) {
+                return new UUID(buf.getLong(), buf.getLong()).toString();
+            }
+            String id = dictionary[buf.getInt()];
+            buf.position(buf.position() + 12);
+            return id;
+        }
+
+        public String getString() {
+            return dictionary[buf.getInt()];
+        }
+
+        public LocalDate getDate() {
+            return LocalDate.ofEpochDay(buf.getInt());
+        }
+
+        public LocalTime getTime() {
+            int minuteOfDay = buf.getShort();
+            return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+        }
+
+        public byte getByte() {
+            return buf.get();
+        }
+
+        public int getInt() {
+            return buf.getInt();
+        }
+
+        public long getLong() {
+            return buf.getLong();
+        }
+
+        public double getDouble() {
+            return buf.getDouble();
+        }
+    }
+
+    /** UUID.fromString, but only for canonical lower/upper-case 36-char text (so it round-trips exactly) */
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package util;
+
+import adt.HashTableADT;
+import datastructure.ChainingHashTable;
+import model.Booking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Off-heap archive of past bookings (data/bookings-archive.bin)
+ *
+ * Bookings dated before the archive boundary live in a memory-mapped file instead of the heap:
+ * the OS pages them in when analytics scans them and can drop them again, so heap size and GC
+ * work follow the active bookings only. Records are fixed-width and found by scanning; only
+ * matching records are decoded into (short-lived) Booking objects. The exceptions are two small
+ * indexes built when the file is opened: bookingId → row, so one booking is found without a
+ * scan, and userId → rows, so a user's history is read without scanning the whole file.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   header:  magic int, version short, recordSize short, archivedBefore int (epoch day), rows int
+ *   record:  flags byte, bookingId 16, userId 16, spaceId 16, status 16,
+ *            date int (epoch day), startTime short, endTime short (minute of day)
+ * </pre>
+ * Ids are stored as the two longs of their UUID, or (flagged) as UTF-8 text of up to 16 bytes;
+ * spaceId and status are UTF-8 text of up to 16 bytes, zero-padded. Removed records are flagged.
+ *
+ * Crash safety: records are written and forced before the header that counts them, so a crash
+ * leaves at most unreferenced bytes past the last row. Appends can be split in two: stage()
+ * does the disk work (records written and forced, still invisible), publish() makes them
+ * visible in memory, so the owner can publish under its own lock and remove the rows from its
+ * cache at the same moment. setStatus() and publish() change the mapped file without forcing
+ * it; force() makes them durable. addMissing() is idempotent by bookingId,
+ * so re-archiving a booking after a crash (e.g. still in the CSV or the log) never duplicates it,
+ * and it keeps the archived record: once archived, a booking only changes here (setStatus), so
+ * a copy left in the CSV or the log is never newer than the record.
+ */
+public class BookingArchive implements Closeable {
+
+    private static final int MAGIC = 0x41524348; // "ARCH"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 4;
+
+    private static final int FIELD_BYTES = 16;
+    private static final int FLAGS = 0;
+    private static final int BOOKING_ID = 1;
+    private static final int USER_ID = BOOKING_ID + FIELD_BYTES;
+    private static final int SPACE_ID = USER_ID + FIELD_BYTES;
+    private static final int STATUS = SPACE_ID + FIELD_BYTES;
+    private static final int DATE = STATUS + FIELD_BYTES;
+    private static final int START = DATE + 4;
+    private static final int END = START + 2;
+    private static final int RECORD_BYTES = END + 2;
+
+    private static final byte DELETED = 1;
+    private static final byte TEXT_BOOKING_ID = 2;
+    private static final byte TEXT_USER_ID = 4;
+
+    /** Records mapped when the file is created (the mapping doubles when full) */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** archivedBefore of an archive that holds no boundary yet */
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int rows;
+    private int archivedBefore = NONE;
+
+    /** Records written past the last row by stage(), not yet visible (see publish) */
+    private int staged;
+
+    /** userId → rows of that user's live records, in row order */
+    private HashTableADT<String, List<Integer>> userRows = new ChainingHashTable<>();
+
+    /** bookingId → row of its live record */
+    private HashTableADT<String, Integer> idRows = new ChainingHashTable<>();
+
+    public BookingArchive(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Open (or create) and map the archive file; no effect if already open
+     * @throws IOException if the file cannot be mapped or is not an archive of this version
+     */
+    public synchronized void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (ch.size() < HEADER_BYTES) {
+                map = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) INITIAL_CAPACITY * RECORD_BYTES);
+                rows = 0;
+                archivedBefore = NONE;
+                writeHeader();
+                map.force();
+            } else {
+                map = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+                if (map.getInt(0) != MAGIC || map.getShort(4) != VERSION || map.getShort(6) != RECORD_BYTES) {
+                    throw new IOException("Not a booking archive (or unsupported version): " + path);
+                }
+                archivedBefore = map.getInt(8);
+                rows = map.getInt(12);
+                if (rows < 0 || HEADER_BYTES + (long) rows * RECORD_BYTES > map.capacity()) {
+                    throw new IOException("Damaged booking archive (" + rows + " rows): " + path);
+                }
+            }
+            userRows = new ChainingHashTable<>();
+            idRows = new ChainingHashTable<>();
+            for (int row = 0; row < rows; row++) {
+                if ((map.get(offset(row) + FLAGS) & DELETED) == 0) {
+                    indexRow(row);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            map = null;
+            ch.close();
+            throw e;
+        }
+        channel = ch;
+    }
+
+    public synchronized boolean isOpen() {
+        return channel != null;
+    }
+
+    /** Records in the archive (including removed ones) */
+    public synchronized int size() {
+        return rows;
+    }
+
+    /** Every booking dated before this day belongs in the archive; null if nothing was archived yet */
+    public synchronized LocalDate getArchivedBefore() {
+        return archivedBefore == NONE ? null : LocalDate.ofEpochDay(archivedBefore);
+    }
+
+    /** True if bookings on this date belong in the archive */
+    public synchronized boolean covers(LocalDate date) {
+        return channel != null && archivedBefore != NONE && date != null && date.toEpochDay() < archivedBefore;
+    }
+
+    /** True if a booking fits the fixed-width record (short ids and strings, whole-minute times) */
+    public static boolean canStore(Booking b) {
+        return b.getBookingId() != null && (parseUuid(b.getBookingId()) != null || fits(b.getBookingId()))
+                && b.getUserId() != null && (parseUuid(b.getUserId()) != null || fits(b.getUserId()))
+                && b.getSpaceId() != null && fits(b.getSpaceId())
+                && b.getStatus() != null && fits(b.getStatus())
+                && b.getDate() != null && wholeMinute(b.getStartTime()) && wholeMinute(b.getEndTime());
+    }
+
+    // =========================================================
+    //               Write
+    // =========================================================
+
+    /**
+     * Append bookings that are not in the archive yet and move the boundary forward
+     * Records are forced to disk before the header that makes them visible.
+     * @param list Bookings to archive (each must pass canStore)
+     * @param before New boundary; ignored if not after the current one
+     */
+    public synchronized void append(List<Booking> list, LocalDate before) throws IOException {
+        stage(list);
+        publish(before);
+        force();
+    }
+
+    /**
+     * Write bookings past the last row and force them, without making them visible yet
+     * Replaces records staged before and not published.
+     * @param list Bookings to archive (each must pass canStore)
+     */
+    public synchronized void stage(List<Booking> list) throws IOException {
+        checkOpen();
+        staged = 0;
+        ensureCapacity(rows + list.size());
+        for (int i = 0; i < list.size(); i++) {
+            writeRecord(rows + i, list.get(i));
+        }
+        map.force();
+        staged = list.size();
+    }
+
+    /**
+     * Make the staged records visible and move the boundary forward (memory only: the header
+     * reaches the disk with the next force)
+     * @param before New boundary, or null; ignored if not after the current one
+     */
+    public synchronized void publish(LocalDate before) {
+        for (int i = 0; i < staged; i++) {
+            indexRow(rows + i);
+        }
+        rows += staged;
+        staged = 0;
+        if (before != null && (archivedBefore == NONE || before.toEpochDay() > archivedBefore)) {
+            archivedBefore = (int) before.toEpochDay();
+        }
+        writeHeader();
+    }
+
+    /** Force published records and status changes to disk (no effect if not open) */
+    public synchronized void force() {
+        if (map != null) {
+            map.force();
+        }
+    }
+
+    /**
+     * Append the bookings that are not archived yet (the last entry wins for repeated ids);
+     * bookings already archived keep their record, which is the newer state (see class comment)
+     * Time Complexity: O(k) for k bookings (id index lookups)
+     */
+    public synchronized void addMissing(List<Booking> list) throws IOException {
+        List<Booking> missing = missing(list);
+        if (!missing.isEmpty()) {
+            append(missing, null);
+        }
+    }
+
+    /**
+     * The bookings of the list that are not archived yet (the last entry wins for repeated ids)
+     * Time Complexity: O(k) for k bookings (id index lookups)
+     */
+    public synchronized List<Booking> missing(List<Booking> list) throws IOException {
+        checkOpen();
+        Map<String, Booking> latest = new LinkedHashMap<>();
+        for (Booking b : list) {
+            if (!canStore(b)) {
+                throw new IllegalArgumentException("Booking does not fit an archive record: " + b.getBookingId());
+            }
+            if (find(b.getBookingId()) < 0) {
+                latest.put(b.getBookingId(), b);
+            }
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Change the status of an archived booking (in the mapping; durable after the next force)
+     * @return false if the booking is not in the archive
+     */
+    public synchronized boolean setStatus(String bookingId, String status) throws IOException {
+        checkOpen();
+        int row = find(bookingId);
+        if (row < 0) {
+            return false;
+        }
+        if (!fits(status)) {
+            throw new IllegalArgumentException("Status too long for the archive: " + status);
+        }
+        putText(offset(row) + STATUS, status);
+        return true;
+    }
+
+    /**
+     * Remove an archived booking (the record is flagged, not reclaimed)
+     * @return false if the booking is not in the archive
+     */
+    public synchronized boolean delete(String bookingId) throws IOException {
+        checkOpen();
+        int row = find(bookingId);
+        if (row < 0) {
+            return false;
+        }
+        unindexRow(row);
+        int off = offset(row);
+        map.put(off + FLAGS, (byte) (map.get(off + FLAGS) | DELETED));
+        map.force();
+        return true;
+    }
+
+    // =========================================================
+    //               Query
+    // =========================================================
+
+    /**
+     * Archived bookings of a space, optionally on one date and without a given status
+     * Only matching records are decoded; the comparison runs on the mapped bytes.
+     * @param spaceId Space, or null for any space
+     * @param date Date, or null for any date
+     * @param excludedStatus Status to leave out (e.g. Booking.RELEASED), or null
+     */
+    public synchronized List<Booking> select(String spaceId, LocalDate date, String excludedStatus) {
+        return scan(spaceId, date, excludedStatus);
+    }
+
+    /**
+     * Archived bookings of a user, ordered by date and start time
+     * Time Complexity: O(k log k) for k archived bookings of the user (read through the user index)
+     */
+    public synchronized List<Booking> selectByUser(String userId) {
+        List<Booking> result = new ArrayList<>();
+        List<Integer> userRowList = channel != null && userId != null ? userRows.get(userId) : null;
+        if (userRowList == null) {
+            return result;
+        }
+        for (int row : userRowList) {
+            result.add(readRecord(offset(row)));
+        }
+        result.sort(Comparator.comparing(Booking::getDate).thenComparing(Booking::getStartTime));
+        return result;
+    }
+
+    /**
+     * Date of a user's latest archived booking, or null if the user has none
+     * Time Complexity: O(k) over the date field of the user's k records (nothing is decoded)
+     */
+    public synchronized LocalDate latestDate(String userId) {
+        List<Integer> userRowList = channel != null && userId != null ? userRows.get(userId) : null;
+        if (userRowList == null || userRowList.isEmpty()) {
+            return null;
+        }
+        int latest = Integer.MIN_VALUE;
+        for (int row : userRowList) {
+            latest = Math.max(latest, map.getInt(offset(row) + DATE));
+        }
+        return LocalDate.ofEpochDay(latest);
+    }
+
+    /** Matching live records, decoded (null arguments match anything) */
+    private List<Booking> scan(String spaceId, LocalDate date, String excludedStatus) {
+        List<Booking> result = new ArrayList<>();
+        if (channel == null || (spaceId != null && !fits(spaceId))) {
+            return result;
+        }
+        long spaceHi = 0, spaceLo = 0;
+        if (spaceId != null) {
+            ByteBuffer key = textKey(spaceId);
+            spaceHi = key.getLong(0);
+            spaceLo = key.getLong(8);
+        }
+        long statusHi = 0, statusLo = 0;
+        boolean excludeStatus = excludedStatus != null && fits(excludedStatus);
+        if (excludeStatus) {
+            ByteBuffer key = textKey(excludedStatus);
+            statusHi = key.getLong(0);
+            statusLo = key.getLong(8);
+        }
+        int day = date != null ? (int) date.toEpochDay() : 0;
+
+        for (int row = 0; row < rows; row++) {
+            int off = offset(row);
+            byte flags = map.get(off + FLAGS);
+            if ((flags & DELETED) != 0
+                    || (date != null && map.getInt(off + DATE) != day)
+                    || (spaceId != null && (map.getLong(off + SPACE_ID) != spaceHi
+                                            || map.getLong(off + SPACE_ID + 8) != spaceLo))
+                    || (excludeStatus && map.getLong(off + STATUS) == statusHi
+                                      && map.getLong(off + STATUS + 8) == statusLo)) {
+                continue;
+            }
+            result.add(readRecord(off));
+        }
+        return result;
+    }
+
+    /** All archived bookings, in archive order */
+    public List<Booking> all() {
+        return select(null, null, null);
+    }
+
+    /** Archived booking by id, or null */
+    public synchronized Booking get(String bookingId) {
+        if (channel == null) {
+            return null;
+        }
+        int row = find(bookingId);
+        return row >= 0 ? readRecord(offset(row)) : null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            map.force();
+            channel.close();
+            channel = null;
+            map = null;
+            userRows = new ChainingHashTable<>();
+            idRows = new ChainingHashTable<>();
+            staged = 0;
+        }
+    }
+
+    // =========================================================
+    //               Internal
+    // =========================================================
+
+    /** Row of a live record with this bookingId, or -1 */
+    private int find(String bookingId) {
+        Integer row = bookingId == null ? null : idRows.get(bookingId);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Add a record's row to the id index and to its user's list
+     * (rows are indexed in increasing order, except on overwrite)
+     */
+    private void indexRow(int row) {
+        int off = offset(row);
+        idRows.put(getId(off + BOOKING_ID, (map.get(off + FLAGS) & TEXT_BOOKING_ID) != 0), row);
+        String userId = getId(off + USER_ID, (map.get(off + FLAGS) & TEXT_USER_ID) != 0);
+        List<Integer> list = userRows.get(userId);
+        if (list == null) {
+            list = new ArrayList<>();
+            userRows.put(userId, list);
+        }
+        if (list.isEmpty() || list.get(list.size() - 1) < row) {
+            list.add(row);
+        } else {
+            int pos = Collections.binarySearch(list, row);
+            if (pos < 0) {
+                list.add(-pos - 1, row);
+            }
+        }
+    }
+
+    /** Remove a record's row from the id index and its user's list (before the record changes) */
+    private void unindexRow(int row) {
+        int off = offset(row);
+        idRows.remove(getId(off + BOOKING_ID, (map.get(off + FLAGS) & TEXT_BOOKING_ID) != 0));
+        String userId = getId(off + USER_ID, (map.get(off + FLAGS) & TEXT_USER_ID) != 0);
+        List<Integer> list = userRows.get(userId);
+        if (list != null) {
+            int pos = Collections.binarySearch(list, row);
+            if (pos >= 0) {
+                list.remove(pos);
+            }
+        }
+    }
+
+    private void writeRecord(int row, Booking b) {
+        if (!canStore(b)) {
+            throw new IllegalArgumentException("Booking does not fit an archive record: " + b.getBookingId());
+        }
+        int off = offset(row);
+        byte flags = 0;
+        flags |= putId(off + BOOKING_ID, b.getBookingId()) ? 0 : TEXT_BOOKING_ID;
+        flags |= putId(off + USER_ID, b.getUserId()) ? 0 : TEXT_USER_ID;
+        map.put(off + FLAGS, flags);
+        putText(off + SPACE_ID, b.getSpaceId());
+        putText(off + STATUS, b.getStatus());
+        map.putInt(off + DATE, (int) b.getDate().toEpochDay());
+        map.putShort(off + START, minute(b.getStartTime()));
+        map.putShort(off + END, minute(b.getEndTime()));
+    }
+
+    private Booking readRecord(int off) {
+        byte flags = map.get(off + FLAGS);
+        return new Booking(
+                getId(off + BOOKING_ID, (flags & TEXT_BOOKING_ID) != 0),
+                getId(off + USER_ID, (flags & TEXT_USER_ID) != 0),
+                getText(off + SPACE_ID),
+                LocalDate.ofEpochDay(map.getInt(off + DATE)),
+                time(map.getShort(off + START)),
+                time(map.getShort(off + END)),
+                getText(off + STATUS)
+        );
+    }
+
+    /** @return true if written as UUID longs, false if written as text */
+    private boolean putId(int off, String id) {
+        UUID uuid = parseUuid(id);
+        if (uuid == null) {
+            putText(off, id);
+            return false;
+        }
+        map.putLong(off, uuid.getMostSignificantBits());
+        map.putLong(off + 8, uuid.getLeastSignificantBits());
+        return true;
+    }
+
+    private String getId(int off, boolean text) {
+        return text ? getText(off) : new UUID(map.getLong(off), map.getLong(off + 8)).toString();
+    }
+
+    private void putText(int off, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < FIELD_BYTES; i++) {
+            map.put(off + i, i < bytes.length ? bytes[i] : 0);
+        }
+    }
+
+    private String getText(int off) {
+        int length = 0;
+        while (length < FIELD_BYTES && map.get(off + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        map.get(off, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Zero-padded text field as a buffer (compared as two longs) */
+    private static ByteBuffer textKey(String value) {
+        ByteBuffer key = ByteBuffer.allocate(FIELD_BYTES);
+        key.put(value.getBytes(StandardCharsets.UTF_8));
+        return key;
+    }
+
+    private static boolean fits(String value) {
+        if (value == null || value.isEmpty() || value.indexOf('\0') >= 0) {
+            return false;
+        }
+        return value.getBytes(StandardCharsets.UTF_8).length <= FIELD_BYTES;
+    }
+
+    private static boolean wholeMinute(LocalTime time) {
+        return time != null && time.getSecond() == 0 && time.getNano() == 0;
+    }
+
+    private static short minute(LocalTime time) {
+        return (short) (time.getHour() * 60 + time.getMinute());
+    }
+
+    private static LocalTime time(short minute) {
+        return LocalTime.of(minute / 60, minute % 60);
+    }
+
+    /** UUID, only for canonical lower-case text (so ids read back unchanged) */
+    private static UUID parseUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private int offset(int row) {
+        return HEADER_BYTES + row * RECORD_BYTES;
+    }
+
+    private void writeHeader() {
+        map.putInt(0, MAGIC);
+        map.putShort(4, VERSION);
+        map.putShort(6, (short) RECORD_BYTES);
+        map.putInt(8, archivedBefore);
+        map.putInt(12, rows);
+    }
+
+    /** Grow the mapping (and the file) so it holds at least this many records */
+    private void ensureCapacity(int records) throws IOException {
+        long needed = HEADER_BYTES + (long) records * RECORD_BYTES;
+        if (needed <= map.capacity()) {
+            return;
+        }
+        long capacity = map.capacity();
+        while (capacity < needed) {
+            capacity = capacity * 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Booking archive full: " + path);
+        }
+        map.force();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void checkOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("Booking archive not open: " + path);
+        }
+    }
+}
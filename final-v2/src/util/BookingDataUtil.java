@@ -1,148 +1,997 @@
 package util;
 
+import adt.HashTableADT;
+import datastructure.BookingColumnStore;
+import datastructure.ChainingHashTable;
 import model.Booking;
 
 import java.io.*;
 import java.nio.file.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
 
+/**
+ * In-memory booking cache backed by data/bookings.csv
+ *
+ * Changes are not written by rewriting bookings.csv: each one is applied to the cache and
+ * queued for data/bookings.wal on a write-behind queue, whose writer thread appends coalesced
+ * batches (one fsync per batch), so callers such as the UI thread never wait for the disk.
+ * The CSV is rewritten by a checkpoint (temp file + fsync + atomic rename), always on the writer
+ * thread: once the log holds CHECKPOINT_THRESHOLD records, when a load replayed the log, and at
+ * shutdown. flush() is the barrier for callers that need their changes on disk.
+ *
+ * The cache is a BookingColumnStore (packed primitive columns); the Booking objects handed out
+ * are read-only flyweight views of its rows, so they reflect later status changes (also across
+ * compaction and reloads, while the booking stays in the cache). Their setters throw - change
+ * bookings through updateBookingStatus and friends, which log and re-index the change.
+ * A userId index (rows ordered by date) serves "my bookings" pages without scanning the cache,
+ * and a status index partitions the rows by status and space, so the booking-time queries only
+ * iterate live (not released) bookings of one space and date.
+ *
+ * A background sweeper (every SWEEP_MINUTES) marks "booked" bookings whose time has passed as
+ * "completed", moves released bookings dated before today to the archive, runs the archive
+ * horizon and compacts the cache once removed rows outnumber live ones, so released and
+ * completed bookings leave the heap on schedule rather than only at checkpoints.
+ *
+ * Tiering: bookings dated more than ARCHIVE_DAYS days ago (released ones: before today) are moved
+ * off the heap into a memory-mapped BookingArchive by the sweeper and at each checkpoint (and
+ * leave bookings.csv). Listing queries
+ * (getAllBookings, getBookingsBySpaceId, getBookingsBySpaceIdAndDate) include archived bookings,
+ * as read-only copies; the slot lookups and releases only see active (today and later) bookings.
+ * Archive moves write and force the archive outside the class lock (see moveToArchive), and a
+ * status change of an archived booking only touches the mapping, with the force done by a
+ * background thread, so the UI thread does not wait for the archive either.
+ */
 public class BookingDataUtil {
 
     private static final String BOOKING_FILE = "data/bookings.csv";
+    private static final String HEADER = "bookingId,userId,spaceId,date,startTime,endTime,status";
 
-    /** Memory Cache */
-    private static final List<Booking> bookings = new ArrayList<>();
+    /** Write-ahead log of changes not yet checkpointed into BOOKING_FILE */
+    private static final WriteAheadLog log = new WriteAheadLog(Paths.get("data/bookings.wal"));
 
-    static {
-        loadBookings();
+    /** Checkpoint once the log holds this many records */
+    private static final int CHECKPOINT_THRESHOLD = 256;
+
+    /** Length of one bookable time slot */
+    public static final int SLOT_MINUTES = 30;
+
+    /** Write a batch early once this many bookings are waiting */
+    private static final int MAX_PENDING = 512;
+
+    /** Changed bookings waiting for the log (latest record per bookingId) */
+    private static final WriteBehindQueue writes = new WriteBehindQueue(
+            "booking-writer", log, BookingDataUtil::checkpoint, CHECKPOINT_THRESHOLD, MAX_PENDING);
+
+    /** Binary snapshot of BOOKING_FILE, preferred at load while it matches the CSV */
+    private static final String BOOKING_SNAPSHOT = "data/bookings.bin";
+
+    /** Snapshot record: bookingId, userId, spaceId, date, startTime, endTime, status */
+    private static final int SNAPSHOT_RECORD = BinarySnapshot.ID_BYTES * 2 + 4 + 4 + 2 + 2 + 4;
+
+    /** Off-heap tier for bookings older than ARCHIVE_DAYS (see archivePast) */
+    private static final BookingArchive archive = new BookingArchive(Paths.get("data/bookings-archive.bin"));
+
+    /** Bookings dated more than this many days ago are archived; negative turns archiving off */
+    private static final int ARCHIVE_DAYS = Integer.getInteger("booking.archive.days", 30);
+
+    /** Minutes between two runs of the booking sweeper; 0 or less turns it off */
+    private static final long SWEEP_MINUTES = Long.getLong("booking.sweep.minutes", 5);
+
+    /** Background sweeper (started with the first load) */
+    private static ScheduledExecutorService sweeper;
+
+    /**
+     * Held for a whole archive move (sweep, checkpoint) and by reload, so one move runs at a time
+     * and the cache is not replaced underneath it; always taken before the class lock
+     */
+    private static final Object archiveMove = new Object();
+
+    /** Rows being copied to the archive outside the class lock (see moveToArchive, rowForChange) */
+    private static final Set<Integer> movingRows = new HashSet<>();
+
+    /** Forces archived status changes to disk off the caller's thread (see changeArchivedStatus) */
+    private static final ExecutorService archiveSync = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "booking-archive-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Whether a force is already queued on archiveSync (later changes ride along) */
+    private static final AtomicBoolean archiveSyncQueued = new AtomicBoolean();
+
+    /** Memory Cache (filled on first use, see ensureLoaded; replaced by a compacted copy, see compactStore) */
+    private static BookingColumnStore bookings = new BookingColumnStore();
+
+    /** Compact the cache once it holds this many removed rows and at least as many as live ones */
+    private static final int MIN_COMPACT_ROWS = 256;
+
+    // ========== User Index (userId, date) - "my bookings" in O(log k + page) ==========
+    /** HashTable indexed by userId → that user's live rows sorted by (date, startTime, row) */
+    private static HashTableADT<String, List<Integer>> userIndex = new ChainingHashTable<>();
+
+    /** Order of the user index; the row number makes every key unique */
+    private static final Comparator<Integer> ROW_ORDER = (a, b) -> {
+        int c = Integer.compare(bookings.getEpochDay(a), bookings.getEpochDay(b));
+        if (c == 0) c = Integer.compare(bookings.getStartMinute(a), bookings.getStartMinute(b));
+        return c != 0 ? c : Integer.compare(a, b);
+    };
+
+    // ========== Status Index (status, spaceId, date) - hot queries skip released bookings ==========
+    /** Status (canonical instance) → HashTable indexed by spaceId → rows sorted by (date, startTime, row) */
+    private static Map<String, HashTableADT<String, List<Integer>>> statusIndex = new LinkedHashMap<>();
+
+    /** Same order for Booking objects (merging active and archived bookings) */
+    private static final Comparator<Booking> BOOKING_ORDER =
+            Comparator.comparing(Booking::getDate).thenComparing(Booking::getStartTime);
+    // ========================================================
+
+    /** Whether the CSV has been read into the cache */
+    private static boolean loaded = false;
+
+    /** Whether the shutdown flush is registered */
+    private static boolean shutdownHookAdded = false;
+
+    /**
+     * Read the CSV on first use instead of in a static initializer,
+     * so touching the class (e.g. from a controller's imports) does no file I/O
+     */
+    private static synchronized void ensureLoaded() {
+        if (!loaded) {
+            loadBookings();
+        }
     }
 
-    /** Load CSV */
+    /** Load CSV, then replay the write-ahead log on top of it */
     public static void loadBookings() {
-        bookings.clear();
+        synchronized (BookingDataUtil.class) {
+            if (!loaded) {
+                readBookings(); // nothing can be queued before the first load
+                return;
+            }
+        }
+        reloadBookings();
+    }
+
+    /**
+     * Rebuild a loaded cache from the files
+     * The writer thread is parked first (outside the class lock: a checkpoint it is running takes
+     * that lock), then no archive move may be running; the class lock then blocks further changes
+     * while the queued ones are written and the files are read, so the new cache misses nothing
+     * and no checkpoint truncates the log underneath the replay.
+     */
+    private static void reloadBookings() {
+        if (!writes.pause()) {
+            return;
+        }
+        try {
+            synchronized (archiveMove) {
+                synchronized (BookingDataUtil.class) {
+                    if (!writes.writePending()) {
+                        System.err.println("ERROR reloading bookings: queued changes could not be logged (cache kept)");
+                        return;
+                    }
+                    readBookings();
+                }
+            }
+        } finally {
+            writes.resume();
+        }
+    }
+
+    private static void readBookings() {
+        bookings = bookings.cleared();
+        userIndex = new ChainingHashTable<>();
+        statusIndex = new LinkedHashMap<>();
+        loaded = true;
+
+        if (!shutdownHookAdded) {
+            shutdownHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                writes.close();
+                forceArchive();
+            }, "booking-writer-shutdown"));
+        }
+        startSweeper();
+
+        try {
+            archive.open();
+        } catch (IOException e) {
+            // Keep everything on the heap rather than risk the archived data
+            System.err.println("ERROR opening booking archive (archiving disabled): " + e.getMessage());
+            e.printStackTrace();
+        }
 
         try {
             Path path = Paths.get(BOOKING_FILE);
+            List<Booking> past = new ArrayList<>();
 
             if (!Files.exists(path)) {
-                Files.createDirectories(path.getParent());
-                Files.createFile(path);
+                AtomicFileUtil.writeLines(path, Collections.singletonList(HEADER));
+            } else if (!loadSnapshot(path, past)) {
+                // Memory-mapped, chunked and parsed in parallel for large files
+                for (Booking b : ParallelCsvLoader.load(path, "bookingId", BookingDataUtil::parseBooking)) {
+                    append(b.getBookingId(), b.getUserId(), b.getSpaceId(),
+                            b.getDate(), b.getStartTime(), b.getEndTime(), b.getStatus(), past);
+                }
+                writeSnapshot(path);
+            }
+
+            boolean replayed = replayLog(past);
+            archiveLoaded(past);
+            completeEnded();
+            int evicted = evictReleased();
+            if (replayed || !past.isEmpty() || evicted > 0 || archivePast() > 0) {
+                writes.requestCheckpoint(); // runs once the class lock is released
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Booking from a CSV record, or null if the record is too short */
+    private static Booking parseBooking(CsvTokenizer csv) {
+        if (csv.fieldCount() < 7) return null;
+
+        return new Booking(
+                csv.getString(0),
+                csv.getString(1),
+                csv.getString(2),
+                csv.getDate(3),
+                csv.getTime(4),
+                csv.getTime(5),
+                csv.getString(6)
+        );
+    }
+
+    /** Fill the cache from the binary snapshot; false if there is no usable snapshot */
+    private static boolean loadSnapshot(Path csv, List<Booking> past) {
+        BinarySnapshot.Reader r = BinarySnapshot.Reader.open(
+                Paths.get(BOOKING_SNAPSHOT), csv, BinarySnapshot.KIND_BOOKINGS, SNAPSHOT_RECORD, false);
+        if (r == null) {
+            return false;
+        }
+        for (int i = 0; i < r.rows(); i++) {
+            append(
+                    r.getId(),      // bookingId
+                    r.getId(),      // userId
+                    r.getString(),  // spaceId
+                    r.getDate(),    // date
+                    r.getTime(),    // startTime
+                    r.getTime(),    // endTime
+                    r.getString(),  // status
+                    past
+            );
+        }
+        return true;
+    }
+
+    /**
+     * Add a loaded booking to the cache; skipped (with a message) if it cannot be stored
+     * @param past Collects bookings dated inside the archive (left in the CSV by an interrupted checkpoint)
+     */
+    private static void append(String bookingId, String userId, String spaceId, LocalDate date,
+                               LocalTime startTime, LocalTime endTime, String status, List<Booking> past) {
+        if (archive.covers(date)) {
+            past.add(new Booking(bookingId, userId, spaceId, date, startTime, endTime, status));
+            return;
+        }
+        try {
+            indexRow(bookings.append(bookingId, userId, spaceId, date, startTime, endTime, status));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error loading booking " + bookingId + ": " + e.getMessage());
+        }
+    }
+
+    /** Rewrite the binary snapshot from the cache, stamped with the CSV's size and modification time */
+    private static void writeSnapshot(Path csv) {
+        writeSnapshot(snapshotOf(bookings.liveRows()), csv);
+    }
+
+    /** Snapshot content of the given rows of the cache (built in memory) */
+    private static BinarySnapshot.Writer snapshotOf(int[] rows) {
+        BinarySnapshot.Writer w = new BinarySnapshot.Writer(
+                BinarySnapshot.KIND_BOOKINGS, SNAPSHOT_RECORD, rows.length);
+        for (int row : rows) {
+            w.row().putId(bookings.getBookingId(row))
+                    .putId(bookings.getUserId(row))
+                    .putString(bookings.getSpaceId(row))
+                    .putDate(bookings.getDate(row))
+                    .putTime(bookings.getStartTime(row))
+                    .putTime(bookings.getEndTime(row))
+                    .putString(bookings.getStatus(row));
+        }
+        return w;
+    }
+
+    private static void writeSnapshot(BinarySnapshot.Writer w, Path csv) {
+        try {
+            w.writeTo(Paths.get(BOOKING_SNAPSHOT), Files.size(csv), BinarySnapshot.modifiedMicros(csv));
+        } catch (IOException | RuntimeException e) {
+            // Not fatal: the CSV is parsed again next time
+            System.err.println("ERROR writing booking snapshot: " + e.getMessage());
+        }
+    }
+
+    // =========================================================
+    //               Write-ahead log / checkpoint
+    // =========================================================
 
-                try (PrintWriter pw = new PrintWriter(new FileWriter(BOOKING_FILE))) {
-                    pw.println("bookingId,userId,spaceId,date,startTime,endTime,status");
+    /** CSV line of a booking, with the given status */
+    private static String toCsvLine(Booking b, String status) {
+        return String.join(",",
+                b.getBookingId(),
+                b.getUserId(),
+                b.getSpaceId(),
+                b.getDate().toString(),
+                b.getStartTime().toString(),
+                b.getEndTime().toString(),
+                status
+        );
+    }
+
+    /** Queue the current state of a booking for the log */
+    private static void logUpsert(Booking b) {
+        writes.put(b.getBookingId(), WriteAheadLog.record(WriteAheadLog.UPSERT, toCsvLine(b, b.getStatus())));
+    }
+
+    private static void changeStatus(int row, String newStatus) {
+        // Move the row to its new status partition
+        removeSorted(statusList(row, false), row);
+        bookings.setStatus(row, newStatus);
+        insertSorted(statusList(row, true), row);
+        logUpsert(bookings.view(row));
+    }
+
+    /**
+     * Block until all changes made so far are on disk (in the write-ahead log, or in the archive
+     * for archived bookings)
+     * @return false if the log could not be written (the changes stay queued and are retried)
+     *         or the archive could not be forced
+     */
+    public static boolean flush() {
+        boolean logged = writes.flush();
+        return forceArchive() && logged;
+    }
+
+    /**
+     * Apply the records left in the log by the last run (upsert / delete by bookingId)
+     * Records of bookings dated inside the archive go to past, unless the booking is still active.
+     * @return true if anything was replayed (the caller folds it into the CSV with a checkpoint)
+     */
+    private static boolean replayLog(List<Booking> past) throws IOException {
+        List<String> records = log.recover();
+        if (records.isEmpty()) {
+            return false;
+        }
+
+        Map<String, Integer> rowById = new HashMap<>();
+        for (int row : bookings.liveRows()) {
+            rowById.put(bookings.getBookingId(row), row);
+        }
+        for (String record : records) {
+            String body = WriteAheadLog.body(record);
+            if (WriteAheadLog.op(record) == WriteAheadLog.DELETE) {
+                Integer row = rowById.remove(body);
+                if (row != null) {
+                    removeRow(row);
+                } else {
+                    past.removeIf(b -> b.getBookingId().equals(body));
+                    if (archive.isOpen()) {
+                        archive.delete(body);
+                    }
                 }
-                return;
+                continue;
+            }
+            CsvTokenizer csv = CsvTokenizer.of(body);
+            Booking b = csv.next() ? parseBooking(csv) : null;
+            if (b == null) {
+                System.err.println("Error parsing booking log record: " + body);
+                continue;
             }
+            try {
+                Integer row = rowById.get(b.getBookingId());
+                if (row != null) {
+                    replaceRow(row, b);
+                } else if (archive.covers(b.getDate())) {
+                    past.add(b);
+                } else {
+                    rowById.put(b.getBookingId(), addRow(b));
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error parsing booking log record: " + body + " (" + e.getMessage() + ")");
+            }
+        }
 
-            List<String> lines = Files.readAllLines(path);
+        System.out.println("Booking log replayed: " + records.size() + " records");
+        return true;
+    }
 
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
+    // =========================================================
+    //               Row changes (store + user / status indexes)
+    // =========================================================
 
-                if (i == 0 && line.contains("bookingId")) continue;
-                if (line.isBlank()) continue;
+    /** Append a booking to the cache and the user index */
+    private static int addRow(Booking b) {
+        int row = bookings.append(b);
+        indexRow(row);
+        return row;
+    }
 
-                String[] arr = line.split(",");
-                if (arr.length < 7) continue;
+    /** Remove a row from the indexes and the cache */
+    private static void removeRow(int row) {
+        unindexRow(row);
+        bookings.delete(row);
+    }
+
+    /** Overwrite a row (its user or date may change, so it is re-indexed) */
+    private static void replaceRow(int row, Booking b) {
+        unindexRow(row);
+        bookings.set(row, b);
+        indexRow(row);
+    }
+
+    /** Add a row to its user's list and its (status, space) partition */
+    private static void indexRow(int row) {
+        String userId = bookings.getUserId(row);
+        List<Integer> rows = userIndex.get(userId);
+        if (rows == null) {
+            rows = new ArrayList<>();
+            userIndex.put(userId, rows);
+        }
+        insertSorted(rows, row);
+        insertSorted(statusList(row, true), row);
+    }
 
-                Booking b = new Booking(
-                        arr[0],
-                        arr[1],
-                        arr[2],
-                        LocalDate.parse(arr[3]),
-                        LocalTime.parse(arr[4]),
-                        LocalTime.parse(arr[5]),
-                        arr[6]
-                );
+    /** Remove a row from both indexes (before its columns change) */
+    private static void unindexRow(int row) {
+        removeSorted(userIndex.get(bookings.getUserId(row)), row);
+        removeSorted(statusList(row, false), row);
+    }
 
-                bookings.add(b);
+    /** The (status, space) partition list of a row; null if it does not exist and create is false */
+    private static List<Integer> statusList(int row, boolean create) {
+        String status = bookings.getStatus(row);
+        HashTableADT<String, List<Integer>> bySpace = statusIndex.get(status);
+        if (bySpace == null) {
+            if (!create) {
+                return null;
             }
+            bySpace = new ChainingHashTable<>();
+            statusIndex.put(status, bySpace);
+        }
+        String spaceId = bookings.getSpaceId(row);
+        List<Integer> rows = bySpace.get(spaceId);
+        if (rows == null && create) {
+            rows = new ArrayList<>();
+            bySpace.put(spaceId, rows);
+        }
+        return rows;
+    }
 
-        } catch (Exception e) {
+    /**
+     * Insert into a list sorted by ROW_ORDER
+     * Time Complexity: O(1) for the usual case (latest date goes to the end),
+     * O(log k) search + O(k) shift otherwise
+     */
+    private static void insertSorted(List<Integer> rows, int row) {
+        int last = rows.size() - 1;
+        if (last < 0 || ROW_ORDER.compare(rows.get(last), row) < 0) {
+            rows.add(row);
+            return;
+        }
+        int pos = Collections.binarySearch(rows, row, ROW_ORDER);
+        if (pos < 0) {
+            rows.add(-pos - 1, row);
+        }
+    }
+
+    /** Remove from a list sorted by ROW_ORDER (no effect if absent or null) - O(log k + k) */
+    private static void removeSorted(List<Integer> rows, int row) {
+        if (rows == null) {
+            return;
+        }
+        int pos = Collections.binarySearch(rows, row, ROW_ORDER);
+        if (pos >= 0) {
+            rows.remove(pos);
+        }
+    }
+
+    /**
+     * Rows of one status partition for a space, on one date or all dates (a copy, so callers may
+     * change rows while iterating) - O(log k + m)
+     */
+    private static List<Integer> rowsOf(String status, String spaceId, LocalDate date) {
+        HashTableADT<String, List<Integer>> bySpace = statusIndex.get(status);
+        List<Integer> rows = bySpace != null ? bySpace.get(spaceId) : null;
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+        if (date == null) {
+            return new ArrayList<>(rows);
+        }
+        int day = (int) date.toEpochDay();
+        return new ArrayList<>(rows.subList(firstOnOrAfter(rows, day), firstOnOrAfter(rows, day + 1)));
+    }
+
+    /** Live (not released) rows of a space, on one date or all dates, sorted by ROW_ORDER */
+    private static List<Integer> liveRows(String spaceId, LocalDate date) {
+        List<Integer> result = new ArrayList<>();
+        int partitions = 0;
+        for (String status : statusIndex.keySet()) {
+            if (status != Booking.RELEASED) {
+                List<Integer> rows = rowsOf(status, spaceId, date);
+                if (!rows.isEmpty()) {
+                    result.addAll(rows);
+                    partitions++;
+                }
+            }
+        }
+        if (partitions > 1) {
+            result.sort(ROW_ORDER);
+        }
+        return result;
+    }
+
+    private static List<Booking> viewsOf(List<Integer> rows) {
+        List<Booking> result = new ArrayList<>(rows.size());
+        for (int row : rows) {
+            result.add(bookings.view(row));
+        }
+        return result;
+    }
+
+    /** Position of the first row in a user's list dated on or after the day */
+    private static int firstOnOrAfter(List<Integer> rows, int epochDay) {
+        int lo = 0, hi = rows.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bookings.getEpochDay(rows.get(mid)) < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // =========================================================
+    //               Sweeper
+    // =========================================================
+
+    /** Start the background sweeper once (no effect if SWEEP_MINUTES is 0 or less) */
+    private static void startSweeper() {
+        if (sweeper != null || SWEEP_MINUTES <= 0) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "booking-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(BookingDataUtil::sweep, SWEEP_MINUTES, SWEEP_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * One sweep: complete bookings that have ended, move past released ones and old ones to the
+     * archive (the archive writes run outside the class lock), then compact the cache if removed
+     * rows have piled up
+     * Released bookings already left the "booked" partition when they were released; the sweep
+     * catches the bookings whose time has passed since the last run.
+     */
+    private static void sweep() {
+        try {
+            int completed;
+            int evicted;
+            int archived;
+            synchronized (archiveMove) {
+                synchronized (BookingDataUtil.class) {
+                    if (!loaded) {
+                        return;
+                    }
+                    completed = completeEnded();
+                }
+                evicted = evictReleased();
+                archived = archivePast();
+                synchronized (BookingDataUtil.class) {
+                    compactStore();
+                }
+            }
+            if (completed > 0 || evicted > 0 || archived > 0) {
+                System.out.println("Booking sweep: " + completed + " completed, " + evicted + " released moved, "
+                        + archived + " archived");
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive (an exception would cancel later runs)
+            System.err.println("ERROR in booking sweep: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Mark "booked" bookings whose end time has passed as "completed" (logged like any status change)
+     * Time Complexity: O(e + t) over the "booked" partition of the status index: each space's rows
+     * are sorted by date, so only the e ended bookings and the t booked today are visited
+     * @return Number of bookings completed
+     */
+    private static int completeEnded() {
+        HashTableADT<String, List<Integer>> bySpace = statusIndex.get(Booking.BOOKED);
+        if (bySpace == null) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int today = (int) now.toLocalDate().toEpochDay();
+        int minute = now.getHour() * 60 + now.getMinute();
+
+        List<Integer> ended = new ArrayList<>();
+        for (List<Integer> rows : bySpace.values()) {
+            for (int row : rows) {
+                int day = bookings.getEpochDay(row);
+                if (day > today) {
+                    break;
+                }
+                if (day < today || bookings.getEndMinute(row) <= minute) {
+                    ended.add(row);
+                }
+            }
+        }
+        for (int row : ended) {
+            changeStatus(row, Booking.COMPLETED);
+        }
+        return ended.size();
+    }
+
+    /**
+     * Move released bookings dated before today to the archive, ahead of the ARCHIVE_DAYS horizon
+     * No slot query reads them and they no longer change, so they leave the cache and both
+     * indexes (see moveToArchive). addMissing semantics absorb a copy loaded again from the CSV
+     * or the log after a crash.
+     * Time Complexity: O(r) over the "released" partition of the status index
+     * @return Number of bookings moved
+     */
+    private static int evictReleased() {
+        List<Integer> rows = new ArrayList<>();
+        List<Booking> moved = new ArrayList<>();
+        synchronized (BookingDataUtil.class) {
+            HashTableADT<String, List<Integer>> bySpace = statusIndex.get(Booking.RELEASED);
+            if (!loaded || ARCHIVE_DAYS < 0 || !archive.isOpen() || bySpace == null) {
+                return 0;
+            }
+            int today = (int) LocalDate.now().toEpochDay();
+            for (List<Integer> spaceRows : bySpace.values()) {
+                for (int row : spaceRows) {
+                    if (bookings.getEpochDay(row) >= today) {
+                        break;
+                    }
+                    Booking b = copyOf(row);
+                    if (BookingArchive.canStore(b)) {
+                        rows.add(row);
+                        moved.add(b);
+                    }
+                }
+            }
+            if (moved.isEmpty()) {
+                return 0;
+            }
+            movingRows.addAll(rows);
+        }
+        return moveToArchive(rows, moved, null, true);
+    }
+
+    /**
+     * Reclaim removed rows once they are at least MIN_COMPACT_ROWS and outnumber the live ones:
+     * the cache is replaced by a compacted copy and both indexes are rebuilt
+     * Views handed out before follow their bookings to the new copy.
+     * Time Complexity: O(n log k)
+     */
+    private static void compactStore() {
+        int removed = bookings.size() - bookings.liveCount();
+        if (removed < Math.max(bookings.liveCount(), MIN_COMPACT_ROWS)) {
+            return;
+        }
+        bookings = bookings.compacted();
+        userIndex = new ChainingHashTable<>();
+        statusIndex = new LinkedHashMap<>();
+        for (int row = 0; row < bookings.size(); row++) {
+            indexRow(row);
+        }
+        System.out.println("Booking cache compacted: " + removed + " removed rows reclaimed");
+    }
+
+    // =========================================================
+    //               Archive (off-heap tier)
+    // =========================================================
+
+    /**
+     * Store loaded bookings that belong in the archive (idempotent by bookingId); a booking
+     * already archived keeps its record, since archived status changes (changeArchivedStatus)
+     * are never in the CSV or the log. If the archive cannot be written they stay in the cache instead.
+     */
+    private static void archiveLoaded(List<Booking> past) {
+        if (past.isEmpty()) {
+            return;
+        }
+        try {
+            archive.addMissing(past);
+            System.out.println("Bookings moved to archive at load: " + past.size());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERROR archiving bookings (kept in memory): " + e.getMessage());
             e.printStackTrace();
+            for (Booking b : past) {
+                try {
+                    addRow(b);
+                } catch (IllegalArgumentException invalid) {
+                    System.err.println("Error loading booking " + b.getBookingId() + ": " + invalid.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Move active bookings dated more than ARCHIVE_DAYS days ago to the archive (see moveToArchive)
+     * The archive is forced to disk before the rows leave the cache, so a crash before the
+     * following CSV rewrite only leaves copies that archiveLoaded() absorbs.
+     * Bookings that do not fit an archive record stay in the cache.
+     * @return Number of bookings moved
+     */
+    private static int archivePast() {
+        LocalDate before;
+        List<Integer> rows = new ArrayList<>();
+        List<Booking> moved = new ArrayList<>();
+        synchronized (BookingDataUtil.class) {
+            if (!loaded || ARCHIVE_DAYS < 0 || !archive.isOpen()) {
+                return 0;
+            }
+            before = LocalDate.now().minusDays(ARCHIVE_DAYS);
+            int day = (int) before.toEpochDay();
+            for (int row : bookings.liveRows()) {
+                if (bookings.getEpochDay(row) < day) {
+                    if (bookings.hasStatus(row, Booking.BOOKED)) {
+                        changeStatus(row, Booking.COMPLETED); // archived bookings have all ended
+                    }
+                    Booking b = copyOf(row);
+                    if (BookingArchive.canStore(b)) {
+                        rows.add(row);
+                        moved.add(b);
+                    }
+                }
+            }
+            if (moved.isEmpty() && archive.covers(before.minusDays(1))) {
+                return 0; // boundary already there
+            }
+            movingRows.addAll(rows);
+        }
+
+        int count = moveToArchive(rows, moved, before, false);
+        if (count > 0) {
+            System.out.println("Bookings archived: " + count + " (before " + before + ")");
         }
+        return count;
     }
 
-    /** Save CSV */
-    private static void saveBookings() {
+    /**
+     * Second half of an archive move, for rows selected under the class lock and put in movingRows
+     * Called with archiveMove held: the records are written and forced outside the class lock
+     * (stage), then made visible and removed from the cache in one step under it (publish), so
+     * readers see each booking exactly once, in the cache or in the archive. A change to a moving
+     * row waits until the move is over (rowForChange). At load the whole move runs under the
+     * class lock, which the loader holds anyway.
+     * @param before Archive boundary to publish, or null
+     * @param onlyMissing Skip bookings that are archived already (see BookingArchive.addMissing)
+     * @return Number of bookings moved (0 if the archive write failed: the rows stay in the cache)
+     */
+    private static int moveToArchive(List<Integer> rows, List<Booking> moved, LocalDate before, boolean onlyMissing) {
+        boolean staged = false;
         try {
-            java.nio.file.Path path = java.nio.file.Paths.get(BOOKING_FILE);
-            java.nio.file.Files.createDirectories(path.getParent());
-            
-            try (PrintWriter pw = new PrintWriter(new FileWriter(BOOKING_FILE))) {
-                pw.println("bookingId,userId,spaceId,date,startTime,endTime,status");
-
-                for (Booking b : bookings) {
-                    pw.println(String.join(",",
-                            b.getBookingId(),
-                            b.getUserId(),
-                            b.getSpaceId(),
-                            b.getDate().toString(),
-                            b.getStartTime().toString(),
-                            b.getEndTime().toString(),
-                            b.getStatus()
-                    ));
+            archive.stage(onlyMissing ? archive.missing(moved) : moved);
+            staged = true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERROR archiving bookings (kept in memory): " + e.getMessage());
+            e.printStackTrace();
+        }
+        synchronized (BookingDataUtil.class) {
+            if (staged) {
+                archive.publish(before);
+                for (int row : rows) {
+                    removeRow(row);
                 }
             }
-            System.out.println("Bookings saved to: " + BOOKING_FILE + " (count: " + bookings.size() + ")");
+            movingRows.clear();
+            BookingDataUtil.class.notifyAll();
+        }
+        if (!staged) {
+            return 0;
+        }
+        forceArchive();
+        return rows.size();
+    }
+
+    /**
+     * Row of a booking about to be changed (found by the given lookup), or -1
+     * Called under the class lock. While the row is being moved to the archive this waits
+     * (releasing the lock) and looks again, so the change then goes to the archived record;
+     * moves only pick old or past released bookings, so it practically never waits.
+     */
+    private static int rowForChange(IntSupplier lookup) {
+        int row = lookup.getAsInt();
+        boolean interrupted = false;
+        while (row >= 0 && movingRows.contains(row)) {
+            try {
+                BookingDataUtil.class.wait();
+            } catch (InterruptedException e) {
+                interrupted = true; // the change must still be applied
+            }
+            row = lookup.getAsInt();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return row;
+    }
+
+    /** Detached copy of a row (views read the live cache, which the move may change meanwhile) */
+    private static Booking copyOf(int row) {
+        return new Booking(bookings.getBookingId(row), bookings.getUserId(row), bookings.getSpaceId(row),
+                bookings.getDate(row), bookings.getStartTime(row), bookings.getEndTime(row),
+                bookings.getStatus(row));
+    }
+
+    /** Force archived records and status changes to disk; false (with the error printed) if that failed */
+    private static boolean forceArchive() {
+        try {
+            archive.force();
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("ERROR syncing booking archive: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Status change of a booking that is not active (no effect if it is not archived either)
+     * Written to the archive only: the archived record is the booking's latest state, and older
+     * copies left in the CSV or the log do not overwrite it at load (see archiveLoaded).
+     * The record changes in the mapping right away; the force runs on archiveSync, so the
+     * caller does not wait for the disk (flush() waits for it).
+     */
+    private static void changeArchivedStatus(String bookingId, String newStatus) {
+        if (!archive.isOpen()) {
+            return;
+        }
+        try {
+            if (archive.setStatus(bookingId, newStatus) && archiveSyncQueued.compareAndSet(false, true)) {
+                archiveSync.execute(() -> {
+                    archiveSyncQueued.set(false);
+                    forceArchive();
+                });
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERROR updating archived booking " + bookingId + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rewrite bookings.csv from the cache (temp file + fsync + atomic rename), empty the log
+     * and refresh the binary snapshot
+     *
+     * Runs on the writer thread only (load asks for it with requestCheckpoint), so no append can
+     * slip in between taking the content and emptying the log. Old bookings are moved to the
+     * archive first (its writes outside the class lock, see moveToArchive); then the content is
+     * taken under the class lock and the file writes happen outside it, so the cache stays usable
+     * meanwhile. Changes made after the content was taken are still queued and reach the
+     * (emptied) log afterwards.
+     */
+    private static void checkpoint() {
+        synchronized (archiveMove) {
+            archivePast();
+        }
+        List<String> lines;
+        BinarySnapshot.Writer snapshot;
+        synchronized (BookingDataUtil.class) {
+            if (!loaded) {
+                return;
+            }
+            int[] rows = bookings.liveRows();
+            lines = new ArrayList<>(rows.length + 1);
+            lines.add(HEADER);
+            for (int row : rows) {
+                Booking b = bookings.view(row);
+                lines.add(toCsvLine(b, b.getStatus()));
+            }
+            snapshot = snapshotOf(rows);
+        }
+
+        try {
+            Path path = Paths.get(BOOKING_FILE);
+            log.checkpoint(path, lines);
+            writeSnapshot(snapshot, path);
+            System.out.println("Bookings checkpointed to: " + BOOKING_FILE + " (count: " + (lines.size() - 1) + ")");
         } catch (IOException e) {
             System.err.println("ERROR saving bookings: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-
-    /** Add booking */
-    public static void addBooking(Booking b) {
+    /**
+     * Add booking
+     * The cache stores a copy: later changes to b itself are not seen (use updateBookingStatus)
+     */
+    public static synchronized void addBooking(Booking b) {
+        ensureLoaded();
         if (b == null) {
             System.err.println("ERROR: Cannot add null booking!");
             return;
         }
         System.out.println("Adding booking: " + b.getBookingId() + ", userId: " + b.getUserId() + ", spaceId: " + b.getSpaceId());
-        bookings.add(b);
-        saveBookings();
-        System.out.println("Booking saved. Total bookings: " + bookings.size());
+        try {
+            addRow(b);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR adding booking " + b.getBookingId() + ": " + e.getMessage());
+            return;
+        }
+        logUpsert(b);
+        System.out.println("Booking saved. Total bookings: " + bookings.liveCount());
     }
 
     /** Release booking */
-    public static void releaseBooking(String bookingId) {
-        for (Booking b : bookings) {
-            if (b.getBookingId().equals(bookingId)) {
-                b.setStatus("released");
-                break;
-            }
+    public static synchronized void releaseBooking(String bookingId) {
+        ensureLoaded();
+        int row = rowForChange(() -> bookings.find(bookingId));
+        if (row >= 0) {
+            changeStatus(row, Booking.RELEASED);
+        } else {
+            changeArchivedStatus(bookingId, Booking.RELEASED);
         }
-        saveBookings();
     }
 
-    /** Get all bookings */
-    public static List<Booking> getAllBookings() {
-        return Collections.unmodifiableList(bookings);
+    /** Booking by id: the active view, else the archived copy; null if unknown */
+    public static synchronized Booking getBookingById(String bookingId) {
+        ensureLoaded();
+        int row = bookings.find(bookingId);
+        return row >= 0 ? bookings.view(row) : archive.get(bookingId);
+    }
+
+    /**
+     * Get all bookings: archived ones (read-only copies) followed by the active ones
+     * (views of the cache, in insertion order)
+     */
+    public static synchronized List<Booking> getAllBookings() {
+        ensureLoaded();
+        List<Booking> result = archive.all();
+        result.addAll(bookings.views(bookings.liveRows()));
+        return Collections.unmodifiableList(result);
     }
 
     /** Get bookings for a space on a specific date */
-    public static List<Booking> getBookingsBySpaceIdAndDate(String spaceId, LocalDate date) {
-        List<Booking> result = new ArrayList<>();
-        for (Booking b : bookings) {
-            // ❗ FIXED: Original string comparison error -> now comparing LocalDate directly
-            if (b.getSpaceId().equals(spaceId)
-                    && b.getDate().equals(date)
-                    && !"released".equalsIgnoreCase(b.getStatus())) {
-                result.add(b);
-            }
+    public static synchronized List<Booking> getBookingsBySpaceIdAndDate(String spaceId, LocalDate date) {
+        ensureLoaded();
+        List<Booking> result = viewsOf(liveRows(spaceId, date));
+        if (archive.covers(date)) {
+            result.addAll(archive.select(spaceId, date, Booking.RELEASED));
         }
         return result;
     }
 
     /** Check if time is occupied */
-    public static boolean isOccupied(String spaceId, LocalDate date, LocalTime start, LocalTime end) {
-        for (Booking b : bookings) {
-            if (b.getSpaceId().equals(spaceId)
-                    && b.getDate().equals(date)
-                    && !"released".equalsIgnoreCase(b.getStatus())
-                    && b.overlaps(date, start, end)) {
+    public static synchronized boolean isOccupied(String spaceId, LocalDate date, LocalTime start, LocalTime end) {
+        ensureLoaded();
+        // Compare in seconds of the day: column times are whole minutes, the arguments may not be
+        int startSecond = start.toSecondOfDay();
+        int endSecond = end.toSecondOfDay();
+        for (int row : liveRows(spaceId, date)) {
+            if (bookings.getStartMinute(row) * 60 < endSecond
+                    && bookings.getEndMinute(row) * 60 > startSecond) {
                 return true;
             }
         }
@@ -153,148 +1002,281 @@ public class BookingDataUtil {
     // ============================================================
     //  ✅ NEW: Universal booking status update method
     // ============================================================
-    public static void updateBookingStatus(String bookingId, String newStatus) {
-        // ⭐ FIX: Replace allBookings -> use bookings field
-        for (Booking b : bookings) {
-            if (b.getBookingId().equals(bookingId)) {
-                b.setStatus(newStatus);
-                break;
-            }
+    public static synchronized void updateBookingStatus(String bookingId, String newStatus) {
+        ensureLoaded();
+        int row = rowForChange(() -> bookings.find(bookingId));
+        if (row >= 0) {
+            changeStatus(row, newStatus);
+        } else {
+            changeArchivedStatus(bookingId, newStatus);
         }
-
-        // ⭐ FIX: saveAllBookings -> use saveBookings()
-        saveBookings();
     }
     
-    public static void releaseBookingBySpaceTime(String spaceId, LocalDate date, LocalTime time) {
-        for (Booking b : bookings) {
-            if (b.getSpaceId().equals(spaceId)
-                    && b.getDate().equals(date)
-                    && !b.getStatus().equalsIgnoreCase("released")
-                    && !time.isBefore(b.getStartTime())
-                    && time.isBefore(b.getEndTime())) {
-                b.setStatus("released");
-                break;
-            }
+    public static synchronized void releaseBookingBySpaceTime(String spaceId, LocalDate date, LocalTime time) {
+        ensureLoaded();
+        int row = rowForChange(() -> rowCovering(spaceId, date, time));
+        if (row >= 0) {
+            changeStatus(row, Booking.RELEASED);
         }
-        saveBookings();
     }
  // BookingDataUtil.java
-    public static Booking getBookingBySpaceTime(String spaceId, LocalDate date, LocalTime time) {
-        return bookings.stream()
-            .filter(b -> b.getSpaceId().equals(spaceId)
-                      && b.getDate().equals(date)
-                      && b.getStartTime().equals(time)
-                      && b.getStatus().equals("booked"))
-            .findFirst()
-            .orElse(null);
+    public static synchronized Booking getBookingBySpaceTime(String spaceId, LocalDate date, LocalTime time) {
+        ensureLoaded();
+        int second = time.toSecondOfDay();
+        for (int row : rowsOf(Booking.BOOKED, spaceId, date)) {
+            if (bookings.getStartMinute(row) * 60 == second) {
+                return bookings.view(row);
+            }
+        }
+        return null;
     }
     
     
-    public static Booking getBookingCoveringSlot(String spaceId, LocalDate date, LocalTime slotStart) {
-        for (Booking b : bookings) {
-            if (b.getSpaceId().equals(spaceId)
-                    && b.getDate().equals(date)
-                    && !"released".equalsIgnoreCase(b.getStatus())
-                    && !slotStart.isBefore(b.getStartTime())
-                    && slotStart.isBefore(b.getEndTime())) {
-                return b;
+    public static synchronized Booking getBookingCoveringSlot(String spaceId, LocalDate date, LocalTime slotStart) {
+        ensureLoaded();
+        int row = rowCovering(spaceId, date, slotStart);
+        return row >= 0 ? bookings.view(row) : null;
+    }
+
+    /** First non-released booking of a space whose [start, end) contains the time, or -1 */
+    private static int rowCovering(String spaceId, LocalDate date, LocalTime time) {
+        int second = time.toSecondOfDay();
+        for (int row : liveRows(spaceId, date)) {
+            if (bookings.getStartMinute(row) * 60 <= second && second < bookings.getEndMinute(row) * 60) {
+                return row;
             }
         }
-        return null;
+        return -1;
     }
 
     public static void releaseSingleSlot(String spaceId, LocalDate date, LocalTime slotStart) {
+        releaseSlots(spaceId, date, Collections.singleton(slotStart));
+    }
+
+    /**
+     * Release several slots of a space on one date in one action
+     * @see #releaseSlots(String, LocalDate, Set, String)
+     */
+    public static int releaseSlots(String spaceId, LocalDate date, Set<LocalTime> slotStarts) {
+        return releaseSlots(spaceId, date, slotStarts, null);
+    }
+
+    /**
+     * Release several slots (each SLOT_MINUTES long) of a space on one date in one action
+     *
+     * Each "booked" booking covering any of the slots is replaced by the parts of it that stay
+     * booked, computed once from all released slots together: releasing a contiguous block never
+     * creates intermediate splits, and a booking whose every slot is released disappears.
+     * All replacements are logged together (one write).
+     *
+     * Time Complexity: O(log n + m + k log k) for m "booked" bookings of the space on that date and k slots
+     * @param slotStarts Start times of the slots to release
+     * @param userId Only release bookings of this user, or null for any user
+     * @return Number of slots that were covered by a released booking
+     */
+    public static synchronized int releaseSlots(String spaceId, LocalDate date, Set<LocalTime> slotStarts, String userId) {
+        ensureLoaded();
+        if (slotStarts.isEmpty()) {
+            return 0;
+        }
+        List<LocalTime> slots = new ArrayList<>(slotStarts);
+        Collections.sort(slots);
+
+        List<Integer> affected = new ArrayList<>();
+        List<Booking> remaining = new ArrayList<>();
+        int released = 0;
+
+        for (int row : rowsOf(Booking.BOOKED, spaceId, date)) {
+            if (userId != null && !userId.equals(bookings.getUserId(row))) {
+                continue;
+            }
+            Booking b = bookings.view(row);
+
+            // Walk the booking from start to end, cutting out the released slots it covers
+            LocalTime bStart = b.getStartTime();
+            LocalTime bEnd = b.getEndTime();
+            LocalTime cursor = bStart;
+            List<Booking> parts = new ArrayList<>(2);
+            int covered = 0;
+            for (LocalTime slotStart : slots) {
+                if (slotStart.isBefore(bStart)) continue;
+                if (!slotStart.isBefore(bEnd)) break;
+
+                covered++;
+                if (cursor.isBefore(slotStart)) {
+                    parts.add(part(b, cursor, slotStart));
+                }
+                LocalTime slotEnd = slotStart.plusMinutes(SLOT_MINUTES);
+                if (slotEnd.isAfter(cursor)) {
+                    cursor = slotEnd.isAfter(bEnd) ? bEnd : slotEnd;
+                }
+            }
+            if (covered == 0) {
+                continue;
+            }
+            if (cursor.isBefore(bEnd)) {
+                parts.add(part(b, cursor, bEnd));
+            }
+
+            affected.add(row);
+            remaining.addAll(parts);
+            released += covered;
+        }
+
+        if (affected.isEmpty()) {
+            return 0;
+        }
+
+        // Remove original bookings and add the remaining parts
+        Map<String, String> records = new LinkedHashMap<>();
+        for (int row : affected) {
+            String bookingId = bookings.getBookingId(row);
+            removeRow(row);
+            records.put(bookingId, WriteAheadLog.record(WriteAheadLog.DELETE, bookingId));
+        }
+        for (Booking part : remaining) {
+            addRow(part);
+            records.put(part.getBookingId(), WriteAheadLog.record(WriteAheadLog.UPSERT, toCsvLine(part, part.getStatus())));
+        }
+        writes.putAll(records);
+        return released;
+    }
 
-        Booking target = null;
-
-        // Find booking covering this time slot
-        for (Booking b : bookings) {
-            if (b.getSpaceId().equals(spaceId)
-                    && b.getDate().equals(date)
-                    && !slotStart.isBefore(b.getStartTime())
-                    && slotStart.isBefore(b.getEndTime())
-                    && b.getStatus().equals("booked")) {
-
-                target = b;
-                break;
-            }
-        }
-
-        if (target == null) return;
-
-        LocalTime bStart = target.getStartTime();
-        LocalTime bEnd = target.getEndTime();
-        LocalTime slotEnd = slotStart.plusMinutes(30);
-
-        // Remove original booking
-        bookings.remove(target);
-
-        // Case 1: slot is at the beginning
-        if (slotStart.equals(bStart)) {
-            if (!slotEnd.equals(bEnd)) {
-                bookings.add(new Booking(
-                        UUID.randomUUID().toString(),
-                        target.getUserId(),
-                        target.getSpaceId(),
-                        target.getDate(),
-                        slotEnd,
-                        bEnd,
-                        "booked"
-                ));
-            }
-        }
-        // Case 2: slot is at the end
-        else if (slotEnd.equals(bEnd)) {
-            bookings.add(new Booking(
-                    UUID.randomUUID().toString(),
-                    target.getUserId(),
-                    target.getSpaceId(),
-                    target.getDate(),
-                    bStart,
-                    slotStart,
-                    "booked"
-            ));
-        }
-        // Case 3: slot is in the middle -> split into two parts
-        else {
-            bookings.add(new Booking(
-                    UUID.randomUUID().toString(),
-                    target.getUserId(),
-                    target.getSpaceId(),
-                    target.getDate(),
-                    bStart,
-                    slotStart,
-                    "booked"
-            ));
-
-            bookings.add(new Booking(
-                    UUID.randomUUID().toString(),
-                    target.getUserId(),
-                    target.getSpaceId(),
-                    target.getDate(),
-                    slotEnd,
-                    bEnd,
-                    "booked"
-            ));
-        }
-
-        saveBookings();
+    /** New booking for the part [start, end) of a booking that stays booked */
+    private static Booking part(Booking b, LocalTime start, LocalTime end) {
+        return new Booking(
+                UUID.randomUUID().toString(),
+                b.getUserId(),
+                b.getSpaceId(),
+                b.getDate(),
+                start,
+                end,
+                "booked"
+        );
     }
 
     
-    /** 
-     * ✅ Get all bookings for a space (regardless of date)
-     * Used for booking statistics / calculating total revenue, etc.
+    // =========================================================
+    //               User bookings (served from the user index)
+    // =========================================================
+
+    /**
+     * All of a user's bookings (any status) ordered by date and start time:
+     * archived ones (read-only copies, through the archive's user index) followed by the active ones
      */
-    public static List<Booking> getBookingsBySpaceId(String spaceId) {
+    public static synchronized List<Booking> getUserBookings(String userId) {
+        ensureLoaded();
+        List<Booking> archived = archive.selectByUser(userId);
+        List<Integer> rows = userIndex.get(userId);
+        if (rows == null) {
+            return archived;
+        }
+        // Merge: active bookings added with a past date can be older than archived ones
+        List<Booking> result = new ArrayList<>(archived.size() + rows.size());
+        int j = 0;
+        for (int row : rows) {
+            Booking b = bookings.view(row);
+            while (j < archived.size() && BOOKING_ORDER.compare(archived.get(j), b) <= 0) {
+                result.add(archived.get(j++));
+            }
+            result.add(b);
+        }
+        result.addAll(archived.subList(j, archived.size()));
+        return result;
+    }
+
+    /** A user's active bookings (any status) on one date - O(log k + m) */
+    public static synchronized List<Booking> getUserBookingsOn(String userId, LocalDate date) {
+        ensureLoaded();
         List<Booking> result = new ArrayList<>();
-        for (Booking b : bookings) {
-            if (b.getSpaceId().equals(spaceId)
-                    && !"released".equalsIgnoreCase(b.getStatus())) {
-                result.add(b);
+        List<Integer> rows = userIndex.get(userId);
+        if (rows == null) {
+            return result;
+        }
+        int day = (int) date.toEpochDay();
+        for (int i = firstOnOrAfter(rows, day); i < rows.size() && bookings.getEpochDay(rows.get(i)) == day; i++) {
+            result.add(bookings.view(rows.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * One page of a user's upcoming bookings (today and later, not released), soonest first;
+     * today's bookings that already ended (completed) are included, so the page joins up with
+     * getBookingHistory
+     * Time Complexity: O(log k + offset + limit) for k bookings of the user (released ones are skipped)
+     * @param offset Bookings to skip
+     * @param limit Page size
+     */
+    public static synchronized List<Booking> getUpcomingBookings(String userId, int offset, int limit) {
+        ensureLoaded();
+        List<Booking> page = new ArrayList<>();
+        List<Integer> rows = userIndex.get(userId);
+        if (rows == null) {
+            return page;
+        }
+        int skipped = 0;
+        for (int i = firstOnOrAfter(rows, (int) LocalDate.now().toEpochDay()); i < rows.size() && page.size() < limit; i++) {
+            int row = rows.get(i);
+            if (!bookings.hasStatus(row, Booking.RELEASED) && skipped++ >= offset) {
+                page.add(bookings.view(row));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * One page of a user's booking history (before today, any status), most recent first
+     * Pages within the active bookings newer than the user's archived ones are O(log k + a + offset
+     * + limit); pages that reach past them continue into the user's a archived bookings
+     * (O(a log a), via the archive's user index).
+     * @param offset Bookings to skip
+     * @param limit Page size
+     */
+    public static synchronized List<Booking> getBookingHistory(String userId, int offset, int limit) {
+        ensureLoaded();
+        List<Booking> page = new ArrayList<>();
+        List<Integer> rows = userIndex.get(userId);
+        int i = (rows != null ? firstOnOrAfter(rows, (int) LocalDate.now().toEpochDay()) : 0) - 1;
+        LocalDate latestArchived = archive.latestDate(userId);
+        int boundary = latestArchived != null ? (int) latestArchived.toEpochDay() : Integer.MIN_VALUE;
+        int skipped = 0;
+
+        // Active bookings dated after the user's latest archived one come before any archived one
+        for (; i >= 0 && page.size() < limit && bookings.getEpochDay(rows.get(i)) > boundary; i--) {
+            if (skipped++ >= offset) {
+                page.add(bookings.view(rows.get(i)));
             }
         }
+        if (latestArchived == null || page.size() >= limit) {
+            return page;
+        }
+
+        // Past the boundary: merge the remaining active bookings with the archived ones
+        List<Booking> archived = archive.selectByUser(userId);
+        int j = archived.size() - 1;
+        while ((i >= 0 || j >= 0) && page.size() < limit) {
+            Booking next;
+            if (j < 0 || (i >= 0 && BOOKING_ORDER.compare(bookings.view(rows.get(i)), archived.get(j)) >= 0)) {
+                next = bookings.view(rows.get(i--));
+            } else {
+                next = archived.get(j--);
+            }
+            if (skipped++ >= offset) {
+                page.add(next);
+            }
+        }
+        return page;
+    }
+
+    /** 
+     * ✅ Get all bookings for a space (regardless of date)
+     * Used for booking statistics / calculating total revenue, etc.
+     */
+    public static synchronized List<Booking> getBookingsBySpaceId(String spaceId) {
+        ensureLoaded();
+        List<Booking> result = archive.select(spaceId, null, Booking.RELEASED);
+        result.addAll(viewsOf(liveRows(spaceId, null)));
         return result;
     }
 
@@ -0,0 +1,516 @@
+package util;
+
+import model.Money;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Streaming CSV tokenizer shared by all data loaders
+ *
+ * Works directly on the UTF-8 bytes of a file (heap buffer, or memory-mapped for large files):
+ * each record is split into field views (start/end offsets into the buffer) without creating
+ * a String per line or a String[] per record. Fields are only turned into objects when asked,
+ * and the typed accessors (dates, HH:mm times, UUIDs, decimals, ints) parse the bytes in place.
+ *
+ * Format: the plain CSV the data files use - comma separated, one record per line (LF or CRLF),
+ * no quoting. Blank lines are skipped and a UTF-8 byte order mark is ignored.
+ *
+ * Usage:
+ * <pre>
+ *     CsvTokenizer csv = CsvTokenizer.open(path);
+ *     while (csv.next()) {
+ *         if (csv.isHeader("bookingId")) continue;
+ *         LocalDate date = csv.getDate(3);
+ *         ...
+ *     }
+ * </pre>
+ *
+ * Not thread-safe: use one tokenizer per thread (e.g. one per file chunk).
+ */
+public final class CsvTokenizer {
+
+    /**
+     * Files at least this large are memory-mapped; smaller files are read into a heap buffer.
+     * (A mapped file stays locked on Windows until the buffer is garbage collected, which would
+     * block the atomic rewrite of the small, frequently saved files.)
+     */
+    private static final long MAP_THRESHOLD = 8L * 1024 * 1024;
+
+    private final ByteBuffer buf;
+    private final int limit;
+    private int pos;
+
+    /** Current record */
+    private int lineStart;
+    private int lineEnd;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+    private long lineNumber;
+
+    /** Reused copy buffer for String decoding (mapped buffers) */
+    private byte[] scratch = new byte[64];
+
+    /** Tokenize the remaining bytes of a buffer */
+    public CsvTokenizer(ByteBuffer buf) {
+        this(buf, buf.position(), buf.limit());
+    }
+
+    /**
+     * Tokenize the bytes [from, to) of a buffer (e.g. one chunk of a file)
+     * The range should start at the beginning of a line.
+     */
+    public CsvTokenizer(ByteBuffer buf, int from, int to) {
+        this.buf = buf;
+        this.limit = to;
+        this.pos = from;
+        // UTF-8 byte order mark
+        if (to - from >= 3 && buf.get(from) == (byte) 0xEF
+                && buf.get(from + 1) == (byte) 0xBB && buf.get(from + 2) == (byte) 0xBF) {
+            this.pos = from + 3;
+        }
+    }
+
+    /** Tokenizer over a whole file */
+    public static CsvTokenizer open(Path path) throws IOException {
+        return new CsvTokenizer(readBuffer(path));
+    }
+
+    /** Tokenizer over a single line or in-memory text */
+    public static CsvTokenizer of(String text) {
+        return new CsvTokenizer(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The bytes of a file: memory-mapped (read-only) if large, otherwise read into a heap buffer
+     */
+    public static ByteBuffer readBuffer(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large: " + path + " (" + size + " bytes)");
+            }
+            if (size >= MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // keep reading until full or end of file
+            }
+            buf.flip();
+            return buf;
+        }
+    }
+
+    // =========================================================
+    //               Records
+    // =========================================================
+
+    /**
+     * Advance to the next non-blank record
+     * @return false at the end of the input
+     */
+    public boolean next() {
+        while (pos < limit) {
+            int start = pos;
+            int end = start;
+            while (end < limit && buf.get(end) != '\n') {
+                end++;
+            }
+            pos = end < limit ? end + 1 : end;
+            lineNumber++;
+            if (end > start && buf.get(end - 1) == '\r') {
+                end--;
+            }
+            if (isBlank(start, end)) {
+                continue;
+            }
+            split(start, end);
+            return true;
+        }
+        fieldCount = 0;
+        return false;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void split(int start, int end) {
+        lineStart = start;
+        lineEnd = end;
+        fieldCount = 0;
+        int fieldBegin = start;
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == ',') {
+                addField(fieldBegin, i);
+                fieldBegin = i + 1;
+            }
+        }
+        addField(fieldBegin, end);
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /** Number of fields of the current record */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** 1-based line number of the current record (blank lines included) */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /** Current record as text (for error messages) */
+    public String line() {
+        return decode(lineStart, lineEnd);
+    }
+
+    /** Whether the current record is the first line and its first field is the given column name */
+    public boolean isHeader(String firstColumn) {
+        return lineNumber == 1 && fieldEquals(0, firstColumn);
+    }
+
+    // =========================================================
+    //               Field views
+    // =========================================================
+
+    /** Length of a field in bytes */
+    public int length(int field) {
+        checkField(field);
+        return fieldEnd[field] - fieldStart[field];
+    }
+
+    public boolean isEmpty(int field) {
+        return length(field) == 0;
+    }
+
+    /** Compare a field with ASCII text, without creating a String */
+    public boolean fieldEquals(int field, String ascii) {
+        checkField(field);
+        int start = fieldStart[field];
+        int len = fieldEnd[field] - start;
+        if (len != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buf.get(start + i) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Field as String (UTF-8) */
+    public String getString(int field) {
+        checkField(field);
+        return decode(fieldStart[field], fieldEnd[field]);
+    }
+
+    /** Field as String without leading/trailing spaces */
+    public String getTrimmed(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        while (start < end && buf.get(start) <= ' ') start++;
+        while (end > start && buf.get(end - 1) <= ' ') end--;
+        return decode(start, end);
+    }
+
+    private String decode(int start, int end) {
+        int len = end - start;
+        if (len == 0) {
+            return "";
+        }
+        if (buf.hasArray()) {
+            // Heap buffer: decode straight from the backing array
+            return new String(buf.array(), buf.arrayOffset() + start, len, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < len) {
+            scratch = new byte[Math.max(len, scratch.length * 2)];
+        }
+        buf.get(start, scratch, 0, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // =========================================================
+    //               Typed parsers (in place, no intermediate String)
+    // =========================================================
+
+    /**
+     * Field as int (optional sign, digits; surrounding spaces allowed)
+     * @throws NumberFormatException if the field is not an int
+     */
+    public int getInt(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        while (start < end && buf.get(start) == ' ') start++;
+        while (end > start && buf.get(end - 1) == ' ') end--;
+
+        boolean negative = false;
+        int i = start;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Not an int: \"" + getString(field) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Not an int: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + d;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Int out of range: \"" + getString(field) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Int out of range: \"" + getString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decimal field as exact cents, rounding half up (e.g. "22.5" → 2250)
+     * Plain decimals are parsed in place; anything else (exponents, ...) goes through Money.parse
+     * @throws NumberFormatException if the field is not a number
+     */
+    public long getCents(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        for (; i < end && digits <= 16; i++, digits++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) break;
+            units = units * 10 + d;
+        }
+        long cents = units * 100;
+        int fractionDigits = 0;
+        if (i < end && buf.get(i) == '.') {
+            i++;
+            long scale = 10;
+            for (; i < end; i++, fractionDigits++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                if (fractionDigits < 2) {
+                    cents += d * scale;
+                    scale /= 10;
+                } else if (fractionDigits == 2 && d >= 5) {
+                    cents++; // half up on the third decimal
+                }
+            }
+        }
+
+        if (i != end || digits > 16 || (digits == 0 && fractionDigits == 0)) {
+            // Not a plain decimal: let the exact general parser decide
+            return Money.parse(getString(field)).getCents();
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Field as double
+     * Plain decimals with up to 15 significant digits are converted exactly (digits / 10^k);
+     * anything else goes through Double.parseDouble
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        while (start < end && buf.get(start) == ' ') start++;
+        while (end > start && buf.get(end - 1) == ' ') end--;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && !seenDot) {
+                seenDot = true;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9) break;
+            mantissa = mantissa * 10 + d;
+            digits++;
+            if (seenDot) fractionDigits++;
+        }
+
+        if (i != end || digits == 0 || digits > 15) {
+            return Double.parseDouble(getString(field));
+        }
+        // Both mantissa (< 2^53) and 10^k (k <= 22) are exact doubles, so one division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * ISO date field (yyyy-MM-dd)
+     * @throws java.time.DateTimeException if the date is invalid
+     */
+    public LocalDate getDate(int field) {
+        checkField(field);
+        int s = fieldStart[field];
+        if (fieldEnd[field] - s != 10 || buf.get(s + 4) != '-' || buf.get(s + 7) != '-') {
+            return LocalDate.parse(getString(field));
+        }
+        return LocalDate.of(digits(s, 4, field), digits(s + 5, 2, field), digits(s + 8, 2, field));
+    }
+
+    /**
+     * Time field (HH:mm or HH:mm:ss)
+     * @throws java.time.DateTimeException if the time is invalid
+     */
+    public LocalTime getTime(int field) {
+        checkField(field);
+        return parseTime(fieldStart[field], fieldEnd[field], field);
+    }
+
+    /**
+     * ISO date-time field (yyyy-MM-ddTHH:mm[:ss[.fraction]])
+     * @throws java.time.DateTimeException if the value is invalid
+     */
+    public LocalDateTime getDateTime(int field) {
+        checkField(field);
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        if (e - s < 16 || buf.get(s + 4) != '-' || buf.get(s + 7) != '-' || buf.get(s + 10) != 'T') {
+            return LocalDateTime.parse(getString(field));
+        }
+        LocalDate date = LocalDate.of(digits(s, 4, field), digits(s + 5, 2, field), digits(s + 8, 2, field));
+        return LocalDateTime.of(date, parseTime(s + 11, e, field));
+    }
+
+    private LocalTime parseTime(int s, int e, int field) {
+        int len = e - s;
+        if (len < 5 || buf.get(s + 2) != ':') {
+            return LocalTime.parse(decode(s, e));
+        }
+        int hour = digits(s, 2, field);
+        int minute = digits(s + 3, 2, field);
+        if (len == 5) {
+            return LocalTime.of(hour, minute);
+        }
+        if (len < 8 || buf.get(s + 5) != ':') {
+            return LocalTime.parse(decode(s, e));
+        }
+        int second = digits(s + 6, 2, field);
+        if (len == 8) {
+            return LocalTime.of(hour, minute, second);
+        }
+        if (buf.get(s + 8) != '.' || len > 18 || len == 9) {
+            return LocalTime.parse(decode(s, e));
+        }
+        int fraction = digits(s + 9, len - 9, field);
+        for (int k = len - 9; k < 9; k++) {
+            fraction *= 10;
+        }
+        return LocalTime.of(hour, minute, second, fraction);
+    }
+
+    /** Fixed-width unsigned decimal at [start, start + count) */
+    private int digits(int start, int count, int field) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new DateTimeParseException(
+                        "Invalid digits in \"" + getString(field) + "\"", getString(field), i - fieldStart[field]);
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /**
+     * UUID field (8-4-4-4-12 hex digits)
+     * @throws IllegalArgumentException if the field is not a UUID (as UUID.fromString)
+     */
+    public UUID getUuid(int field) {
+        checkField(field);
+        int s = fieldStart[field];
+        if (fieldEnd[field] - s != 36 || buf.get(s + 8) != '-' || buf.get(s + 13) != '-'
+                || buf.get(s + 18) != '-' || buf.get(s + 23) != '-') {
+            throw new IllegalArgumentException("Invalid UUID string: " + getString(field));
+        }
+        long msb = hex(s, 8, field);
+        msb = (msb << 16) | hex(s + 9, 4, field);
+        msb = (msb << 16) | hex(s + 14, 4, field);
+        long lsb = hex(s + 19, 4, field);
+        lsb = (lsb << 48) | hex(s + 24, 12, field);
+        return new UUID(msb, lsb);
+    }
+
+    private long hex(int start, int count, int field) {
+        long value = 0;
+        for (int i = start; i < start + count; i++) {
+            int b = buf.get(i);
+            int d;
+            if (b >= '0' && b <= '9') d = b - '0';
+            else if (b >= 'a' && b <= 'f') d = b - 'a' + 10;
+            else if (b >= 'A' && b <= 'F') d = b - 'A' + 10;
+            else throw new IllegalArgumentException("Invalid UUID string: " + getString(field));
+            value = (value << 4) | d;
+        }
+        return value;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field: " + field + ", Fields: " + fieldCount
+                    + " (line " + lineNumber + ")");
+        }
+    }
+}
@@ -30,7 +30,6 @@ public class CurrentUser {
         System.out.println("DEBUG username = " + username +
                 ", membership = [" + membership + "]");
 
-        return membership != null
-                && membership.trim().equalsIgnoreCase("Member");
+        return currentUser.isMember();
     }
 }
@@ -0,0 +1,149 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Parallel chunked CSV loader
+ *
+ * The file is read as one buffer (memory-mapped when large, see CsvTokenizer.readBuffer) instead of
+ * a List<String> of lines, then split at newline boundaries into one chunk per core. Each chunk is
+ * tokenized and parsed by its own CsvTokenizer on the fork-join pool, and the per-chunk results are
+ * concatenated in file order.
+ *
+ * Small files (below MIN_CHUNK_BYTES per chunk) are parsed as a single chunk on the calling thread.
+ */
+public final class ParallelCsvLoader {
+
+    /** Smallest chunk worth handing to another thread */
+    private static final int MIN_CHUNK_BYTES = 256 * 1024;
+
+    private ParallelCsvLoader() {
+    }
+
+    /**
+     * Parse every record of a CSV file, in parallel for large files
+     * @param path CSV file
+     * @param headerColumn First column name of the header line (skipped if present), or null
+     * @param rowParser Turns the current record into an object, or returns null to skip it;
+     *                  called concurrently from several threads, so it must not touch shared state
+     * @return Parsed rows in file order (records that fail to parse are reported and skipped)
+     */
+    public static <T> List<T> load(Path path, String headerColumn, Function<CsvTokenizer, T> rowParser) throws IOException {
+        return load(path, CsvTokenizer.readBuffer(path), headerColumn, rowParser);
+    }
+
+    /**
+     * Parse the bytes [0, limit) of an already read file buffer, in parallel if large
+     * (e.g. to parse only up to the last complete line)
+     * @param path File the buffer was read from (for error messages)
+     */
+    public static <T> List<T> load(Path path, ByteBuffer buf, String headerColumn, Function<CsvTokenizer, T> rowParser) {
+        int[] bounds = chunkBounds(buf, ForkJoinPool.getCommonPoolParallelism());
+
+        ChunkTask<T> task = new ChunkTask<>(path, buf, bounds, 0, bounds.length - 1, headerColumn, rowParser);
+        if (bounds.length == 2) {
+            return task.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /**
+     * Chunk boundaries: byte offsets 0 = b[0] < b[1] < ... < b[n] = size, each (except 0 and size)
+     * just after a newline, so every chunk holds whole lines
+     */
+    static int[] chunkBounds(ByteBuffer buf, int parallelism) {
+        int size = buf.limit();
+        int chunks = Math.max(1, Math.min(parallelism, size / MIN_CHUNK_BYTES));
+        int[] bounds = new int[chunks + 1];
+        int count = 1;
+        for (int i = 1; i < chunks; i++) {
+            int pos = Math.max((int) ((long) size * i / chunks), bounds[count - 1]);
+            while (pos < size && buf.get(pos) != '\n') {
+                pos++;
+            }
+            if (pos + 1 >= size) {
+                break;
+            }
+            if (pos + 1 > bounds[count - 1]) {
+                bounds[count++] = pos + 1;
+            }
+        }
+        bounds[count++] = size;
+        return count == bounds.length ? bounds : Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Fork-join task over chunks [first, last): splits in halves until one chunk is left,
+     * then parses it; results are joined left before right to keep file order
+     * (ForkJoinTask is Serializable, but these tasks are never serialized)
+     */
+    @SuppressWarnings("serial")
+    private static final class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private final Path path;
+        private final ByteBuffer buf;
+        private final int[] bounds;
+        private final int first;
+        private final int last;
+        private final String headerColumn;
+        private final Function<CsvTokenizer, T> rowParser;
+
+        ChunkTask(Path path, ByteBuffer buf, int[] bounds, int first, int last,
+                  String headerColumn, Function<CsvTokenizer, T> rowParser) {
+            this.path = path;
+            this.buf = buf;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.headerColumn = headerColumn;
+            this.rowParser = rowParser;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (last - first == 1) {
+                return parseChunk(first);
+            }
+            int mid = (first + last) >>> 1;
+            ChunkTask<T> left = new ChunkTask<>(path, buf, bounds, first, mid, headerColumn, rowParser);
+            ChunkTask<T> right = new ChunkTask<>(path, buf, bounds, mid, last, headerColumn, rowParser);
+            left.fork();
+            List<T> rightRows = right.compute();
+            List<T> leftRows = left.join();
+
+            List<T> rows = new ArrayList<>(leftRows.size() + rightRows.size());
+            rows.addAll(leftRows);
+            rows.addAll(rightRows);
+            return rows;
+        }
+
+        private List<T> parseChunk(int chunk) {
+            int from = bounds[chunk];
+            int to = bounds[chunk + 1];
+            // Rough capacity guess (~100 bytes per record) to avoid most regrowth
+            List<T> rows = new ArrayList<>(Math.max(16, (to - from) / 100));
+
+            // Absolute reads only, so chunks can share the buffer
+            CsvTokenizer csv = new CsvTokenizer(buf, from, to);
+            while (csv.next()) {
+                if (chunk == 0 && headerColumn != null && csv.isHeader(headerColumn)) continue;
+                try {
+                    T row = rowParser.apply(csv);
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Error parsing line in " + path + ": " + csv.line() + " (" + e.getMessage() + ")");
+                }
+            }
+            return rows;
+        }
+    }
+}
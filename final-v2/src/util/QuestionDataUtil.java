@@ -4,12 +4,27 @@ import datastructure.ResizableArrayBag;
 import model.Question;
 
 import java.io.*;
-import java.time.LocalDateTime;
-
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Questions of data/question.csv
+ *
+ * Adds and removals are appended to the write-ahead log data/question.wal; the log is
+ * replayed on load and checkpointed into the CSV (temp file + fsync + atomic rename)
+ * once it holds CHECKPOINT_THRESHOLD records.
+ */
 public class QuestionDataUtil {
 
     private static final String FILE = "data/question.csv";
 
+    /** Changes not yet checkpointed into FILE */
+    private static final WriteAheadLog log = new WriteAheadLog(Paths.get("data/question.wal"));
+
+    /** Checkpoint once the log holds this many records */
+    private static final int CHECKPOINT_THRESHOLD = 32;
+
     private static ResizableArrayBag<Question> questionBag = new ResizableArrayBag<>();
 
     // ----- Read CSV on class load -----
@@ -18,19 +33,23 @@ public class QuestionDataUtil {
     }
 
     /**
-     * Add question (in-memory + append to CSV)
+     * Add question (log record + in-memory)
      */
-    public static void addQuestion(Question q) {
-        questionBag.add(q);
-        appendQuestionToFile(q);  // ⚠ No longer overwrites the entire file
+    public static synchronized void addQuestion(Question q) {
+        if (logChange(WriteAheadLog.record(WriteAheadLog.UPSERT, toCsvLine(q)))) {
+            questionBag.add(q);
+            checkpointIfNeeded();
+        }
     }
 
     /**
-     * Remove question (in-memory + rewrite CSV)
+     * Remove question (log record + in-memory)
      */
-    public static void removeQuestion(Question q) {
-        questionBag.remove(q);
-        saveAllQuestions(); // Remove requires rewrite
+    public static synchronized void removeQuestion(Question q) {
+        if (logChange(WriteAheadLog.record(WriteAheadLog.DELETE, q.getQuestionId()))) {
+            questionBag.remove(q);
+            checkpointIfNeeded();
+        }
     }
 
     /**
@@ -45,43 +64,83 @@ public class QuestionDataUtil {
     //               private Read/Write CSV Methods
     // =========================================================
 
+    private static String toCsvLine(Question q) {
+        return String.join(",",
+                q.getQuestionId(),
+                q.getUsername(),
+                q.getContent().replace(",", " "),   // Avoid CSV column misalignment
+                q.getCreatedAt().toString()
+        );
+    }
+
+    /** Append a record to the log before the change is applied; false if it could not be written */
+    private static boolean logChange(String record) {
+        try {
+            log.append(record);
+            return true;
+        } catch (IOException e) {
+            System.err.println("ERROR writing question log: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static void checkpointIfNeeded() {
+        if (log.size() >= CHECKPOINT_THRESHOLD) {
+            checkpoint();
+        }
+    }
+
     /**
-     * Append the latest data (does not overwrite original file)
+     * Rewrite the entire CSV atomically and empty the log
      */
-    private static void appendQuestionToFile(Question q) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FILE, true))) {
-
-            pw.println(String.join(",",
-                    q.getQuestionId(),
-                    q.getUsername(),
-                    q.getContent().replace(",", " "),   // Avoid CSV column misalignment
-                    q.getCreatedAt().toString()
-            ));
+    private static void checkpoint() {
+        List<String> lines = new ArrayList<>();
+        for (Question q : questionBag.toArray(new Question[0])) {
+            lines.add(toCsvLine(q));
+        }
 
-        } catch (Exception e) {
+        try {
+            log.checkpoint(Paths.get(FILE), lines);
+        } catch (IOException e) {
+            System.err.println("ERROR saving questions: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
     /**
-     * Rewrite entire CSV when deleting
+     * Apply the records left in the log (add / remove by questionId), then checkpoint
      */
-    private static void saveAllQuestions() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FILE))) {
-
-            Question[] all = questionBag.toArray(new Question[0]);
-
-            for (Question q : all) {
-                pw.println(String.join(",",
-                        q.getQuestionId(),
-                        q.getUsername(),
-                        q.getContent().replace(",", " "),
-                        q.getCreatedAt().toString()
-                ));
+    private static void replayLog() throws IOException {
+        List<String> records = log.recover();
+        if (records.isEmpty()) {
+            return;
+        }
+        for (String record : records) {
+            String body = WriteAheadLog.body(record);
+            if (WriteAheadLog.op(record) == WriteAheadLog.DELETE) {
+                removeById(body);
+                continue;
             }
+            CsvTokenizer csv = CsvTokenizer.of(body);
+            if (!csv.next() || csv.fieldCount() != 4) {
+                System.err.println("Error parsing question log record: " + body);
+                continue;
+            }
+            Question q = new Question(csv.getString(0), csv.getString(1), csv.getString(2), csv.getDateTime(3));
+            removeById(q.getQuestionId());
+            questionBag.add(q);
+        }
+        System.out.println("Question log replayed: " + records.size() + " records");
+        checkpoint();
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    private static void removeById(String questionId) {
+        for (Question q : questionBag.toArray(new Question[0])) {
+            if (q.getQuestionId().equals(questionId)) {
+                questionBag.remove(q);
+                return;
+            }
         }
     }
 
@@ -92,30 +151,35 @@ public class QuestionDataUtil {
         File file = new File(FILE);
         if (!file.exists()) {
             System.out.println("question.csv not found, skip loading.");
-            return;
-        }
+        } else {
+            try {
+                CsvTokenizer csv = CsvTokenizer.open(file.toPath());
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
+                while (csv.next()) {
 
-            while ((line = br.readLine()) != null) {
+                    if (csv.fieldCount() != 4) continue; // Skip broken lines
 
-                String[] parts = line.split(",");
-                if (parts.length != 4) continue; // Skip broken lines
+                    Question q = new Question(
+                            csv.getString(0),     // questionId
+                            csv.getString(1),     // username
+                            csv.getString(2),     // content
+                            csv.getDateTime(3)    // createdAt
+                    );
 
-                Question q = new Question(
-                        parts[0],                   // questionId
-                        parts[1],                   // username
-                        parts[2],                   // content
-                        LocalDateTime.parse(parts[3]) // createdAt
-                );
+                    questionBag.add(q);
+                }
 
-                questionBag.add(q);
-            }
+                System.out.println("Loaded " + questionBag.toArray(new Question[0]).length + " questions.");
 
-            System.out.println("Loaded " + questionBag.toArray(new Question[0]).length + " questions.");
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
 
-        } catch (Exception e) {
+        try {
+            replayLog();
+        } catch (IOException e) {
+            System.err.println("ERROR replaying question log: " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -3,17 +3,47 @@ package util;
 import model.Transaction;
 import adt.HashTableADT;
 import datastructure.ChainingHashTable;
+import datastructure.TransactionBST;
+import datastructure.TransactionColumnStore;
+import service.AnalyticsService;
 
-import java.io.*;
 import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.stream.Collectors;
 
+/**
+ * Transaction store backed by month partitions under data/transactions (see TransactionPartitionStore)
+ *
+ * Only the partition manifest and user index are read at startup (class init does no row I/O).
+ * Partitions are loaded on demand: date-range queries load the months that overlap the range,
+ * per-user queries load the months the user has transactions in, and whole-history queries
+ * (getAllTransactions, per-type / relatedId lookups, per-day totals) load everything.
+ * New transactions are appended to their month's ledger file (group commit), never rewritten;
+ * callers wait for the fsync outside the class lock so concurrent appends share a batch.
+ */
 public class TransactionDataUtil {
 
-    private static final String TRANSACTION_FILE = "data/transactions.csv";
+    private static final String TRANSACTION_DIR = "data/transactions";
+    private static final String LEGACY_TRANSACTION_FILE = "data/transactions.csv";
 
-    /** Memory Cache */
-    private static final List<Transaction> transactions = new ArrayList<>();
+    /** Partition files + manifest */
+    private static final TransactionPartitionStore store =
+            new TransactionPartitionStore(Paths.get(TRANSACTION_DIR), Paths.get(LEGACY_TRANSACTION_FILE));
+
+    /** Loaded partitions: month → rows in file order */
+    private static final TreeMap<YearMonth, List<Transaction>> loadedPartitions = new TreeMap<>();
+
+    /** Read-only copy of all loaded rows for getAllTransactions (null = changed since, rebuild on next call) */
+    private static List<Transaction> allSnapshot;
+
+    /**
+     * Transactions queued to the store but not cached yet (transactionId → transaction)
+     * Appends wait for their fsync without holding the class lock; a partition loaded in that
+     * window may already contain their rows, which are skipped there and cached by the append.
+     */
+    private static final Map<String, Transaction> inFlight = new HashMap<>();
     
     // ========== HashTable Index - Optimize Search Performance O(1) ==========
     /** HashTable indexed by userId - O(1) search */
@@ -26,129 +56,137 @@ public class TransactionDataUtil {
     private static HashTableADT<String, Transaction> relatedIdIndex = new ChainingHashTable<>();
     // ========================================================
 
-    static {
-        loadTransactions();
-        buildIndexes(); // Build indexes
-    }
+    // ========== Ordered Index (date, transactionId) - Range Queries O(log n + k) ==========
+    /** Balanced BST over all loaded transactions */
+    private static final TransactionBST dateIndex = new TransactionBST();
 
-    /** Load CSV */
-    public static void loadTransactions() {
-        transactions.clear();
+    /** HashTable indexed by userId → that user's transactions in a balanced BST */
+    private static HashTableADT<String, TransactionBST> userDateIndex = new ChainingHashTable<>();
+    // ========================================================
 
-        try {
-            Path path = Paths.get(TRANSACTION_FILE);
+    // ========== Composite Indexes (userId, date) and (userId, type, date) ==========
+    /** HashTable indexed by userId → that user's transactions sorted by (date, transactionId) */
+    private static HashTableADT<String, List<Transaction>> userSortedIndex = new ChainingHashTable<>();
 
-            if (!Files.exists(path)) {
-                Files.createDirectories(path.getParent());
-                Files.createFile(path);
+    /** HashTable indexed by userId → per type, that user's transactions sorted by (date, transactionId) */
+    private static HashTableADT<String, Map<Transaction.TransactionType, List<Transaction>>> userTypeIndex = new ChainingHashTable<>();
 
-                try (PrintWriter pw = new PrintWriter(new FileWriter(TRANSACTION_FILE))) {
-                    pw.println("transactionId,userId,type,amount,date,description,relatedId");
-                }
-                return;
-            }
+    /** Order of both composite indexes (same as the BST indexes) */
+    private static final Comparator<Transaction> DATE_ORDER =
+            Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getTransactionId);
+    // ========================================================
 
-            List<String> lines = Files.readAllLines(path);
+    /** Same transactions in columnar form, for dashboard scans and aggregates */
+    private static final TransactionColumnStore columns = new TransactionColumnStore();
 
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
+    /** Loaded partition → sketches of its rows (active users, spend, lead time), merged by getAnalytics */
+    private static final TreeMap<YearMonth, AnalyticsService> partitionAnalytics = new TreeMap<>();
 
-                if (i == 0 && line.contains("transactionId")) continue;
-                if (line.isBlank()) continue;
+    static {
+        loadTransactions();
 
-                try {
-                    Transaction transaction = Transaction.fromCSV(line);
-                    transactions.add(transaction);
-                } catch (Exception e) {
-                    System.err.println("Error parsing transaction line: " + line);
-                    e.printStackTrace();
-                }
+        // Make sure queued appends reach the disk when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(store::close, "transaction-ledger-shutdown"));
+    }
+
+    /**
+     * (Re)open the store: pending appends are flushed, the manifest is read,
+     * and loaded partitions are dropped so they are re-read from disk on demand
+     */
+    public static synchronized void loadTransactions() {
+        store.open();
+        loadedPartitions.clear();
+        clearIndexes();
+    }
+
+    /**
+     * Load the given partitions if they are not in memory yet
+     * Missing partitions are read in parallel (one file per fork-join task), then only their
+     * rows are added to the indexes on this thread: O(rows loaded), whatever is already in memory
+     */
+    private static synchronized void ensureLoaded(Collection<YearMonth> months) {
+        List<YearMonth> missing = new ArrayList<>();
+        for (YearMonth month : months) {
+            if (!loadedPartitions.containsKey(month)) {
+                missing.add(month);
             }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        List<List<Transaction>> read = missing.size() == 1
+                ? Collections.singletonList(store.read(missing.get(0)))
+                : missing.parallelStream().map(store::read).collect(Collectors.toList());
+        List<Transaction> added = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i++) {
+            List<Transaction> rows = new ArrayList<>(read.get(i));
+            if (!inFlight.isEmpty()) {
+                rows.removeIf(t -> inFlight.containsKey(t.getTransactionId()));
+            }
+            loadedPartitions.put(missing.get(i), rows);
+            added.addAll(rows);
         }
-        
-        // Build indexes after loading
-        buildIndexes();
+        indexRows(added);
+        System.out.println("HashTable indexes updated: +" + added.size() + " rows, userIdIndex=" + userIdIndex.size() +
+                          ", typeIndex=" + typeIndex.size() +
+                          ", relatedIdIndex=" + relatedIdIndex.size());
     }
-    
+
+    /** Load every partition (whole-history queries) */
+    private static void ensureAllLoaded() {
+        ensureLoaded(store.partitions().keySet());
+    }
+
+    /** Drop all indexes (the partitions are re-read and re-indexed on demand) */
+    private static void clearIndexes() {
+        userIdIndex = new ChainingHashTable<>();
+        typeIndex = new ChainingHashTable<>();
+        relatedIdIndex = new ChainingHashTable<>();
+        userDateIndex = new ChainingHashTable<>();
+        userSortedIndex = new ChainingHashTable<>();
+        userTypeIndex = new ChainingHashTable<>();
+        dateIndex.clear();
+        columns.clear();
+        partitionAnalytics.clear();
+        allSnapshot = null;
+    }
+
     /**
-     * Build all indexes (called after loading data)
-     * Time Complexity: O(n), but subsequent searches become O(1)
-     * 
+     * Add newly loaded or appended rows to all indexes and the column store
+     * Time Complexity: O(k log n) for k rows - the rows already indexed are not revisited,
+     * except that a sorted composite list receiving rows older than its last one is merged
+     * (one sort of an almost sorted list, O(n_user + k log k))
+     *
      * Demonstrate HashTable Application:
      * - Use HashTables to build multiple indexes
      * - Support fast lookup (O(1))
      * - Demonstrate practical application scenarios of HashTables
      */
-    private static void buildIndexes() {
-        // Re-create indexes
-        userIdIndex = new ChainingHashTable<>();
-        typeIndex = new ChainingHashTable<>();
-        relatedIdIndex = new ChainingHashTable<>();
-        
-        // Build indexes: iterate through all transactions and build indexes
-        for (Transaction t : transactions) {
-            // Index by userId
-            List<Transaction> userList = userIdIndex.get(t.getUserId());
-            if (userList == null) {
-                userList = new ArrayList<>();
-                userIdIndex.put(t.getUserId(), userList);
-            }
-            userList.add(t);
-            
-            // Index by type
-            List<Transaction> typeList = typeIndex.get(t.getType());
-            if (typeList == null) {
-                typeList = new ArrayList<>();
-                typeIndex.put(t.getType(), typeList);
-            }
-            typeList.add(t);
-            
-            // Index by relatedId
-            if (t.getRelatedId() != null && !t.getRelatedId().isEmpty()) {
-                relatedIdIndex.put(t.getRelatedId(), t);
-            }
+    private static void indexRows(List<Transaction> added) {
+        if (added.isEmpty()) {
+            return;
         }
-        
-        System.out.println("HashTable indexes built: userIdIndex=" + userIdIndex.size() + 
-                          ", typeIndex=" + typeIndex.size() + 
-                          ", relatedIdIndex=" + relatedIdIndex.size());
-    }
+        allSnapshot = null;
 
-    /** Save CSV */
-    private static void saveTransactions() {
-        try {
-            Path path = Paths.get(TRANSACTION_FILE);
-            Files.createDirectories(path.getParent());
-            
-            try (PrintWriter pw = new PrintWriter(new FileWriter(TRANSACTION_FILE))) {
-                pw.println("transactionId,userId,type,amount,date,description,relatedId");
-
-                for (Transaction t : transactions) {
-                    pw.println(t.toCSV());
-                }
-            }
-            System.out.println("Transactions saved to: " + TRANSACTION_FILE + " (count: " + transactions.size() + ")");
-        } catch (IOException e) {
-            System.err.println("ERROR saving transactions: " + e.getMessage());
-            e.printStackTrace();
+        Set<List<Transaction>> unsorted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Transaction t : added) {
+            indexTransaction(t, unsorted);
+        }
+        for (List<Transaction> sorted : unsorted) {
+            sorted.sort(DATE_ORDER); // two sorted runs (TimSort merges them) unless added rows were out of order
         }
     }
 
-    /** Add transaction */
-    public static void addTransaction(Transaction t) {
-        if (t == null) {
-            System.err.println("ERROR: Cannot add null transaction!");
-            return;
-        }
-        System.out.println("Adding transaction: " + t.getTransactionId() + ", userId: " + t.getUserId() + ", amount: " + t.getAmount());
-        transactions.add(t);
-        saveTransactions();
-        
-        // ========== Update HashTable Indexes ==========
-        // Update userId index
+    /**
+     * Add one transaction to all indexes and the column store - O(log n)
+     * @param unsorted Collects composite lists that got a row out of order (sorted by the caller once)
+     */
+    private static void indexTransaction(Transaction t, Set<List<Transaction>> unsorted) {
+        columns.append(t);
+        partitionAnalytics.computeIfAbsent(YearMonth.from(t.getDate()), m -> new AnalyticsService()).recordTransaction(t);
+
+        // Index by userId
         List<Transaction> userList = userIdIndex.get(t.getUserId());
         if (userList == null) {
             userList = new ArrayList<>();
@@ -156,7 +194,7 @@ public class TransactionDataUtil {
         }
         userList.add(t);
         
-        // Update type index
+        // Index by type
         List<Transaction> typeList = typeIndex.get(t.getType());
         if (typeList == null) {
             typeList = new ArrayList<>();
@@ -164,18 +202,228 @@ public class TransactionDataUtil {
         }
         typeList.add(t);
         
-        // Update relatedId index
+        // Index by relatedId (the newest transaction wins, whatever order partitions are loaded in)
         if (t.getRelatedId() != null && !t.getRelatedId().isEmpty()) {
-            relatedIdIndex.put(t.getRelatedId(), t);
+            Transaction current = relatedIdIndex.get(t.getRelatedId());
+            if (current == null || !t.getDate().isBefore(current.getDate())) {
+                relatedIdIndex.put(t.getRelatedId(), t);
+            }
         }
-        // ======================================
-        
-        System.out.println("Transaction saved. Total transactions: " + transactions.size());
+
+        // Ordered indexes by (date, transactionId) - O(log n)
+        dateIndex.insert(t);
+        TransactionBST userTree = userDateIndex.get(t.getUserId());
+        if (userTree == null) {
+            userTree = new TransactionBST();
+            userDateIndex.put(t.getUserId(), userTree);
+        }
+        userTree.insert(t);
+
+        // Composite indexes (userId, date) and (userId, type, date)
+        List<Transaction> userSorted = userSortedIndex.get(t.getUserId());
+        if (userSorted == null) {
+            userSorted = new ArrayList<>();
+            userSortedIndex.put(t.getUserId(), userSorted);
+        }
+        appendSorted(userSorted, t, unsorted);
+
+        Map<Transaction.TransactionType, List<Transaction>> byType = userTypeIndex.get(t.getUserId());
+        if (byType == null) {
+            byType = new EnumMap<>(Transaction.TransactionType.class);
+            userTypeIndex.put(t.getUserId(), byType);
+        }
+        appendSorted(byType.computeIfAbsent(t.getType(), k -> new ArrayList<>()), t, unsorted);
+    }
+
+    /**
+     * Append to a list sorted by (date, transactionId)
+     * Time Complexity: O(1); a row older than the last one marks the list for one merge sort
+     * after the batch instead of shifting the list per row
+     */
+    private static void appendSorted(List<Transaction> sorted, Transaction t, Set<List<Transaction>> unsorted) {
+        int last = sorted.size() - 1;
+        if (last >= 0 && DATE_ORDER.compare(sorted.get(last), t) > 0) {
+            unsorted.add(sorted);
+        }
+        sorted.add(t);
+    }
+
+    /**
+     * Add transaction
+     * Waits for the fsync without holding the class lock, so concurrent callers share one
+     * group commit (see TransactionLedger)
+     * @return false if it could not be saved (it is then not cached either)
+     */
+    public static boolean addTransaction(Transaction t) {
+        if (t == null) {
+            System.err.println("ERROR: Cannot add null transaction!");
+            return false;
+        }
+        System.out.println("Adding transaction: " + t.getTransactionId() + ", userId: " + t.getUserId() + ", amount: " + t.getAmount());
+
+        // Append one line to the month's ledger and wait until its batch is fsynced
+        List<Transaction> one = Collections.singletonList(t);
+        List<Transaction> written = appendToStore(one);
+        if (written.isEmpty()) {
+            System.err.println("ERROR saving transaction: " + t.getTransactionId());
+            return false;
+        }
+
+        System.out.println("Transaction saved. Total transactions: " + store.totalRows());
+        return true;
+    }
+
+    /**
+     * Add many transactions at once (bulk import / migration)
+     * Records are appended to their partitions with one fsync per partition - no
+     * per-transaction file write
+     * @param batch Transactions to add (null elements are skipped)
+     * @return Number of transactions saved (fewer than given if a partition write failed;
+     *         only the saved ones are cached)
+     */
+    public static int addTransactions(Collection<Transaction> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Transaction> valid = new ArrayList<>(batch.size());
+        for (Transaction t : batch) {
+            if (t != null) valid.add(t);
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        List<Transaction> written = appendToStore(valid);
+        if (written.size() < valid.size()) {
+            System.err.println("ERROR saving batch: " + (valid.size() - written.size())
+                    + " of " + valid.size() + " transactions not saved");
+        }
+        System.out.println("Transactions saved: " + written.size() + ". Total transactions: " + store.totalRows());
+        return written.size();
+    }
+
+    /**
+     * Append to the store (the wait for durability runs outside the class lock), then cache
+     * the transactions that were written
+     * @return The transactions that are on disk
+     */
+    private static List<Transaction> appendToStore(List<Transaction> added) {
+        synchronized (TransactionDataUtil.class) {
+            for (Transaction t : added) {
+                inFlight.put(t.getTransactionId(), t);
+            }
+        }
+        List<Transaction> written = Collections.emptyList();
+        try {
+            written = store.append(added);
+        } finally {
+            synchronized (TransactionDataUtil.class) {
+                for (Transaction t : added) {
+                    inFlight.remove(t.getTransactionId());
+                }
+                // Update cache and HashTable Indexes (only if the partition is in memory)
+                cacheAppended(written);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Add newly written transactions to the cache of their partitions
+     * Rows of partitions that are not loaded are skipped: they are read from disk when the partition is loaded
+     */
+    private static void cacheAppended(List<Transaction> added) {
+        List<Transaction> cached = new ArrayList<>(added.size());
+        for (Transaction t : added) {
+            List<Transaction> rows = loadedPartitions.get(YearMonth.from(t.getDate()));
+            if (rows != null) {
+                rows.add(t);
+                cached.add(t);
+            }
+        }
+        indexRows(cached);
+    }
+
+    /**
+     * Get all transactions (loads every partition)
+     * The result is an unmodifiable snapshot in month order: it does not change when
+     * transactions are added or partitions loaded later (the next call returns a new one)
+     */
+    public static synchronized List<Transaction> getAllTransactions() {
+        ensureAllLoaded();
+        if (allSnapshot == null) {
+            List<Transaction> all = new ArrayList<>(store.totalRows());
+            for (List<Transaction> rows : loadedPartitions.values()) {
+                all.addAll(rows);
+            }
+            allSnapshot = Collections.unmodifiableList(all);
+        }
+        return allSnapshot;
+    }
+
+    /**
+     * Get transactions dated within [from, to] (inclusive), ordered by (date, transactionId)
+     * Only partitions whose manifest date range overlaps the query are read (partition pruning),
+     * then the range is answered from the ordered date index: O(log n + k), no scan or sort
+     * @param from First date, or null for unbounded
+     * @param to Last date, or null for unbounded
+     */
+    public static synchronized List<Transaction> getTransactionsBetween(LocalDate from, LocalDate to) {
+        ensureLoaded(store.overlapping(from, to));
+        return dateIndex.rangeQuery(from, to);
     }
 
-    /** Get all transactions */
-    public static List<Transaction> getAllTransactions() {
-        return Collections.unmodifiableList(transactions);
+    /**
+     * Get one user's transactions dated within [from, to] (inclusive), ordered by (date, transactionId)
+     * Only the user's partitions that overlap the range are read; the range is answered from
+     * the user's ordered index: O(1) HashTable lookup + O(log n + k) range query
+     * @param from First date, or null for unbounded
+     * @param to Last date, or null for unbounded
+     */
+    public static synchronized List<Transaction> getTransactionsByUserBetween(String userId, LocalDate from, LocalDate to) {
+        List<YearMonth> months = new ArrayList<>(store.monthsOfUser(userId));
+        months.retainAll(store.overlapping(from, to));
+        ensureLoaded(months);
+
+        TransactionBST userTree = userDateIndex.get(userId);
+        return userTree != null ? userTree.rangeQuery(from, to) : new ArrayList<>();
+    }
+
+    /**
+     * Get the n most recent transactions, newest first
+     * Partitions are read from the newest month backwards until n rows are found
+     */
+    public static synchronized List<Transaction> getLatestTransactions(int n) {
+        List<Transaction> result = new ArrayList<>();
+        for (YearMonth month : store.partitions().descendingKeySet()) {
+            if (result.size() >= n) break;
+            ensureLoaded(Collections.singletonList(month));
+
+            List<Transaction> rows = new ArrayList<>(loadedPartitions.get(month));
+            Collections.reverse(rows); // latest appended first within a day
+            rows.sort(Comparator.comparing(Transaction::getDate).reversed());
+            for (Transaction t : rows) {
+                if (result.size() >= n) break;
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /** Number of stored transactions (from the manifest, nothing is loaded) */
+    public static int getTransactionCount() {
+        return store.totalRows();
+    }
+
+    /** Sum of all amounts in cents (from the manifest, nothing is loaded) */
+    public static long getTotalCents() {
+        return store.totalCents();
+    }
+
+    /** Number of distinct users with at least one transaction (from the user index, nothing is loaded) */
+    public static int getPayingUserCount() {
+        return store.userCount();
     }
 
     /** 
@@ -183,19 +431,47 @@ public class TransactionDataUtil {
      * Optimized using HashTable index: O(1) search
      * Before optimization: O(n) linear search
      * After optimization: O(1) HashTable search
+     * Only the partitions listed for the user in the user index are loaded
      */
-    public static List<Transaction> getTransactionsByUserId(String userId) {
+    public static synchronized List<Transaction> getTransactionsByUserId(String userId) {
+        ensureLoaded(store.monthsOfUser(userId));
         List<Transaction> result = userIdIndex.get(userId);
         return result != null ? new ArrayList<>(result) : new ArrayList<>();
     }
 
+    /**
+     * Get a user's transactions newest first, optionally only one type
+     * Served from the composite (userId, type, date) indexes: O(1) lookup, already sorted;
+     * the result is a copy, so it does not change when transactions are added later.
+     * Time Complexity: O(k) for the user's k matching transactions
+     * @param type Transaction type, or null for all types
+     */
+    public static synchronized List<Transaction> getUserTransactionsNewestFirst(String userId, Transaction.TransactionType type) {
+        ensureLoaded(store.monthsOfUser(userId));
+
+        List<Transaction> sorted;
+        if (type == null) {
+            sorted = userSortedIndex.get(userId);
+        } else {
+            Map<Transaction.TransactionType, List<Transaction>> byType = userTypeIndex.get(userId);
+            sorted = byType != null ? byType.get(type) : null;
+        }
+        if (sorted == null) {
+            return new ArrayList<>();
+        }
+        List<Transaction> newestFirst = new ArrayList<>(sorted);
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
     /** 
      * Get transactions by type
      * Optimized using HashTable index: O(1) search
      * Before optimization: O(n) linear search
      * After optimization: O(1) HashTable search
      */
-    public static List<Transaction> getTransactionsByType(Transaction.TransactionType type) {
+    public static synchronized List<Transaction> getTransactionsByType(Transaction.TransactionType type) {
+        ensureAllLoaded();
         List<Transaction> result = typeIndex.get(type);
         return result != null ? new ArrayList<>(result) : new ArrayList<>();
     }
@@ -206,17 +482,63 @@ public class TransactionDataUtil {
      * Before optimization: O(n) linear search
      * After optimization: O(1) HashTable search
      */
-    public static Transaction getTransactionByRelatedId(String relatedId) {
+    public static synchronized Transaction getTransactionByRelatedId(String relatedId) {
         if (relatedId == null || relatedId.isEmpty()) {
             return null;
         }
+        ensureAllLoaded();
         return relatedIdIndex.get(relatedId);
     }
 
+    /**
+     * Total cents per day within [from, to] (dates in order), grouped over the column store
+     * under the class lock, so no append can change the columns while they are read
+     * Only the partitions overlapping the range are loaded.
+     * @param type Transaction type, or null for all types
+     * @param from First date, or null for unbounded
+     * @param to Last date, or null for unbounded
+     */
+    public static synchronized SortedMap<LocalDate, Long> getCentsByDay(Transaction.TransactionType type,
+                                                                        LocalDate from, LocalDate to) {
+        ensureLoaded(store.overlapping(from, to));
+        return columns.sumCentsByDay(type, from, to);
+    }
+
+    /** Date of the newest transaction, or null if there are none (from the manifest, nothing is loaded) */
+    public static LocalDate getLatestDate() {
+        return store.latestDate();
+    }
+
+    /**
+     * Sketches of the transactions dated within [from, to], merged from the per-partition
+     * sketches (kept up to date as rows are loaded or appended - no rescan)
+     * Partitions are pruned by month, so cells of weeks that straddle the bounds may
+     * include activity just outside the range.
+     * @param from First date, or null for unbounded
+     * @param to Last date, or null for unbounded
+     * @return A new service: the caller may record more events into it
+     */
+    public static synchronized AnalyticsService getAnalytics(LocalDate from, LocalDate to) {
+        List<YearMonth> months = store.overlapping(from, to);
+        ensureLoaded(months);
+
+        AnalyticsService merged = new AnalyticsService();
+        for (YearMonth month : months) {
+            AnalyticsService partition = partitionAnalytics.get(month);
+            if (partition != null) {
+                merged.merge(partition);
+            }
+        }
+        return merged;
+    }
+
+    /** Block until all appended transactions are on disk (and the manifest is written) */
+    public static void flush() {
+        store.flush();
+    }
+
     /** Reload data (refresh after external CSV modification) */
     public static void reload() {
         loadTransactions();
-        buildIndexes(); // Rebuild indexes
     }
 }
-
@@ -0,0 +1,315 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Append-only ledger file with group commit
+ *
+ * Records are queued in memory and written by a single background writer.
+ * The writer waits a short window so records from concurrent callers end up in one
+ * write + one fsync ("group commit"); callers block only until their own record is durable.
+ * Cost per record is one buffered append, independent of the file size.
+ *
+ * Recovery: a record is only acknowledged after its line terminator is on disk, so a crash
+ * can at most leave one incomplete last line. {@link #recover()} cuts it off before the
+ * file is read or appended to again. A batch that fails to write (or to fsync) is cut off
+ * the same way before its callers are told, so later batches never follow a torn line.
+ */
+public class TransactionLedger {
+
+    /** How long the writer waits for more records before syncing a batch */
+    private static final long GROUP_COMMIT_WINDOW_MS = 2;
+
+    /** Sync early once this many records are waiting */
+    private static final int MAX_BATCH = 512;
+
+    private final Path path;
+    private final Object lock = new Object();
+
+    /** Records waiting for the writer */
+    private List<String> pending = new ArrayList<>();
+
+    /** Sequence number of the last queued record */
+    private long appendedSeq = 0;
+
+    /** Sequence number of the last record that is on disk */
+    private long durableSeq = 0;
+
+    /**
+     * Sequence ranges of batches that failed to write: first seq → last seq
+     * (adjacent failed batches are merged, so this stays small even if the disk keeps failing)
+     */
+    private final TreeMap<Long, Long> failedRanges = new TreeMap<>();
+
+    /** Current writer thread (null = none; an old writer exits when it sees it was replaced) */
+    private Thread writer;
+
+    public TransactionLedger(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Queue one record (a line without terminator)
+     * @return Sequence number to pass to {@link #awaitDurable(long)}
+     */
+    public long append(String record) {
+        synchronized (lock) {
+            ensureWriter();
+            pending.add(record);
+            appendedSeq++;
+            lock.notifyAll();
+            return appendedSeq;
+        }
+    }
+
+    /**
+     * Queue several records; they are written in order and usually in one batch
+     * @return Sequence number of the last record
+     */
+    public long appendAll(List<String> records) {
+        synchronized (lock) {
+            ensureWriter();
+            pending.addAll(records);
+            appendedSeq += records.size();
+            lock.notifyAll();
+            return appendedSeq;
+        }
+    }
+
+    /**
+     * Block until the record with the given sequence number (and all before it) is fsynced
+     * @return false if the write failed or the wait was interrupted
+     */
+    public boolean awaitDurable(long seq) {
+        synchronized (lock) {
+            while (durableSeq < seq && !failed(seq)) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return durableSeq >= seq && !failed(seq);
+        }
+    }
+
+    /** True if the record was in a batch that failed (any batch, not just the last one) */
+    private boolean failed(long seq) {
+        Map.Entry<Long, Long> range = failedRanges.floorEntry(seq);
+        return range != null && seq <= range.getValue();
+    }
+
+    private void recordFailure(long from, long to) {
+        Map.Entry<Long, Long> last = failedRanges.lastEntry();
+        if (last != null && last.getValue() == from - 1) {
+            failedRanges.put(last.getKey(), to);
+        } else {
+            failedRanges.put(from, to);
+        }
+    }
+
+    /** Block until everything queued so far is on disk */
+    public boolean flush() {
+        long seq;
+        synchronized (lock) {
+            seq = appendedSeq;
+        }
+        return awaitDurable(seq);
+    }
+
+    /**
+     * Repair an unterminated last line left by a crash (call before reading the file)
+     * Pending records are flushed first, so nothing queued is lost.
+     * @param isComplete Decides whether the unterminated line is still a whole record
+     *                   (e.g. a hand-edited file without final newline); if so it is
+     *                   terminated, otherwise it is cut off
+     */
+    public void recover(Predicate<String> isComplete) {
+        flush();
+        synchronized (lock) {
+            if (!Files.exists(path)) {
+                return;
+            }
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = ch.size();
+                long end = size;
+                ByteBuffer one = ByteBuffer.allocate(1);
+                while (end > 0) {
+                    one.clear();
+                    ch.read(one, end - 1);
+                    if (one.get(0) == '\n') {
+                        break;
+                    }
+                    end--;
+                }
+                if (end == size) {
+                    return;
+                }
+
+                ByteBuffer tail = ByteBuffer.allocate((int) (size - end));
+                while (tail.hasRemaining() && ch.read(tail, end + tail.position()) > 0) {
+                    // read the whole tail
+                }
+                String lastLine = new String(tail.array(), StandardCharsets.UTF_8).trim();
+
+                if (!lastLine.isEmpty() && isComplete.test(lastLine)) {
+                    ch.write(ByteBuffer.wrap(new byte[] {'\n'}), size);
+                } else {
+                    System.err.println("Ledger " + path + ": dropping incomplete last record ("
+                            + (size - end) + " bytes)");
+                    ch.truncate(end);
+                }
+                ch.force(true);
+            } catch (IOException e) {
+                System.err.println("ERROR recovering ledger " + path + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Flush and stop the writer (it closes the file); a later append starts a new one */
+    public void close() {
+        flush();
+        synchronized (lock) {
+            writer = null;
+            lock.notifyAll();
+        }
+    }
+
+    // =========================================================
+    //               Writer thread
+    // =========================================================
+
+    private void ensureWriter() {
+        if (writer == null) {
+            writer = new Thread(this::writeLoop, "ledger-writer-" + path.getFileName());
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Writer loop: take everything queued, write it with one fsync, wake the waiters
+     * Only this thread touches the channel
+     */
+    private void writeLoop() {
+        Thread self = Thread.currentThread();
+        FileChannel channel = null;
+        // File size before a failed batch whose bytes could not be cut off yet (-1 = none)
+        long cutBackTo = -1;
+        try {
+            while (true) {
+                List<String> batch;
+                long batchStart;
+                long batchEnd;
+                synchronized (lock) {
+                    while (writer == self && pending.isEmpty()) {
+                        lock.wait();
+                    }
+                    if (writer != self) {
+                        return;
+                    }
+                    // Give concurrent callers a moment to join this batch
+                    long deadline = System.currentTimeMillis() + GROUP_COMMIT_WINDOW_MS;
+                    long remaining;
+                    while (pending.size() < MAX_BATCH
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        lock.wait(remaining);
+                    }
+                    batch = pending;
+                    batchEnd = appendedSeq;
+                    batchStart = batchEnd - batch.size() + 1;
+                    pending = new ArrayList<>();
+                }
+
+                IOException error = null;
+                try {
+                    if (channel == null) {
+                        channel = openForAppend();
+                    }
+                    if (cutBackTo >= 0) {
+                        truncate(channel, cutBackTo);
+                        cutBackTo = -1;
+                    }
+                    long start = channel.size();
+                    try {
+                        writeBatch(channel, batch);
+                    } catch (IOException e) {
+                        cutBackTo = start;
+                        throw e;
+                    }
+                } catch (IOException e) {
+                    error = e;
+                    if (cutBackTo >= 0 && channel != null) {
+                        // Cut off whatever part of the batch made it before reporting the failure
+                        try {
+                            truncate(channel, cutBackTo);
+                            cutBackTo = -1;
+                        } catch (IOException te) {
+                            e.addSuppressed(te); // retried before the next batch is written
+                        }
+                    }
+                    System.err.println("ERROR writing ledger " + path + ": " + e.getMessage());
+                    e.printStackTrace();
+                    channel = closeQuietly(channel);
+                }
+
+                synchronized (lock) {
+                    if (error != null) {
+                        recordFailure(batchStart, batchEnd);
+                    }
+                    durableSeq = batchEnd; // a failed batch does not hold back later ones
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        return FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void writeBatch(FileChannel channel, List<String> batch) throws IOException {
+        StringBuilder sb = new StringBuilder(batch.size() * 160);
+        for (String record : batch) {
+            sb.append(record).append('\n');
+        }
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        channel.force(false);
+    }
+
+    private static void truncate(FileChannel channel, long size) throws IOException {
+        channel.truncate(size);
+        channel.force(false);
+    }
+
+    private static FileChannel closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+}
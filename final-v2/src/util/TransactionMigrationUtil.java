@@ -1,45 +1,74 @@
 package util;
 
 import model.Booking;
+import model.Money;
 import model.Space;
 import model.Transaction;
 
-import java.io.*;
-import java.time.LocalDate;
-import java.time.LocalTime;
+import service.SpaceService;
+
 import java.time.Duration;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Utility class to migrate historical booking data to transactions
+ *
+ * Bookings and spaces come from the in-memory stores (BookingDataUtil, SpaceService) instead of
+ * re-parsing the CSV files. Transactions are built in parallel, one partition per booking month,
+ * and saved with a single TransactionDataUtil.addTransactions call (one write, one fsync).
  */
 public class TransactionMigrationUtil {
 
-    private static final String BOOKINGS_FILE = "data/bookings.csv";
-    private static final String SPACES_FILE = "data/spaces.csv";
-
     /**
-     * Migrate all bookings from bookings.csv to transactions.csv
-     * Only migrates bookings with status "booked"
+     * Migrate all bookings from bookings.csv to the transaction store
+     * Only migrates bookings with status "booked" or "completed"
      */
     public static void migrateBookingsToTransactions() {
         Map<String, Space> spaces = loadSpaces();
-        List<Booking> bookings = loadBookings();
-        
-        int migratedCount = 0;
-        int skippedCount = 0;
+        List<Booking> bookings = BookingDataUtil.getAllBookings();
+        Set<String> alreadyMigrated = loadMigratedBookingIds();
 
+        // Partition by month so partitions can be converted independently
+        Map<YearMonth, List<Booking>> partitions = new TreeMap<>();
         for (Booking booking : bookings) {
-            // Only migrate booked (not released) bookings
-            if (!"booked".equals(booking.getStatus())) {
-                skippedCount++;
+            partitions.computeIfAbsent(YearMonth.from(booking.getDate()), m -> new ArrayList<>()).add(booking);
+        }
+
+        // Convert partitions in parallel; the result keeps month order
+        List<Transaction> migrated = partitions.values().parallelStream()
+                .flatMap(partition -> toTransactions(partition, spaces, alreadyMigrated).stream())
+                .collect(Collectors.toList());
+
+        int migratedCount = TransactionDataUtil.addTransactions(migrated);
+        int failedCount = migrated.size() - migratedCount;
+        int skippedCount = bookings.size() - migrated.size();
+
+        System.out.println("Migration completed:");
+        System.out.println("  Migrated: " + migratedCount + " transactions");
+        System.out.println("  Skipped: " + skippedCount + " bookings (already migrated, released or space not found)");
+        if (failedCount > 0) {
+            System.err.println("  Failed: " + failedCount + " transactions could not be saved (run the migration again)");
+        }
+    }
+
+    /**
+     * Build the transactions of one partition (reads only the given maps, never the stores)
+     * @param alreadyMigrated Ids of the bookings that already have a transaction
+     */
+    private static List<Transaction> toTransactions(List<Booking> partition, Map<String, Space> spaces,
+                                                    Set<String> alreadyMigrated) {
+        List<Transaction> result = new ArrayList<>();
+
+        for (Booking booking : partition) {
+            // Only migrate booked or completed (not released) bookings
+            if (!booking.isBookedOrCompleted()) {
                 continue;
             }
 
             // Check if transaction already exists for this booking
-            Transaction existing = TransactionDataUtil.getTransactionByRelatedId(booking.getBookingId());
-            if (existing != null) {
-                skippedCount++;
+            if (alreadyMigrated.contains(booking.getBookingId())) {
                 continue; // Already migrated
             }
 
@@ -48,20 +77,18 @@ public class TransactionMigrationUtil {
             if (space == null) {
                 System.err.println("Warning: Space not found for booking " + booking.getBookingId() + 
                                  ", spaceId: " + booking.getSpaceId());
-                skippedCount++;
                 continue;
             }
 
             // Calculate amount based on duration and creditsPerHour
             long minutes = Duration.between(booking.getStartTime(), booking.getEndTime()).toMinutes();
-            double amount = (minutes / 60.0) * space.getCreditsPerHour();
+            Money amount = Money.of(space.getCreditsPerHour()).times(minutes, 60);
 
             // Create description
             String description = String.format("Booking: %s (%s) - %s %s-%s",
                     space.getName(), space.getType(), booking.getDate(), 
                     booking.getStartTime(), booking.getEndTime());
 
-            // Create and save transaction
             Transaction transaction = new Transaction(
                     booking.getUserId(),
                     Transaction.TransactionType.BOOKING,
@@ -70,97 +97,38 @@ public class TransactionMigrationUtil {
                     description,
                     booking.getBookingId()
             );
-
-            TransactionDataUtil.addTransaction(transaction);
-            migratedCount++;
+            transaction.setBuilding(space.getBuilding());
+            result.add(transaction);
         }
-
-        System.out.println("Migration completed:");
-        System.out.println("  Migrated: " + migratedCount + " transactions");
-        System.out.println("  Skipped: " + skippedCount + " bookings (already migrated or released)");
+        return result;
     }
 
     /**
-     * Load all spaces from spaces.csv
+     * relatedIds of the stored transactions (the bookings migrated before), collected once
+     * before the parallel conversion
      */
-    private static Map<String, Space> loadSpaces() {
-        Map<String, Space> spaces = new HashMap<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(SPACES_FILE))) {
-            String line;
-            boolean isFirstLine = true;
-
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                if (line.trim().isEmpty()) continue;
-
-                try {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 9) {
-                        Space space = new Space(
-                                parts[0], parts[1], parts[2], parts[3], parts[4], parts[5],
-                                Integer.parseInt(parts[6]), parts[7], Double.parseDouble(parts[8])
-                        );
-                        spaces.put(space.getSpaceId(), space);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing space: " + line);
-                    e.printStackTrace();
-                }
+    private static Set<String> loadMigratedBookingIds() {
+        Set<String> ids = new HashSet<>();
+        for (Transaction t : TransactionDataUtil.getAllTransactions()) {
+            if (t.getRelatedId() != null) {
+                ids.add(t.getRelatedId());
             }
-        } catch (FileNotFoundException e) {
-            System.err.println("Spaces file not found: " + SPACES_FILE);
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-
-        return spaces;
+        return ids;
     }
 
     /**
-     * Load all bookings from bookings.csv
+     * spaceId -> Space, from the space service cache
      */
-    private static List<Booking> loadBookings() {
-        List<Booking> bookings = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(BOOKINGS_FILE))) {
-            String line;
-            boolean isFirstLine = true;
-
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                if (line.trim().isEmpty()) continue;
-
-                try {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 7) {
-                        Booking booking = new Booking(
-                                parts[0], parts[1], parts[2],
-                                LocalDate.parse(parts[3]),
-                                LocalTime.parse(parts[4]),
-                                LocalTime.parse(parts[5]),
-                                parts[6]
-                        );
-                        bookings.add(booking);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing booking: " + line);
-                    e.printStackTrace();
-                }
-            }
-        } catch (FileNotFoundException e) {
-            System.err.println("Bookings file not found: " + BOOKINGS_FILE);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private static Map<String, Space> loadSpaces() {
+        SpaceService spaceService = new SpaceService();
+        spaceService.loadSpacesFromCSV();
 
-        return bookings;
+        Map<String, Space> spaces = new HashMap<>();
+        for (Space space : spaceService.getCachedSpaces()) {
+            spaces.put(space.getSpaceId(), space);
+        }
+        return spaces;
     }
 
     /**
@@ -0,0 +1,664 @@
+package util;
+
+import model.Money;
+import model.Transaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Month-partitioned transaction files
+ *
+ * Layout:
+ *   data/transactions/2025-11.csv    one append-only ledger per month (by transaction date)
+ *   data/transactions/manifest.csv   partition,minDate,maxDate,rows,bytes,cents
+ *   data/transactions/users.idx      userId,month;month;...  (months in which a user has transactions)
+ *   data/transactions/2025-11.bin    binary snapshot of a partition (see BinarySnapshot)
+ *
+ * The manifest lets callers find the partitions overlapping a date range (and count rows
+ * and sum amounts) without opening any partition file. Appends only update it in memory;
+ * it is written atomically by checkpoint() (on flush and at shutdown). If it is missing or
+ * does not match a partition file (size differs, e.g. after a crash), the partition is
+ * rescanned and the manifest repaired on open.
+ * The user index lets a per-user query read only that user's partitions; it is checkpointed
+ * with the manifest and written before it, so a crash in between is caught by the manifest
+ * check and repaired by the rescan.
+ *
+ * Reading a partition uses its snapshot for the rows it covers and only parses the CSV lines
+ * appended after it; the snapshot is then rewritten to cover the whole file.
+ *
+ * A legacy single data/transactions.csv is split into partitions on first open and then
+ * renamed to transactions.csv.migrated.
+ */
+public class TransactionPartitionStore {
+
+    private static final String HEADER = "transactionId,userId,type,amount,date,description,relatedId,building,paidOn";
+    private static final String MANIFEST_HEADER = "partition,minDate,maxDate,rows,bytes,cents";
+    private static final String MANIFEST_FILE = "manifest.csv";
+    private static final String USER_INDEX_FILE = "users.idx";
+
+    /** Snapshot record: id, userId, type, cents, date, description, relatedId, building, paidOn */
+    private static final int SNAPSHOT_RECORD = BinarySnapshot.ID_BYTES * 3 + 1 + 8 + 4 + 4 + 4 + 4;
+
+    /** Snapshot value of a missing building / paidOn */
+    private static final String NO_BUILDING = "";
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Manifest entry of one month partition
+     */
+    public static class PartitionInfo {
+        private final YearMonth month;
+        private LocalDate minDate;
+        private LocalDate maxDate;
+        private int rows;
+        private long bytes;
+        private long cents;
+
+        PartitionInfo(YearMonth month) {
+            this.month = month;
+        }
+
+        void include(Transaction t) {
+            LocalDate date = t.getDate();
+            if (minDate == null || date.isBefore(minDate)) minDate = date;
+            if (maxDate == null || date.isAfter(maxDate)) maxDate = date;
+            rows++;
+            cents += t.getAmountCents();
+        }
+
+        /** True if some row may fall into [from, to] (null = unbounded) */
+        boolean overlaps(LocalDate from, LocalDate to) {
+            if (rows == 0 || minDate == null) return false;
+            return (from == null || !maxDate.isBefore(from)) && (to == null || !minDate.isAfter(to));
+        }
+
+        public YearMonth getMonth() { return month; }
+        public LocalDate getMinDate() { return minDate; }
+        public LocalDate getMaxDate() { return maxDate; }
+        public int getRows() { return rows; }
+        public long getBytes() { return bytes; }
+        public long getCents() { return cents; }
+
+        String toCSV() {
+            return String.join(",", month.toString(),
+                    minDate != null ? minDate.toString() : "",
+                    maxDate != null ? maxDate.toString() : "",
+                    String.valueOf(rows), String.valueOf(bytes), String.valueOf(cents));
+        }
+
+        static PartitionInfo fromCSV(String line) {
+            String[] p = line.split(",", -1);
+            if (p.length < 5) {
+                throw new IllegalArgumentException("Invalid manifest line: " + line);
+            }
+            PartitionInfo info = new PartitionInfo(YearMonth.parse(p[0]));
+            info.minDate = p[1].isEmpty() ? null : LocalDate.parse(p[1]);
+            info.maxDate = p[2].isEmpty() ? null : LocalDate.parse(p[2]);
+            info.rows = Integer.parseInt(p[3]);
+            info.bytes = Long.parseLong(p[4]);
+            if (p.length > 5) {
+                info.cents = Long.parseLong(p[5]);
+            } else {
+                info.bytes = -1; // manifest without amounts: rescan the partition once
+            }
+            return info;
+        }
+    }
+
+    private final Path dir;
+    private final Path legacyFile;
+    private final TreeMap<YearMonth, PartitionInfo> manifest = new TreeMap<>();
+    private final Map<YearMonth, TransactionLedger> ledgers = new HashMap<>();
+
+    /** userId → months with at least one transaction of the user */
+    private final Map<String, TreeSet<YearMonth>> userMonths = new HashMap<>();
+
+    /** Manifest / user index changed in memory since they were last written */
+    private boolean manifestDirty = false;
+    private boolean userIndexDirty = false;
+
+    /** Incremented by open(); an append that spans a reopen leaves the re-read manifest alone */
+    private int epoch = 0;
+
+    /**
+     * @param dir Partition directory (e.g. data/transactions)
+     * @param legacyFile Old single-file store to migrate from (e.g. data/transactions.csv)
+     */
+    public TransactionPartitionStore(Path dir, Path legacyFile) {
+        this.dir = dir;
+        this.legacyFile = legacyFile;
+    }
+
+    // =========================================================
+    //               Open / manifest
+    // =========================================================
+
+    /**
+     * Read the manifest (no partition rows are loaded), migrating or repairing if needed
+     */
+    public synchronized void open() {
+        flush();
+        epoch++;
+        manifest.clear();
+        userMonths.clear();
+        manifestDirty = false;
+        userIndexDirty = false;
+        try {
+            Files.createDirectories(dir);
+            Path manifestPath = dir.resolve(MANIFEST_FILE);
+            boolean indexPresent = readUserIndex();
+            Set<YearMonth> scanned = new HashSet<>();
+
+            boolean manifestChanged;
+            if (!Files.exists(manifestPath) && Files.exists(legacyFile)) {
+                migrateLegacy(scanned);
+                manifestChanged = true;
+            } else {
+                readManifest(manifestPath);
+                manifestChanged = verifyPartitions(scanned) || !Files.exists(manifestPath);
+            }
+
+            boolean indexChanged = !scanned.isEmpty();
+            if (!indexPresent) {
+                // One-time build of the user index
+                for (YearMonth month : manifest.keySet()) {
+                    if (!scanned.contains(month)) {
+                        indexUsers(month, read(month));
+                        indexChanged = true;
+                    }
+                }
+            }
+            if (indexChanged) {
+                writeUserIndex();
+            }
+            if (manifestChanged) {
+                writeManifest();
+            }
+
+            if (Files.exists(legacyFile)) {
+                // Migration finished earlier but the old file was not renamed yet
+                Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".migrated"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR opening transaction partitions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        System.out.println("Transaction manifest loaded: " + manifest.size() + " partitions, "
+                + totalRows() + " rows");
+    }
+
+    private void readManifest(Path manifestPath) throws IOException {
+        if (!Files.exists(manifestPath)) {
+            return;
+        }
+        List<String> lines = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (i == 0 && line.startsWith("partition,")) continue;
+            if (line.isBlank()) continue;
+            try {
+                PartitionInfo info = PartitionInfo.fromCSV(line);
+                manifest.put(info.month, info);
+            } catch (RuntimeException e) {
+                System.err.println("Error parsing manifest line: " + line);
+            }
+        }
+    }
+
+    /**
+     * Rescan partitions whose file is missing from the manifest or changed size
+     * (e.g. a crash between appending and updating the manifest)
+     * @return true if the manifest changed
+     */
+    private boolean verifyPartitions(Set<YearMonth> scanned) throws IOException {
+        boolean changed = false;
+
+        Set<YearMonth> onDisk = new TreeSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(f -> {
+                String name = f.getFileName().toString();
+                if (name.endsWith(".csv") && !name.equals(MANIFEST_FILE)) {
+                    try {
+                        onDisk.add(YearMonth.parse(name.substring(0, name.length() - 4)));
+                    } catch (RuntimeException e) {
+                        // not a partition file
+                    }
+                }
+            });
+        }
+
+        for (YearMonth month : new ArrayList<>(manifest.keySet())) {
+            if (!onDisk.contains(month)) {
+                manifest.remove(month);
+                indexUsers(month, Collections.emptyList());
+                scanned.add(month);
+                changed = true;
+            }
+        }
+        for (YearMonth month : onDisk) {
+            PartitionInfo info = manifest.get(month);
+            if (info == null || info.bytes != Files.size(partitionPath(month))) {
+                System.out.println("Rescanning transaction partition " + month);
+                manifest.put(month, scan(month, read(month), scanned));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Manifest entry and user index entries of a partition, from its rows */
+    private PartitionInfo scan(YearMonth month, List<Transaction> rows, Set<YearMonth> scanned) throws IOException {
+        PartitionInfo info = new PartitionInfo(month);
+        for (Transaction t : rows) {
+            info.include(t);
+        }
+        info.bytes = Files.size(partitionPath(month));
+        indexUsers(month, rows);
+        scanned.add(month);
+        return info;
+    }
+
+    /** Replace the user index entries of one month */
+    private void indexUsers(YearMonth month, List<Transaction> rows) {
+        for (TreeSet<YearMonth> months : userMonths.values()) {
+            months.remove(month);
+        }
+        for (Transaction t : rows) {
+            userMonths.computeIfAbsent(t.getUserId(), u -> new TreeSet<>()).add(month);
+        }
+        userMonths.values().removeIf(Set::isEmpty);
+    }
+
+    /** @return false if there is no index file yet */
+    private boolean readUserIndex() throws IOException {
+        Path path = dir.resolve(USER_INDEX_FILE);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int comma = line.lastIndexOf(',');
+            if (comma <= 0) continue;
+            TreeSet<YearMonth> months = new TreeSet<>();
+            for (String m : line.substring(comma + 1).split(";")) {
+                try {
+                    months.add(YearMonth.parse(m));
+                } catch (RuntimeException e) {
+                    System.err.println("Error parsing user index line: " + line);
+                }
+            }
+            userMonths.put(line.substring(0, comma), months);
+        }
+        return true;
+    }
+
+    private void writeUserIndex() throws IOException {
+        List<String> lines = new ArrayList<>(userMonths.size());
+        for (Map.Entry<String, TreeSet<YearMonth>> e : userMonths.entrySet()) {
+            StringBuilder sb = new StringBuilder(e.getKey()).append(',');
+            boolean first = true;
+            for (YearMonth m : e.getValue()) {
+                if (!first) sb.append(';');
+                sb.append(m);
+                first = false;
+            }
+            lines.add(sb.toString());
+        }
+        AtomicFileUtil.writeLines(dir.resolve(USER_INDEX_FILE), lines);
+    }
+
+    private void writeManifest() throws IOException {
+        List<String> lines = new ArrayList<>(manifest.size() + 1);
+        lines.add(MANIFEST_HEADER);
+        for (PartitionInfo info : manifest.values()) {
+            lines.add(info.toCSV());
+        }
+        AtomicFileUtil.writeLines(dir.resolve(MANIFEST_FILE), lines);
+    }
+
+    /**
+     * Split the legacy single file into month partitions (each written atomically)
+     */
+    private void migrateLegacy(Set<YearMonth> scanned) throws IOException {
+        System.out.println("Migrating " + legacyFile + " to monthly partitions in " + dir);
+        Map<YearMonth, List<String>> byMonth = new TreeMap<>();
+
+        CsvTokenizer csv = CsvTokenizer.open(legacyFile);
+        while (csv.next()) {
+            if (csv.isHeader("transactionId")) continue;
+            try {
+                Transaction t = Transaction.fromCSV(csv);
+                byMonth.computeIfAbsent(YearMonth.from(t.getDate()), m -> {
+                    List<String> l = new ArrayList<>();
+                    l.add(HEADER);
+                    return l;
+                }).add(csv.line());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error parsing transaction line: " + csv.line());
+            }
+        }
+
+        for (Map.Entry<YearMonth, List<String>> e : byMonth.entrySet()) {
+            Files.deleteIfExists(snapshotPath(e.getKey()));
+            AtomicFileUtil.writeLines(partitionPath(e.getKey()), e.getValue());
+            manifest.put(e.getKey(), scan(e.getKey(), read(e.getKey()), scanned));
+        }
+    }
+
+    // =========================================================
+    //               Queries on the manifest
+    // =========================================================
+
+    /** All partitions in month order (manifest only, no I/O) */
+    public synchronized NavigableMap<YearMonth, PartitionInfo> partitions() {
+        return Collections.unmodifiableNavigableMap(new TreeMap<>(manifest));
+    }
+
+    /** Latest transaction date over all partitions, or null if there are none (manifest only) */
+    public synchronized LocalDate latestDate() {
+        return manifest.isEmpty() ? null : manifest.lastEntry().getValue().maxDate;
+    }
+
+    /** Months whose partition may contain rows dated within [from, to] (null = unbounded) */
+    public synchronized List<YearMonth> overlapping(LocalDate from, LocalDate to) {
+        List<YearMonth> result = new ArrayList<>();
+        for (PartitionInfo info : manifest.values()) {
+            if (info.overlaps(from, to)) {
+                result.add(info.month);
+            }
+        }
+        return result;
+    }
+
+    /** Months in which the user has transactions, oldest first (user index only, no I/O) */
+    public synchronized List<YearMonth> monthsOfUser(String userId) {
+        TreeSet<YearMonth> months = userMonths.get(userId);
+        return months != null ? new ArrayList<>(months) : new ArrayList<>();
+    }
+
+    /** Number of distinct users with transactions (user index only, exact) */
+    public synchronized int userCount() {
+        return userMonths.size();
+    }
+
+    /** Sum of all amounts in cents over all partitions (manifest only) */
+    public synchronized long totalCents() {
+        long total = 0;
+        for (PartitionInfo info : manifest.values()) {
+            total += info.cents;
+        }
+        return total;
+    }
+
+    /** Total number of rows over all partitions (manifest only) */
+    public synchronized int totalRows() {
+        int total = 0;
+        for (PartitionInfo info : manifest.values()) {
+            total += info.rows;
+        }
+        return total;
+    }
+
+    // =========================================================
+    //               Read / append
+    // =========================================================
+
+    /**
+     * Read all rows of one partition (file order)
+     * A torn last line from a crash is repaired first; large partitions are parsed in parallel chunks
+     * Safe to call for different months concurrently
+     */
+    public List<Transaction> read(YearMonth month) {
+        List<Transaction> rows = new ArrayList<>();
+        Path path = partitionPath(month);
+        if (!Files.exists(path)) {
+            return rows;
+        }
+        ledger(month).recover(TransactionPartitionStore::isCompleteRecord);
+
+        try {
+            // Snapshot covers a prefix of the (append-only) file: decode it, parse only the rest
+            BinarySnapshot.Reader snapshot = BinarySnapshot.Reader.open(
+                    snapshotPath(month), path, BinarySnapshot.KIND_TRANSACTIONS, SNAPSHOT_RECORD, true);
+            long covered = 0;
+            if (snapshot != null) {
+                rows = new ArrayList<>(snapshot.rows());
+                for (int i = 0; i < snapshot.rows(); i++) {
+                    rows.add(readSnapshotRow(snapshot));
+                }
+                covered = snapshot.sourceSize();
+            }
+
+            ByteBuffer tail = readFrom(path, covered);
+            int end = completeLinesEnd(tail);
+            if (end > 0) {
+                tail.limit(end);
+                rows.addAll(ParallelCsvLoader.load(path, tail, "transactionId", Transaction::fromCSV));
+                writeSnapshot(month, rows, covered + end);
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR reading partition " + path + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return rows;
+    }
+
+    private static Transaction readSnapshotRow(BinarySnapshot.Reader r) {
+        String transactionId = r.getId();
+        String userId = r.getId();
+        Transaction.TransactionType type = Transaction.TransactionType.values()[r.getByte()];
+        long cents = r.getLong();
+        LocalDate date = r.getDate();
+        String description = r.getString();
+        String relatedId = r.getId();
+        String building = r.getString();
+        int paidOn = r.getInt();
+        Transaction t = new Transaction(transactionId, userId, type, Money.ofCents(cents), date, description, relatedId);
+        t.setBuilding(NO_BUILDING.equals(building) ? null : building);
+        t.setPaidOn(paidOn == NO_DATE ? null : LocalDate.ofEpochDay(paidOn));
+        return t;
+    }
+
+    /**
+     * Write the snapshot of a partition (rows = the first sourceSize bytes of the CSV)
+     * A failure only costs a CSV parse on the next read
+     */
+    private void writeSnapshot(YearMonth month, List<Transaction> rows, long sourceSize) {
+        try {
+            BinarySnapshot.Writer w = new BinarySnapshot.Writer(
+                    BinarySnapshot.KIND_TRANSACTIONS, SNAPSHOT_RECORD, rows.size());
+            for (Transaction t : rows) {
+                w.row().putId(t.getTransactionId())
+                        .putId(t.getUserId())
+                        .putByte((byte) t.getType().ordinal())
+                        .putLong(t.getAmountCents())
+                        .putDate(t.getDate())
+                        .putString(t.getDescription())
+                        .putId(t.getRelatedId())
+                        .putString(t.getBuilding() != null ? t.getBuilding() : NO_BUILDING)
+                        .putInt(t.getPaidOn() != null ? (int) t.getPaidOn().toEpochDay() : NO_DATE);
+            }
+            w.writeTo(snapshotPath(month), sourceSize, 0);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR writing snapshot for partition " + month + ": " + e.getMessage());
+        }
+    }
+
+    /** Bytes of a file from an offset to its end */
+    private static ByteBuffer readFrom(Path path, long offset) throws IOException {
+        if (offset == 0) {
+            return CsvTokenizer.readBuffer(path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.max(0, channel.size() - offset));
+            while (buf.hasRemaining() && channel.read(buf, offset + buf.position()) >= 0) {
+                // keep reading until full or end of file
+            }
+            buf.flip();
+            return buf;
+        }
+    }
+
+    /** Length of the buffer up to and including its last line terminator */
+    private static int completeLinesEnd(ByteBuffer buf) {
+        for (int i = buf.limit() - 1; i >= 0; i--) {
+            if (buf.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Append transactions to their month partitions (group commit per partition)
+     * The lines are queued under the store lock (so each ledger keeps call order), but the
+     * wait for the fsync happens outside it: concurrent callers wait together and share a
+     * batch. Manifest and user index are only updated in memory here and written by
+     * checkpoint(); after a crash, the size check on open rescans the partitions appended to since.
+     * @return The transactions that are on disk (all of them unless a partition write failed)
+     */
+    public List<Transaction> append(Collection<Transaction> batch) {
+        Map<YearMonth, List<Transaction>> byMonth = new TreeMap<>();
+        for (Transaction t : batch) {
+            byMonth.computeIfAbsent(YearMonth.from(t.getDate()), m -> new ArrayList<>()).add(t);
+        }
+
+        Map<YearMonth, Long> waits = new TreeMap<>();
+        Map<YearMonth, TransactionLedger> queuedTo = new HashMap<>();
+        Map<YearMonth, Long> lineBytes = new HashMap<>();
+        int queuedEpoch;
+        synchronized (this) {
+            queuedEpoch = epoch;
+            for (Map.Entry<YearMonth, List<Transaction>> e : byMonth.entrySet()) {
+                YearMonth month = e.getKey();
+                Path path = partitionPath(month);
+                try {
+                    if (!Files.exists(path)) {
+                        AtomicFileUtil.writeLines(path, Collections.singletonList(HEADER));
+                        PartitionInfo info = manifest.computeIfAbsent(month, PartitionInfo::new);
+                        info.bytes = Files.size(path);
+                        manifestDirty = true;
+                    }
+                } catch (IOException ex) {
+                    System.err.println("ERROR creating partition " + path + ": " + ex.getMessage());
+                    continue;
+                }
+                List<String> lines = new ArrayList<>(e.getValue().size());
+                long bytes = 0;
+                for (Transaction t : e.getValue()) {
+                    String line = t.toCSV();
+                    lines.add(line);
+                    bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                }
+                TransactionLedger ledger = ledger(month);
+                waits.put(month, ledger.appendAll(lines));
+                queuedTo.put(month, ledger);
+                lineBytes.put(month, bytes);
+            }
+        }
+
+        List<Transaction> written = new ArrayList<>(batch.size());
+        List<YearMonth> durable = new ArrayList<>();
+        for (Map.Entry<YearMonth, Long> w : waits.entrySet()) {
+            if (queuedTo.get(w.getKey()).awaitDurable(w.getValue())) {
+                durable.add(w.getKey());
+                written.addAll(byMonth.get(w.getKey()));
+            }
+        }
+
+        synchronized (this) {
+            if (queuedEpoch != epoch) {
+                // Reopened meanwhile: the rows were on disk before the manifest was re-read
+                return written;
+            }
+            for (YearMonth month : durable) {
+                PartitionInfo info = manifest.computeIfAbsent(month, PartitionInfo::new);
+                for (Transaction t : byMonth.get(month)) {
+                    info.include(t);
+                    userIndexDirty |= userMonths.computeIfAbsent(t.getUserId(), u -> new TreeSet<>()).add(month);
+                }
+                // Bytes counted with the rows they belong to: a checkpoint never records a size whose
+                // rows it does not count (if the file is larger, the next open rescans it)
+                info.bytes += lineBytes.get(month);
+                manifestDirty = true;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Write the manifest and the user index if they changed since the last checkpoint
+     * Called on flush and close; skipping it (crash) only costs a rescan of the partitions
+     * appended to since, on the next open.
+     */
+    public synchronized void checkpoint() {
+        try {
+            // User index first: if we crash before the manifest, the size check rescans the partition
+            if (userIndexDirty) {
+                writeUserIndex();
+                userIndexDirty = false;
+            }
+            if (manifestDirty) {
+                writeManifest();
+                manifestDirty = false;
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR writing transaction manifest: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /** Block until all appended transactions are on disk, then checkpoint the manifest */
+    public void flush() {
+        List<TransactionLedger> all;
+        synchronized (this) {
+            all = new ArrayList<>(ledgers.values());
+        }
+        for (TransactionLedger ledger : all) {
+            ledger.flush();
+        }
+        checkpoint();
+    }
+
+    /** Flush and close all partition ledgers, then checkpoint the manifest */
+    public void close() {
+        List<TransactionLedger> all;
+        synchronized (this) {
+            all = new ArrayList<>(ledgers.values());
+        }
+        for (TransactionLedger ledger : all) {
+            ledger.close();
+        }
+        checkpoint();
+    }
+
+    private synchronized TransactionLedger ledger(YearMonth month) {
+        return ledgers.computeIfAbsent(month, m -> new TransactionLedger(partitionPath(m)));
+    }
+
+    private Path snapshotPath(YearMonth month) {
+        return dir.resolve(month + ".bin");
+    }
+
+    private Path partitionPath(YearMonth month) {
+        return dir.resolve(month + ".csv");
+    }
+
+    /** A ledger line is a whole record if it parses as a transaction */
+    private static boolean isCompleteRecord(String line) {
+        try {
+            Transaction.fromCSV(line);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package util;
+
+import model.User;
+import adt.HashTableADT;
+import datastructure.ChainingHashTable;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * In-memory user directory backed by data/data.csv
+ * The file is read once; login, registration and id → name lookups use HashTable indexes
+ *
+ * Registrations and profile edits do not rewrite data.csv: each one appends a single
+ * CRC-checked record to the write-ahead log data/users.wal (latest record per userId wins).
+ * The log is replayed on load and folded back into data.csv by compaction (a WriteAheadLog
+ * checkpoint: temp file + fsync + atomic rename), so a crash never leaves a half-written user file.
+ */
+public class UserDataUtil {
+
+    private static final String USER_FILE = "data/data.csv";
+    private static final WriteAheadLog journal = new WriteAheadLog(Paths.get("data/users.wal"));
+    private static final String HEADER = "userId,username,password,email,type,membership";
+
+    /**
+     * Compact once the journal holds as many records as there are users (but at least this many):
+     * the O(N) rewrite of data.csv is then paid once per N edits, so an edit costs O(1) amortized,
+     * and the journal replayed on load is never longer than the file itself
+     */
+    private static final int MIN_COMPACT_RECORDS = 64;
+
+    /** Memory Cache (file order) */
+    private static final List<User> users = new ArrayList<>();
+
+    // ========== HashTable Index - O(1) lookups instead of scanning data.csv ==========
+    /** HashTable indexed by userId */
+    private static HashTableADT<String, User> userIdIndex = new ChainingHashTable<>();
+
+    /** HashTable indexed by username (login name, unique) */
+    private static HashTableADT<String, User> usernameIndex = new ChainingHashTable<>();
+
+    /** HashTable indexed by email */
+    private static HashTableADT<String, User> emailIndex = new ChainingHashTable<>();
+    // ==================================================================================
+
+    static {
+        loadUsers();
+    }
+
+    /** Load CSV */
+    public static void loadUsers() {
+        users.clear();
+
+        try {
+            Path path = Paths.get(USER_FILE);
+
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                try (PrintWriter pw = new PrintWriter(new FileWriter(USER_FILE))) {
+                    pw.println(HEADER);
+                }
+            } else {
+                CsvTokenizer csv = CsvTokenizer.open(path);
+
+                while (csv.next()) {
+                    if (csv.isHeader("userId")) continue;
+
+                    try {
+                        users.add(User.fromCSV(csv));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Error parsing user line: " + csv.line());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        buildIndexes();
+        replayJournal();
+    }
+
+    /**
+     * Apply journal records on top of data.csv, then compact
+     * A damaged last record (torn write) is dropped by WriteAheadLog.recover()
+     */
+    private static void replayJournal() {
+        try {
+            int applied = 0;
+            for (String record : journal.recover()) {
+                String line = WriteAheadLog.body(record);
+                try {
+                    applyRecord(User.fromCSV(line));
+                    applied++;
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error parsing user journal record: " + line);
+                }
+            }
+            if (applied == 0) {
+                return;
+            }
+
+            System.out.println("User journal replayed: " + applied + " records");
+            compact();
+        } catch (IOException e) {
+            System.err.println("ERROR replaying user journal: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /** Upsert a journal record into the cache (keyed by userId) */
+    private static void applyRecord(User record) {
+        User existing = getUserById(record.getUserId());
+        if (existing == null) {
+            users.add(record);
+            indexUser(record);
+            return;
+        }
+        unindexUser(existing);
+        copyFields(record, existing);
+        indexUser(existing);
+    }
+
+    private static void copyFields(User from, User to) {
+        to.setUsername(from.getUsername());
+        to.setPassword(from.getPassword());
+        to.setEmail(from.getEmail());
+        to.setType(from.getType());
+        to.setMembership(from.getMembership());
+    }
+
+    /**
+     * Build all indexes (called after loading data)
+     * Time Complexity: O(n), subsequent lookups O(1)
+     */
+    private static void buildIndexes() {
+        userIdIndex = new ChainingHashTable<>();
+        usernameIndex = new ChainingHashTable<>();
+        emailIndex = new ChainingHashTable<>();
+
+        for (User u : users) {
+            indexUser(u);
+        }
+
+        System.out.println("User indexes built: userIdIndex=" + userIdIndex.size() +
+                          ", usernameIndex=" + usernameIndex.size() +
+                          ", emailIndex=" + emailIndex.size());
+    }
+
+    private static void indexUser(User u) {
+        if (u.getUserId() != null) {
+            userIdIndex.put(u.getUserId(), u);
+        }
+        if (u.getUsername() != null) {
+            usernameIndex.put(u.getUsername(), u);
+        }
+        if (u.getEmail() != null && !u.getEmail().isEmpty()) {
+            emailIndex.put(u.getEmail(), u);
+        }
+    }
+
+    private static void unindexUser(User u) {
+        userIdIndex.remove(u.getUserId());
+        if (usernameIndex.get(u.getUsername()) == u) {
+            usernameIndex.remove(u.getUsername());
+        }
+        if (emailIndex.get(u.getEmail()) == u) {
+            emailIndex.remove(u.getEmail());
+        }
+    }
+
+    /**
+     * Append one user record to the journal (fsynced), before the change is applied to the cache
+     * @return false if the record could not be written (the change must then not be applied)
+     */
+    private static boolean appendJournal(User u) {
+        try {
+            journal.append(WriteAheadLog.record(WriteAheadLog.UPSERT, u.toCSV()));
+            return true;
+        } catch (IOException e) {
+            System.err.println("ERROR appending user journal: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /** Compact once the journal holds max(users, MIN_COMPACT_RECORDS) records */
+    private static void compactIfNeeded() {
+        if (journal.size() >= Math.max(users.size(), MIN_COMPACT_RECORDS)) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite data.csv from the cache (temp file + atomic rename), then empty the journal
+     * If the process dies between the two steps, replaying the journal again is harmless
+     */
+    public static void compact() {
+        List<String> lines = new ArrayList<>(users.size() + 1);
+        lines.add(HEADER);
+        for (User u : users) {
+            lines.add(u.toCSV());
+        }
+
+        try {
+            journal.checkpoint(Paths.get(USER_FILE), lines);
+        } catch (IOException e) {
+            System.err.println("ERROR compacting users: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // =============================================
+    // Lookups - O(1) HashTable search
+    // =============================================
+
+    /** Get all users (file order) */
+    public static List<User> getAllUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    public static User getUserById(String userId) {
+        return userId == null ? null : userIdIndex.get(userId);
+    }
+
+    public static User getUserByUsername(String username) {
+        return username == null ? null : usernameIndex.get(username);
+    }
+
+    public static User getUserByEmail(String email) {
+        return email == null ? null : emailIndex.get(email);
+    }
+
+    public static boolean usernameExists(String username) {
+        return getUserByUsername(username) != null;
+    }
+
+    /** Get username for a userId, or null if unknown */
+    public static String getUsernameById(String userId) {
+        User u = getUserById(userId);
+        return u != null ? u.getUsername() : null;
+    }
+
+    /**
+     * Resolve a batch of userIds to usernames in one pass over the index
+     * Duplicate ids are looked up once; unknown ids are left out of the result
+     * Time Complexity: O(k) for k ids
+     * @param userIds userIds to resolve (e.g. the userId column of a table)
+     * @return userId → username
+     */
+    public static Map<String, String> getUsernamesByIds(Collection<String> userIds) {
+        Map<String, String> names = new HashMap<>();
+        for (String userId : userIds) {
+            if (userId == null || names.containsKey(userId)) continue;
+            User u = userIdIndex.get(userId);
+            if (u != null) {
+                names.put(userId, u.getUsername());
+            }
+        }
+        return names;
+    }
+
+    /** Get userId for a username, or null if unknown */
+    public static String getUserIdByUsername(String username) {
+        User u = getUserByUsername(username);
+        return u != null ? u.getUserId() : null;
+    }
+
+    /**
+     * Check login credentials
+     * @return Matching user, or null if username or password is wrong
+     */
+    public static User authenticate(String username, String password) {
+        User u = getUserByUsername(username);
+        if (u != null && u.getPassword() != null && u.getPassword().equals(password)) {
+            return u;
+        }
+        return null;
+    }
+
+    // =============================================
+    // Mutations - keep file and indexes consistent
+    // =============================================
+
+    /**
+     * Register a new user (a userId is generated if missing)
+     * @return false if the username is already taken or the change could not be logged
+     */
+    public static boolean addUser(User u) {
+        if (u == null || u.getUsername() == null) {
+            System.err.println("ERROR: Cannot add null user!");
+            return false;
+        }
+        if (usernameExists(u.getUsername())) {
+            return false;
+        }
+        if (u.getUserId() == null || u.getUserId().isEmpty()) {
+            u.setUserId(UUID.randomUUID().toString());
+        }
+
+        if (!appendJournal(u)) {
+            return false;
+        }
+        users.add(u);
+        indexUser(u);
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Update an existing user, identified by userId
+     * The cached User object is updated in place, so references held elsewhere (e.g. CurrentUser) stay valid
+     * @param updated New field values (userId must match an existing user)
+     * @return false if the user does not exist, the new username belongs to another user,
+     *         or the change could not be logged
+     */
+    public static boolean updateUser(User updated) {
+        if (updated == null) {
+            return false;
+        }
+        User existing = getUserById(updated.getUserId());
+        if (existing == null) {
+            return false;
+        }
+        User owner = getUserByUsername(updated.getUsername());
+        if (owner != null && owner != existing) {
+            return false;
+        }
+
+        // One journal record instead of rewriting data.csv
+        User record = new User(existing.getUserId(), updated.getUsername(), updated.getPassword(),
+                updated.getEmail(), updated.getType(), updated.getMembership());
+        if (!appendJournal(record)) {
+            return false;
+        }
+
+        unindexUser(existing);
+        copyFields(updated, existing);
+        indexUser(existing);
+        compactIfNeeded();
+        return true;
+    }
+
+    /** Reload data (refresh after external CSV modification; pending journal records are replayed) */
+    public static void reload() {
+        loadUsers();
+    }
+}
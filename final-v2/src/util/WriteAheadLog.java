@@ -0,0 +1,207 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log + checkpoint for a CSV data file (e.g. data/bookings.csv → data/bookings.wal)
+ *
+ * A mutation is appended to the log (and fsynced) before it is applied in memory; the data
+ * file itself is only rewritten at a checkpoint. Owners of a data file follow one pattern:
+ * <pre>
+ *   load:      base file → recover() → apply each record → checkpoint if anything was replayed
+ *   mutation:  append(record) → apply in memory → checkpoint once size() reaches a threshold
+ *   shutdown:  checkpoint if size() > 0
+ * </pre>
+ *
+ * Log format: per record a length int, a CRC32C int and that many bytes of UTF-8 payload.
+ * recover() returns the records up to the first incomplete or damaged one (a torn write
+ * from a crash) and cuts the file there, so later appends start on a record boundary.
+ *
+ * checkpoint() writes the data file through AtomicFileUtil (temp file + fsync + atomic move)
+ * and only then empties the log. A crash between the two replays records that are already in
+ * the data file, so record application must be idempotent (upsert / delete by key).
+ *
+ * Record payloads are "op,body": UPSERT with the CSV line of the record, or DELETE with its key.
+ */
+public class WriteAheadLog implements Closeable {
+
+    public static final char UPSERT = 'U';
+    public static final char DELETE = 'D';
+
+    private static final int RECORD_HEADER = 8;
+
+    /** Upper bound for one record, so a damaged length cannot trigger a huge allocation */
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final Path path;
+    private FileChannel channel;
+
+    /** Records in the log (since the last checkpoint) */
+    private int records;
+
+    public WriteAheadLog(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /** "op,body" payload */
+    public static String record(char op, String body) {
+        return op + "," + body;
+    }
+
+    /** Operation of a payload (UPSERT / DELETE) */
+    public static char op(String record) {
+        return record.charAt(0);
+    }
+
+    /** Body of a payload (CSV line for UPSERT, key for DELETE) */
+    public static String body(String record) {
+        return record.substring(2);
+    }
+
+    /** Records appended since the last checkpoint (including recovered ones) */
+    public synchronized int size() {
+        return records;
+    }
+
+    // =========================================================
+    //               Recovery
+    // =========================================================
+
+    /**
+     * Read the valid records of the log, in order, and drop a damaged tail
+     * @return Payloads (empty if there is no log)
+     */
+    public synchronized List<String> recover() throws IOException {
+        List<String> result = new ArrayList<>();
+        if (!Files.exists(path)) {
+            records = 0;
+            return result;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32C crc = new CRC32C();
+        int valid = 0;
+        while (buf.remaining() >= RECORD_HEADER) {
+            int length = buf.getInt();
+            int expected = buf.getInt();
+            if (length < 0 || length > MAX_RECORD_BYTES || length > buf.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buf.array(), buf.position(), length);
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            result.add(new String(buf.array(), buf.position(), length, StandardCharsets.UTF_8));
+            buf.position(buf.position() + length);
+            valid = buf.position();
+        }
+
+        if (valid < buf.limit()) {
+            System.err.println("Discarding " + (buf.limit() - valid) + " damaged bytes at the end of " + path);
+            channel().truncate(valid);
+            channel().force(true);
+        }
+        records = result.size();
+        return result;
+    }
+
+    // =========================================================
+    //               Append
+    // =========================================================
+
+    /** Append one record and fsync; the record survives a crash once this returns */
+    public void append(String record) throws IOException {
+        appendAll(List.of(record));
+    }
+
+    /** Append several records with a single write + fsync */
+    public synchronized void appendAll(List<String> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        byte[][] payloads = new byte[batch.size()][];
+        int total = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = batch.get(i).getBytes(StandardCharsets.UTF_8);
+            total += RECORD_HEADER + payloads[i].length;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        CRC32C crc = new CRC32C();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+            buf.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buf.flip();
+
+        FileChannel ch = channel();
+        long start = ch.size();
+        long end = start;
+        try {
+            while (buf.hasRemaining()) {
+                end += ch.write(buf, end);
+            }
+            ch.force(false);
+        } catch (IOException e) {
+            // Cut off whatever part of the batch made it, so the log stays well-formed
+            ch.truncate(start);
+            throw e;
+        }
+        records += payloads.length;
+    }
+
+    // =========================================================
+    //               Checkpoint
+    // =========================================================
+
+    /**
+     * Replace the data file with the given lines atomically, then empty the log
+     * @param target Data file
+     * @param lines Complete new content of the data file (header included)
+     */
+    public synchronized void checkpoint(Path target, List<String> lines) throws IOException {
+        AtomicFileUtil.writeLines(target, lines);
+        if (channel == null && !Files.exists(path)) {
+            records = 0;
+            return;
+        }
+        FileChannel ch = channel();
+        ch.truncate(0);
+        ch.force(true);
+        records = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,350 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Write-behind queue in front of a WriteAheadLog
+ *
+ * Callers apply a change in memory and put(key, record); they never wait for the disk.
+ * A dedicated writer thread appends the queued records to the log with one write + fsync
+ * per batch, either when the oldest record has waited MAX_DELAY or when the queue holds
+ * maxPending entities, whichever comes first.
+ *
+ * Records are coalesced per key (entity id): only the latest record of an entity is kept,
+ * so five changes to one booking before the next batch cost one log record. This relies on
+ * records being absolute states (upsert / delete by key), as WriteAheadLog requires anyway.
+ *
+ * The checkpoint task (folding the log into the data file) also runs on the writer thread,
+ * once the log reaches the checkpoint threshold, so it never races with an append and the
+ * caller's thread never pays for a full rewrite. requestCheckpoint() asks for one early
+ * (e.g. after a load replayed the log).
+ *
+ * pause() parks the writer thread between batches and checkpoints, so the owner can write the
+ * queued records itself (writePending) and re-read the log and data file (e.g. a reload) without
+ * an append or a checkpoint running alongside; resume() lets the writer continue.
+ *
+ * Durability: a record is on disk only once its batch is written; flush() is the barrier
+ * (used at shutdown, and by callers that must know their change is durable).
+ */
+public class WriteBehindQueue {
+
+    /** Longest time a queued record waits before its batch is written */
+    private static final long MAX_DELAY_MS = 50;
+
+    /** Wait before retrying after a failed write */
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final WriteAheadLog log;
+    private final Runnable checkpoint;
+    private final int checkpointThreshold;
+    private final int maxPending;
+    private final String name;
+
+    private final Object lock = new Object();
+
+    /** Entity key → latest record, in first-queued order */
+    private LinkedHashMap<String, String> pending = new LinkedHashMap<>();
+
+    /** When the oldest pending record was queued */
+    private long oldestQueuedAt;
+
+    /** Number of put() calls so far / covered by written batches */
+    private long queuedSeq = 0;
+    private long writtenSeq = 0;
+
+    /** Failed write attempts so far (lets flush() return instead of waiting forever) */
+    private long failures = 0;
+
+    /** Records dropped because a newer record for the same key replaced them */
+    private long coalesced = 0;
+
+    private boolean flushRequested = false;
+    private boolean checkpointRequested = false;
+    private boolean stopped = false;
+
+    /** Set by pause(); parked once the writer thread is waiting for resume() */
+    private boolean paused = false;
+    private boolean parked = false;
+
+    private Thread writer;
+
+    /**
+     * @param name Writer thread name
+     * @param log Log the records are appended to
+     * @param checkpoint Folds the log into the data file (run on the writer thread)
+     * @param checkpointThreshold Log size (records) that triggers the checkpoint
+     * @param maxPending Write early once this many entities are queued
+     */
+    public WriteBehindQueue(String name, WriteAheadLog log, Runnable checkpoint,
+                            int checkpointThreshold, int maxPending) {
+        this.name = name;
+        this.log = log;
+        this.checkpoint = checkpoint;
+        this.checkpointThreshold = checkpointThreshold;
+        this.maxPending = maxPending;
+    }
+
+    /** Queue the latest record of an entity; replaces a not yet written record with the same key */
+    public void put(String key, String record) {
+        synchronized (lock) {
+            ensureWriter();
+            if (pending.isEmpty()) {
+                oldestQueuedAt = System.currentTimeMillis();
+            }
+            if (pending.put(key, record) != null) {
+                coalesced++;
+            }
+            queuedSeq++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Queue several records at once (key → record, in order); they always end up in the same batch,
+     * so a multi-record change (e.g. a booking replaced by its remaining parts) is one log write
+     */
+    public void putAll(Map<String, String> records) {
+        synchronized (lock) {
+            for (Map.Entry<String, String> e : records.entrySet()) {
+                put(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Block until everything queued before this call is in the log
+     * @return false if a write failed meanwhile (the records stay queued and are retried)
+     *         or the wait was interrupted
+     */
+    public boolean flush() {
+        synchronized (lock) {
+            long target = queuedSeq;
+            long failuresBefore = failures;
+            flushRequested = true;
+            lock.notifyAll();
+            while (writtenSeq < target) {
+                if (failures != failuresBefore || writer == null) {
+                    return false;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Ask the writer thread to run the checkpoint soon (without waiting for it) */
+    public void requestCheckpoint() {
+        synchronized (lock) {
+            ensureWriter();
+            checkpointRequested = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Park the writer thread between two batches / checkpoints until resume()
+     * put() still queues records meanwhile; they are written by writePending() or after resume().
+     * Must not be called while holding a lock the checkpoint task takes (it may be running).
+     * @return false if the wait was interrupted (the writer is not paused then)
+     */
+    public boolean pause() {
+        synchronized (lock) {
+            paused = true;
+            lock.notifyAll();
+            while (writer != null && !parked) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    paused = false;
+                    lock.notifyAll();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Let the writer thread continue after pause() */
+    public void resume() {
+        synchronized (lock) {
+            paused = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Write the queued records on the calling thread (only while paused)
+     * @return false if the write failed (the records stay queued and are retried after resume())
+     */
+    public boolean writePending() {
+        LinkedHashMap<String, String> batch;
+        long batchSeq;
+        synchronized (lock) {
+            if (!paused) {
+                throw new IllegalStateException("writePending() needs pause()");
+            }
+            if (pending.isEmpty()) {
+                return true;
+            }
+            batch = pending;
+            batchSeq = queuedSeq;
+            pending = new LinkedHashMap<>();
+        }
+        return write(batch, batchSeq);
+    }
+
+    /** Flush, run a final checkpoint on the writer thread and stop it */
+    public void close() {
+        Thread t;
+        synchronized (lock) {
+            if (writer == null) {
+                return;
+            }
+            flushRequested = true;
+            checkpointRequested = true;
+            stopped = true;
+            t = writer;
+            lock.notifyAll();
+        }
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Entities waiting to be written */
+    public int pending() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /** Records saved by coalescing since the queue was created */
+    public long coalesced() {
+        synchronized (lock) {
+            return coalesced;
+        }
+    }
+
+    // =========================================================
+    //               Writer thread
+    // =========================================================
+
+    private void ensureWriter() {
+        if (writer == null) {
+            stopped = false;
+            writer = new Thread(this::writeLoop, name);
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                LinkedHashMap<String, String> batch;
+                long batchSeq;
+                boolean runCheckpoint;
+                synchronized (lock) {
+                    while (paused || (pending.isEmpty() && !stopped && !checkpointRequested)) {
+                        if (pending.isEmpty()) {
+                            flushRequested = false;
+                        }
+                        if (paused && !parked) {
+                            parked = true;
+                            lock.notifyAll();
+                        }
+                        lock.wait();
+                    }
+                    parked = false;
+                    // Let more changes join (and coalesce into) this batch
+                    long remaining;
+                    while (!pending.isEmpty() && !flushRequested && !stopped && !paused && pending.size() < maxPending
+                            && (remaining = oldestQueuedAt + MAX_DELAY_MS - System.currentTimeMillis()) > 0) {
+                        lock.wait(remaining);
+                    }
+                    if (paused) {
+                        continue; // park before taking a batch
+                    }
+                    batch = pending;
+                    batchSeq = queuedSeq;
+                    pending = new LinkedHashMap<>();
+                    flushRequested = false;
+                    runCheckpoint = checkpointRequested;
+                    checkpointRequested = false;
+                }
+
+                if (!batch.isEmpty() && !write(batch, batchSeq)) {
+                    if (stopped) {
+                        break; // give up at shutdown; the log keeps what was written
+                    }
+                    Thread.sleep(RETRY_DELAY_MS);
+                    continue;
+                }
+
+                if (runCheckpoint || log.size() >= checkpointThreshold) {
+                    runCheckpoint();
+                }
+
+                synchronized (lock) {
+                    if (stopped && pending.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                writer = null;
+                parked = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** Append one batch; on failure the records go back in front of newer ones */
+    private boolean write(LinkedHashMap<String, String> batch, long batchSeq) {
+        try {
+            log.appendAll(new ArrayList<>(batch.values()));
+        } catch (Exception e) {
+            System.err.println("ERROR writing " + log.getPath() + " (" + batch.size() + " records queued for retry): "
+                    + e.getMessage());
+            e.printStackTrace();
+            synchronized (lock) {
+                for (Map.Entry<String, String> newer : pending.entrySet()) {
+                    if (batch.put(newer.getKey(), newer.getValue()) != null) {
+                        coalesced++;
+                    }
+                }
+                pending = batch;
+                failures++;
+                lock.notifyAll();
+            }
+            return false;
+        }
+        synchronized (lock) {
+            writtenSeq = batchSeq;
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint.run();
+        } catch (RuntimeException e) {
+            System.err.println("ERROR checkpointing " + log.getPath() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}